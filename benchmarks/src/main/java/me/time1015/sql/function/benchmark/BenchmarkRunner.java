@@ -0,0 +1,63 @@
+package me.time1015.sql.function.benchmark;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, and writes the results as JSON
+ * so that they can be compared across releases.
+ * <br>
+ * <br>
+ * Accepts the usual JMH command line options, which take precedence over these
+ * defaults. The result file defaults to <code>target/jmh-result.json</code>.
+ * 
+ * @author John Daniel Regino
+ */
+public final class BenchmarkRunner {
+  private static final String DEFAULT_RESULT_FILE = "target" + File.separator + "jmh-result.json";
+
+  private BenchmarkRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+
+    Options options = new OptionsBuilder()
+      .parent(commandLine)
+      .addProfiler(GCProfiler.class)
+      .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+      .result(commandLine.getResult().orElse(DEFAULT_RESULT_FILE))
+      .build();
+
+    new File(options.getResult().get()).getAbsoluteFile().getParentFile().mkdirs();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,151 @@
+package me.time1015.sql.function.benchmark;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import me.time1015.sql.function.ExceptionHandler;
+import me.time1015.sql.function.ExceptionHandlerBuilder;
+
+/**
+ * Measures the cost of dispatching an exception through handlers built by an
+ * {@link ExceptionHandlerBuilder}, depending on how deep the exception's class is
+ * below the matching registration and on how many registrations there are.
+ * 
+ * @author John Daniel Regino
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionDispatchBenchmark {
+  private static final List<Class<? extends Exception>> UNRELATED_TYPES = List.of(
+    IOException.class,
+    SQLException.class,
+    IllegalStateException.class,
+    UnsupportedOperationException.class,
+    ArithmeticException.class,
+    ClassCastException.class,
+    IndexOutOfBoundsException.class,
+    ReflectiveOperationException.class
+  );
+
+  @Param({ "0", "4", "8" })
+  public int depth;
+
+  @Param({ "1", "8" })
+  public int mapSize;
+
+  private Exception direct;
+  private Exception wrapped;
+  private Consumer<Exception> handler;
+  private Consumer<Exception> causeMatchingHandler;
+
+  @Setup(Level.Trial)
+  public void setUp(Blackhole blackhole) {
+    direct = newExceptionAtDepth(depth);
+    wrapped = new UncheckedIOException(new IOException(direct));
+
+    handler = registerAll(ExceptionHandler.builder(), blackhole).build();
+    causeMatchingHandler = registerAll(ExceptionHandler.builder(), blackhole).matchCauses().build();
+  }
+
+  @Benchmark
+  public void dispatch() {
+    handler.accept(direct);
+  }
+
+  @Benchmark
+  public void dispatchByCause() {
+    causeMatchingHandler.accept(wrapped);
+  }
+
+  private ExceptionHandlerBuilder registerAll(ExceptionHandlerBuilder builder, Blackhole blackhole) {
+    for (Class<? extends Exception> type : UNRELATED_TYPES.subList(0, mapSize - 1))
+      builder.handle(type, blackhole::consume);
+
+    return builder.handle(Depth0.class, blackhole::consume).handleByDefault(blackhole::consume);
+  }
+
+  private static Exception newExceptionAtDepth(int depth) {
+    switch (depth) {
+      case 0:
+        return new Depth0();
+      case 4:
+        return new Depth4();
+      case 8:
+        return new Depth8();
+      default:
+        throw new IllegalArgumentException("Unsupported depth: " + depth);
+    }
+  }
+
+  @SuppressWarnings("serial")
+  static class Depth0 extends Exception {}
+
+  @SuppressWarnings("serial")
+  static class Depth1 extends Depth0 {}
+
+  @SuppressWarnings("serial")
+  static class Depth2 extends Depth1 {}
+
+  @SuppressWarnings("serial")
+  static class Depth3 extends Depth2 {}
+
+  @SuppressWarnings("serial")
+  static class Depth4 extends Depth3 {}
+
+  @SuppressWarnings("serial")
+  static class Depth5 extends Depth4 {}
+
+  @SuppressWarnings("serial")
+  static class Depth6 extends Depth5 {}
+
+  @SuppressWarnings("serial")
+  static class Depth7 extends Depth6 {}
+
+  @SuppressWarnings("serial")
+  static class Depth8 extends Depth7 {}
+}
@@ -0,0 +1,166 @@
+package me.time1015.sql.function.benchmark;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.time1015.sql.function.ConnectionHandler;
+import me.time1015.sql.function.ExceptionHandler;
+import me.time1015.sql.function.LatencyMetrics;
+import me.time1015.sql.function.Outcome;
+import me.time1015.sql.function.PooledConnectionFactory;
+import me.time1015.sql.function.SqlEndpoint;
+import me.time1015.sql.function.SqlEndpointException;
+
+/**
+ * Measures the per-call overhead of {@link SqlEndpoint#connect(ConnectionHandler)},
+ * from acquiring the connection to closing it, against a stub connection factory.
+ * 
+ * @author John Daniel Regino
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlEndpointBenchmark {
+  private static final ConnectionHandler<Connection> IDENTITY = c -> c;
+  private static final ConnectionHandler<Connection> NAMED_IDENTITY = ConnectionHandler.named("identity", IDENTITY);
+
+  private Connection connection;
+  private Exception failure;
+  private SqlEndpoint endpoint;
+  private SqlEndpoint failingEndpoint;
+  private SqlEndpoint unavailableEndpoint;
+  private SqlEndpoint stacklessUnavailableEndpoint;
+  private SqlEndpoint rethrowingUnavailableEndpoint;
+  private SqlEndpoint stacklessRethrowingUnavailableEndpoint;
+  private SqlEndpoint directAsyncEndpoint;
+  private SqlEndpoint measuredEndpoint;
+  private PooledConnectionFactory pool;
+  private SqlEndpoint pooledEndpoint;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    connection = StubConnections.newStub();
+    failure = new Exception("Benchmark failure");
+
+    endpoint = new SqlEndpoint(() -> connection);
+    failingEndpoint = new SqlEndpoint(() -> {
+      throw failure;
+    }, ExceptionHandler.ignore());
+    unavailableEndpoint = SqlEndpoint.builder(() -> null).exceptionHandler(ExceptionHandler.ignore()).build();
+    stacklessUnavailableEndpoint = SqlEndpoint.builder(() -> null)
+      .exceptionHandler(ExceptionHandler.ignore())
+      .stacklessExceptions(0)
+      .build();
+    rethrowingUnavailableEndpoint = SqlEndpoint.builder(() -> null).build();
+    stacklessRethrowingUnavailableEndpoint = SqlEndpoint.builder(() -> null).stacklessExceptions(0).build();
+    directAsyncEndpoint = SqlEndpoint.builder(() -> connection).executor(Runnable::run).build();
+    measuredEndpoint = SqlEndpoint.builder(() -> connection).latencyMetrics(new LatencyMetrics()).build();
+
+    pool = PooledConnectionFactory.builder(StubConnections::newStub).maxSize(64).idleTimeout(Duration.ZERO).build();
+    pooledEndpoint = new SqlEndpoint(pool);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.close();
+  }
+
+  @Benchmark
+  public Connection connect() {
+    return endpoint.connect(IDENTITY);
+  }
+
+  @Benchmark
+  public Connection connectNamedWithLatencyMetrics() {
+    return measuredEndpoint.connect(NAMED_IDENTITY);
+  }
+
+  @Benchmark
+  public Connection connectFactoryFails() {
+    return failingEndpoint.connect(IDENTITY);
+  }
+
+  @Benchmark
+  public Connection connectNoConnectionProvided() {
+    return unavailableEndpoint.connect(IDENTITY);
+  }
+
+  @Benchmark
+  public Connection connectNoConnectionProvidedStackless() {
+    return stacklessUnavailableEndpoint.connect(IDENTITY);
+  }
+
+  @Benchmark
+  public SqlEndpointException connectNoConnectionProvidedRethrown() {
+    return connectRethrown(rethrowingUnavailableEndpoint);
+  }
+
+  @Benchmark
+  public SqlEndpointException connectNoConnectionProvidedRethrownStackless() {
+    return connectRethrown(stacklessRethrowingUnavailableEndpoint);
+  }
+
+  @Benchmark
+  public Outcome<Connection> tryConnectNoConnectionProvidedStackless() {
+    return stacklessUnavailableEndpoint.tryConnect(IDENTITY);
+  }
+
+  @Benchmark
+  public Connection connectAsyncOnCallingThread() {
+    return directAsyncEndpoint.connectAsync(IDENTITY).join();
+  }
+
+  @Benchmark
+  public Connection connectPooled() {
+    return pooledEndpoint.connect(IDENTITY);
+  }
+
+  private static SqlEndpointException connectRethrown(SqlEndpoint endpoint) {
+    try {
+      endpoint.connect(IDENTITY);
+      return null;
+    } catch (SqlEndpointException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package me.time1015.sql.function.benchmark;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Creates in-process {@link Connection}s that do nothing, so benchmarks only
+ * measure the overhead added by the library.
+ * 
+ * @author John Daniel Regino
+ */
+final class StubConnections {
+  private StubConnections() {}
+
+  static Connection newStub() {
+    return (Connection) Proxy.newProxyInstance(
+      Connection.class.getClassLoader(),
+      new Class<?>[] { Connection.class },
+      (proxy, method, args) -> defaultValueOf(method.getReturnType())
+    );
+  }
+
+  private static Object defaultValueOf(Class<?> type) {
+    if (type == boolean.class)
+      return false;
+    if (type == int.class)
+      return 0;
+
+    return null;
+  }
+}
@@ -0,0 +1,274 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import me.time1015.sql.function.exception.RingBuffer;
+
+/**
+ * An {@link ExceptionHandler} handing exceptions over to another one on a background
+ * thread, so that slow handlers (e.g. logging or metrics) do not add to the latency
+ * of failing calls.
+ * <br>
+ * <br>
+ * Exceptions are queued in a bounded, lock-free buffer drained by a single daemon
+ * thread. When the buffer is full, the {@link OverflowPolicy} decides which exception
+ * is dropped, if any. Dropped exceptions are counted, and after each drain the
+ * background thread reports the exceptions dropped since the previous report as an
+ * {@link ExceptionsDroppedException}, with one of them as its cause.
+ * <br>
+ * <br>
+ * Since the wrapped handler runs on another thread, exceptions it throws cannot
+ * reach the caller: they are counted as failures and discarded. Closing the handler
+ * stops its thread and hands the exceptions still queued over on the calling thread,
+ * and exceptions handled after that are handed over directly.
+ * <br>
+ * <br>
+ * Instances are created through an {@link AsyncExceptionHandlerBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class AsyncExceptionHandler implements ExceptionHandler, AutoCloseable {
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final ExceptionHandler handler;
+  private final OverflowPolicy overflowPolicy;
+  private final RingBuffer<Exception> buffer;
+
+  private final LongAdder handled;
+  private final LongAdder failed;
+  private final LongAdder dropped;
+  private final AtomicLong droppedSinceReport;
+  private final AtomicReference<Exception> droppedSample;
+
+  private final AtomicBoolean closed;
+  private final Thread drainer;
+  private final Thread shutdownHook;
+  private volatile boolean waiting;
+
+  AsyncExceptionHandler(ExceptionHandler handler, int capacity, OverflowPolicy overflowPolicy, boolean flushOnShutdown) {
+    this.handler = handler;
+    this.overflowPolicy = overflowPolicy;
+    this.buffer = new RingBuffer<>(capacity);
+
+    this.handled = new LongAdder();
+    this.failed = new LongAdder();
+    this.dropped = new LongAdder();
+    this.droppedSinceReport = new AtomicLong();
+    this.droppedSample = new AtomicReference<>();
+
+    this.closed = new AtomicBoolean();
+    this.drainer = new Thread(this::drain, "sql-exception-handler");
+    this.drainer.setDaemon(true);
+    this.drainer.start();
+    this.shutdownHook = flushOnShutdown ? new Thread(this::close, "sql-exception-handler-flush") : null;
+    if (shutdownHook != null)
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  /**
+   * Returns a builder of an asynchronous handler handing exceptions over to the
+   * given {@link ExceptionHandler}.
+   * 
+   * @param handler the exception handler to hand exceptions over to
+   * @return the asynchronous exception handler builder
+   */
+  public static AsyncExceptionHandlerBuilder builder(ExceptionHandler handler) {
+    return new AsyncExceptionHandlerBuilder(handler);
+  }
+
+  /**
+   * Queues the exception to be handed over on the background thread, and returns
+   * without waiting for it.
+   * 
+   * @param exception the given exception
+   */
+  @Override
+  public void handle(Exception exception) {
+    if (closed.get()) {
+      deliver(exception);
+      return;
+    }
+
+    if (!buffer.offer(exception)) {
+      overflow(exception);
+      return;
+    }
+
+    // the handler may have been closed after its buffer was flushed
+    if (closed.get())
+      deliverBuffered();
+    else if (waiting)
+      LockSupport.unpark(drainer);
+  }
+
+  /**
+   * Returns the number of exceptions queued and not yet handed over.
+   * 
+   * @return the number of queued exceptions
+   */
+  public int pendingCount() {
+    return buffer.size();
+  }
+
+  /**
+   * Returns the number of exceptions handed over, including the reports of dropped
+   * exceptions.
+   * 
+   * @return the number of exceptions handed over
+   */
+  public long handledCount() {
+    return handled.sum();
+  }
+
+  /**
+   * Returns the number of exceptions the wrapped handler threw.
+   * 
+   * @return the number of failures of the wrapped handler
+   */
+  public long failedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * Returns the number of exceptions dropped because the buffer was full.
+   * 
+   * @return the number of dropped exceptions
+   */
+  public long droppedCount() {
+    return dropped.sum();
+  }
+
+  /**
+   * Stops the background thread, then hands the exceptions still queued over on the
+   * calling thread.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true))
+      return;
+
+    LockSupport.unpark(drainer);
+    try {
+      drainer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    deliverBuffered();
+    if (shutdownHook != null && Thread.currentThread() != shutdownHook)
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException ignored) {
+        // the runtime is already shutting down
+      }
+  }
+
+  private void overflow(Exception exception) {
+    switch (overflowPolicy) {
+      case CALLER_RUNS:
+        deliver(exception);
+        break;
+      case DROP_OLDEST:
+        Exception oldest = buffer.poll();
+        if (oldest != null)
+          drop(oldest);
+        if (!buffer.offer(exception))
+          drop(exception);
+        break;
+      default:
+        drop(exception);
+    }
+  }
+
+  private void drop(Exception exception) {
+    dropped.increment();
+    droppedSinceReport.incrementAndGet();
+    droppedSample.compareAndSet(null, exception);
+  }
+
+  private void drain() {
+    while (!closed.get()) {
+      if (deliverBuffered())
+        continue;
+
+      waiting = true;
+      if (buffer.size() == 0 && !closed.get())
+        LockSupport.parkNanos(this, PARK_NANOS);
+      waiting = false;
+    }
+  }
+
+  private boolean deliverBuffered() {
+    boolean delivered = false;
+    for (Exception exception = buffer.poll(); exception != null; exception = buffer.poll()) {
+      deliver(exception);
+      delivered = true;
+    }
+
+    long droppedCount = droppedSinceReport.getAndSet(0);
+    if (droppedCount > 0)
+      deliver(new ExceptionsDroppedException(droppedCount + " exceptions dropped", droppedSample.getAndSet(null)));
+
+    return delivered;
+  }
+
+  private void deliver(Exception exception) {
+    try {
+      handler.accept(exception);
+      handled.increment();
+    } catch (RuntimeException e) {
+      failed.increment();
+    }
+  }
+
+  /**
+   * Policies deciding what an {@link AsyncExceptionHandler} does with an exception
+   * when its buffer is full.
+   * 
+   * @author John Daniel Regino
+   */
+  public enum OverflowPolicy {
+    /**
+     * Drops the exception being handled.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drops the oldest queued exception to make room for the one being handled.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Hands the exception being handled over on the calling thread.
+     */
+    CALLER_RUNS
+  }
+}
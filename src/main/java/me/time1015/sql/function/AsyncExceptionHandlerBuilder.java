@@ -0,0 +1,102 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * A Builder of {@link AsyncExceptionHandler} instances.
+ * <br>
+ * <br>
+ * By default, the built handler queues up to 1024 exceptions, drops the newest ones
+ * when its buffer is full, and does not flush its buffer when the runtime shuts down.
+ * 
+ * @author John Daniel Regino
+ */
+public final class AsyncExceptionHandlerBuilder {
+  private final ExceptionHandler handler;
+  private int capacity;
+  private AsyncExceptionHandler.OverflowPolicy overflowPolicy;
+  private boolean flushOnShutdown;
+
+  AsyncExceptionHandlerBuilder(ExceptionHandler handler) {
+    if (handler == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    this.handler = handler;
+    this.capacity = 1024;
+    this.overflowPolicy = AsyncExceptionHandler.OverflowPolicy.DROP_NEWEST;
+    this.flushOnShutdown = false;
+  }
+
+  /**
+   * Sets the number of exceptions the handler may queue, rounded up to the next
+   * power of two, and to at least 2.
+   * 
+   * @param capacity the capacity of the buffer
+   * @return itself
+   */
+  public AsyncExceptionHandlerBuilder capacity(int capacity) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("Non-positive capacity");
+    if (capacity > 1 << 30)
+      throw new IllegalArgumentException("Capacity too large");
+
+    this.capacity = capacity;
+    return this;
+  }
+
+  /**
+   * Sets what the handler does with an exception when its buffer is full.
+   * 
+   * @param overflowPolicy the overflow policy
+   * @return itself
+   */
+  public AsyncExceptionHandlerBuilder overflowPolicy(AsyncExceptionHandler.OverflowPolicy overflowPolicy) {
+    if (overflowPolicy == null)
+      throw new IllegalArgumentException("Null overflow policy");
+
+    this.overflowPolicy = overflowPolicy;
+    return this;
+  }
+
+  /**
+   * Sets whether the handler closes itself when the runtime shuts down, handing the
+   * exceptions still queued over before the runtime exits.
+   * 
+   * @param flushOnShutdown whether to flush the buffer on shutdown
+   * @return itself
+   */
+  public AsyncExceptionHandlerBuilder flushOnShutdown(boolean flushOnShutdown) {
+    this.flushOnShutdown = flushOnShutdown;
+    return this;
+  }
+
+  /**
+   * Build the resulting handler, starting its background thread.
+   * 
+   * @return the resulting handler
+   */
+  public AsyncExceptionHandler build() {
+    return new AsyncExceptionHandler(handler, capacity, overflowPolicy, flushOnShutdown);
+  }
+}
@@ -0,0 +1,386 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Represents a decorator of a {@link SqlEndpoint} that caches the results of handlers
+ * by a key declared by the caller.
+ * <br>
+ * <br>
+ * A call whose key has a live cached result returns it without taking a connection.
+ * Otherwise, the handler is run on the decorated endpoint, and its result is cached
+ * if the whole call succeeded. Concurrent misses of the same key are coalesced into a
+ * single call through {@link SqlEndpoint#connectCoalesced(Object, ConnectionHandler)},
+ * under keys private to this cache, so they never join the calls of other caches or
+ * other callers of the same endpoint. Values returned from the handler's
+ * <code>defaultValue</code> after an exception are never cached.
+ * <br>
+ * <br>
+ * Results expire after a time to live, and the least recently used results are evicted
+ * once the total weight of the cache exceeds its maximum. Larger caches are split into
+ * independently locked segments, each bounded by an equal share of the maximum weight.
+ * <br>
+ * <br>
+ * A key should always be used with handlers returning the same type. Instances are
+ * created through a {@link CachingSqlEndpointBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class CachingSqlEndpoint {
+  private static final int MAX_SEGMENTS = 16;
+  private static final int MIN_SEGMENT_WEIGHT = 64;
+
+  private final SqlEndpoint endpoint;
+  private final long ttlNanos;
+  private final ToIntBiFunction<Object, Object> weigher;
+  private final LongSupplier clock;
+  private final Segment[] segments;
+  private final long segmentMaxWeight;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+
+  CachingSqlEndpoint(CachingSqlEndpointBuilder builder) {
+    this.endpoint = builder.endpoint;
+    this.ttlNanos = builder.ttl.toNanos();
+    this.weigher = builder.weigher;
+    this.clock = builder.clock;
+
+    long segmentCount = Long.highestOneBit(builder.maxWeight / MIN_SEGMENT_WEIGHT);
+    segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, segmentCount));
+    this.segments = new Segment[(int) segmentCount];
+    for (int i = 0; i < segmentCount; i++)
+      segments[i] = new Segment();
+
+    this.segmentMaxWeight = builder.maxWeight / segmentCount;
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+  }
+
+  /**
+   * Returns an instance of <code>CachingSqlEndpointBuilder</code> for the given
+   * {@link SqlEndpoint}.
+   * 
+   * @param endpoint the endpoint to decorate
+   * @return the caching endpoint builder
+   */
+  public static CachingSqlEndpointBuilder builder(SqlEndpoint endpoint) {
+    return new CachingSqlEndpointBuilder(endpoint);
+  }
+
+  /**
+   * Returns the cached result of the given key, or runs the given
+   * {@link ConnectionHandler} on the decorated endpoint and caches its result.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} of the decorated endpoint will be called if
+   * an exception is thrown.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param key       the key of the result
+   * @param onConnect the connection handler computing the result
+   * @return the cached or computed result
+   */
+  public <T> T connect(Object key, ConnectionHandler<T> onConnect) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return load(key, onConnect, endpoint.exceptionHandler());
+  }
+
+  /**
+   * Returns the cached result of the given key, or runs the given
+   * {@link ConnectionHandler} on the decorated endpoint and caches its result.
+   * <br>
+   * <br>
+   * This behaves like {@link #connect(Object, ConnectionHandler)}, except that the given
+   * {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param key         the key of the result
+   * @param onConnect   the connection handler computing the result
+   * @param onException the exception handler to use
+   * @return the cached or computed result
+   */
+  public <T> T connect(Object key, ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return load(key, onConnect, onException);
+  }
+
+  /**
+   * Removes the cached result of the given key, if any.
+   * <br>
+   * <br>
+   * Results still being computed are returned to their callers, but may not be cached.
+   * 
+   * @param key the key of the result
+   */
+  public void invalidate(Object key) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+
+    segmentOf(key).remove(key);
+  }
+
+  /**
+   * Removes all the cached results.
+   * <br>
+   * <br>
+   * Results still being computed are returned to their callers, but are not cached.
+   */
+  public void invalidateAll() {
+    for (Segment segment : segments)
+      segment.clear();
+  }
+
+  /**
+   * Returns the number of cached results, including expired ones not yet removed.
+   * 
+   * @return the number of cached results
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments)
+      size += segment.size();
+
+    return size;
+  }
+
+  /**
+   * Returns the number of calls served from the cache.
+   * 
+   * @return the number of cache hits
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of calls that ran their handler.
+   * 
+   * @return the number of cache misses
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of results removed because they expired or were evicted to
+   * respect the maximum weight.
+   * 
+   * @return the number of evictions
+   */
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  private Entry lookup(Object key) {
+    Entry entry = segmentOf(key).get(key, clock.getAsLong());
+    if (entry == null)
+      misses.increment();
+    else
+      hits.increment();
+
+    return entry;
+  }
+
+  private <T> T load(Object key, ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    Entry cached = lookup(key);
+    if (cached != null)
+      return cached.value();
+
+    // invalidations landing while the handler runs make its result stale
+    long invalidations = segmentOf(key).invalidations();
+    Load<T> load = new Load<>(onConnect, onException);
+    T value = endpoint.connectCoalesced(new FlightKey(this, key), load, load::fail);
+    if (!load.loaded || load.failed)
+      return value;
+
+    return store(key, value, invalidations);
+  }
+
+  private <T> T store(Object key, T value, long invalidations) {
+    int weight = weigher.applyAsInt(key, value);
+    if (weight < 0)
+      throw new IllegalStateException("Negative weight");
+    if (weight <= segmentMaxWeight)
+      segmentOf(key).put(key, new Entry(value, weight, clock.getAsLong() + ttlNanos), invalidations);
+
+    return value;
+  }
+
+  private Segment segmentOf(Object key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final int weight;
+    private final long expiresAt;
+
+    private Entry(Object value, int weight, long expiresAt) {
+      this.value = value;
+      this.weight = weight;
+      this.expiresAt = expiresAt;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T value() {
+      return (T) value;
+    }
+  }
+
+  private final class Segment {
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long invalidations;
+
+    private synchronized Entry get(Object key, long now) {
+      Entry entry = entries.get(key);
+      if (entry == null)
+        return null;
+
+      if (ttlNanos > 0 && now - entry.expiresAt >= 0) {
+        entries.remove(key);
+        weight -= entry.weight;
+        evictions.increment();
+        return null;
+      }
+
+      return entry;
+    }
+
+    private synchronized long invalidations() {
+      return invalidations;
+    }
+
+    private synchronized void put(Object key, Entry entry, long invalidations) {
+      if (this.invalidations != invalidations)
+        return;
+
+      Entry replaced = entries.put(key, entry);
+      if (replaced != null)
+        weight -= replaced.weight;
+
+      weight += entry.weight;
+      for (Iterator<Entry> eldest = entries.values().iterator(); weight > segmentMaxWeight;) {
+        weight -= eldest.next().weight;
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+
+    private synchronized void remove(Object key) {
+      invalidations++;
+      Entry removed = entries.remove(key);
+      if (removed != null)
+        weight -= removed.weight;
+    }
+
+    private synchronized void clear() {
+      invalidations++;
+      entries.clear();
+      weight = 0;
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+  }
+
+  private static final class FlightKey {
+    private final CachingSqlEndpoint owner;
+    private final Object key;
+
+    private FlightKey(CachingSqlEndpoint owner, Object key) {
+      this.owner = owner;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof FlightKey))
+        return false;
+
+      FlightKey flightKey = (FlightKey) other;
+      return owner == flightKey.owner && key.equals(flightKey.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(owner) + key.hashCode();
+    }
+  }
+
+  private static final class Load<T> implements ConnectionHandler<T> {
+    private final ConnectionHandler<T> onConnect;
+    private final ExceptionHandler onException;
+    private volatile boolean loaded;
+    private boolean failed;
+
+    private Load(ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+      this.onConnect = onConnect;
+      this.onException = onException;
+    }
+
+    private void fail(Exception exception) {
+      failed = true;
+      onException.accept(exception);
+    }
+
+    @Override
+    public T handleAndReturn(Connection connection) throws Exception {
+      T value = onConnect.handleAndReturn(connection);
+      loaded = true;
+      return value;
+    }
+
+    @Override
+    public T defaultValue() {
+      return onConnect.defaultValue();
+    }
+
+    @Override
+    public String name() {
+      return onConnect.name();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A Builder of {@link CachingSqlEndpoint}s.
+ * <br>
+ * <br>
+ * By default, the built endpoint keeps results for 1 minute, and holds at most
+ * 10000 results, each weighing 1.
+ * 
+ * @author John Daniel Regino
+ */
+public final class CachingSqlEndpointBuilder {
+  final SqlEndpoint endpoint;
+  Duration ttl;
+  long maxWeight;
+  ToIntBiFunction<Object, Object> weigher;
+  LongSupplier clock;
+
+  CachingSqlEndpointBuilder(SqlEndpoint endpoint) {
+    if (endpoint == null)
+      throw new IllegalArgumentException("Null endpoint");
+
+    this.endpoint = endpoint;
+    this.ttl = Duration.ofMinutes(1);
+    this.maxWeight = 10_000;
+    this.weigher = (key, value) -> 1;
+    this.clock = System::nanoTime;
+  }
+
+  /**
+   * Sets how long a result is served from the cache after it was computed.
+   * <br>
+   * <br>
+   * A zero duration keeps results until they are evicted or invalidated.
+   * 
+   * @param ttl the time to live of results
+   * @return itself
+   */
+  public CachingSqlEndpointBuilder ttl(Duration ttl) {
+    if (ttl == null)
+      throw new IllegalArgumentException("Null time to live");
+    if (ttl.isNegative())
+      throw new IllegalArgumentException("Negative time to live");
+
+    this.ttl = ttl;
+    return this;
+  }
+
+  /**
+   * Sets the maximum total weight of the cached results.
+   * <br>
+   * <br>
+   * Once exceeded, the least recently used results are evicted.
+   * 
+   * @param maxWeight the maximum total weight
+   * @return itself
+   */
+  public CachingSqlEndpointBuilder maxWeight(long maxWeight) {
+    if (maxWeight < 1)
+      throw new IllegalArgumentException("Non-positive maximum weight");
+
+    this.maxWeight = maxWeight;
+    return this;
+  }
+
+  /**
+   * Sets the function computing the weight of a result from its key and value.
+   * <br>
+   * <br>
+   * Weights must not be negative, and results weighing more than the maximum weight
+   * are not cached.
+   * 
+   * @param weigher the weigher to use
+   * @return itself
+   */
+  public CachingSqlEndpointBuilder weigher(ToIntBiFunction<Object, Object> weigher) {
+    if (weigher == null)
+      throw new IllegalArgumentException("Null weigher");
+
+    this.weigher = weigher;
+    return this;
+  }
+
+  /**
+   * Build the resulting caching endpoint.
+   * 
+   * @return the resulting caching endpoint
+   */
+  public CachingSqlEndpoint build() {
+    return new CachingSqlEndpoint(this);
+  }
+}
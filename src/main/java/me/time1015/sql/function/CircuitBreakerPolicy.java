@@ -0,0 +1,82 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * Represents how a {@link SqlEndpoint} stops acquiring connections while its database
+ * appears to be down.
+ * <br>
+ * <br>
+ * The circuit is closed at first, and records whether each connection acquisition
+ * failed or was slow in a sliding window. Once enough acquisitions are recorded and the
+ * rate of failed or slow ones reaches its threshold, the circuit opens: calls are then
+ * rejected with a {@link CircuitBreakerOpenException}, handled like any other exception,
+ * without waiting on the connection factory.
+ * <br>
+ * <br>
+ * After a while, the circuit becomes half-open and lets a few trial calls through. It
+ * closes again if their rates stay under the thresholds, and opens again otherwise.
+ * <br>
+ * <br>
+ * Only the connection factory is evaluated, so exceptions thrown by handlers never open
+ * the circuit. Instances are created through a {@link CircuitBreakerPolicyBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class CircuitBreakerPolicy {
+  final int windowSize;
+  final int minimumCalls;
+  final double failureRateThreshold;
+  final double slowCallRateThreshold;
+  final long slowCallNanos;
+  final long openNanos;
+  final int halfOpenCalls;
+
+  CircuitBreakerPolicy(
+    int windowSize,
+    int minimumCalls,
+    double failureRateThreshold,
+    double slowCallRateThreshold,
+    long slowCallNanos,
+    long openNanos,
+    int halfOpenCalls
+  ) {
+    this.windowSize = windowSize;
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallNanos = slowCallNanos;
+    this.openNanos = openNanos;
+    this.halfOpenCalls = halfOpenCalls;
+  }
+
+  /**
+   * Returns an instance of <code>CircuitBreakerPolicyBuilder</code>.
+   * 
+   * @return the circuit breaker policy builder
+   */
+  public static CircuitBreakerPolicyBuilder builder() {
+    return new CircuitBreakerPolicyBuilder();
+  }
+}
@@ -0,0 +1,159 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+
+/**
+ * A Builder of {@link CircuitBreakerPolicy} instances.
+ * <br>
+ * <br>
+ * By default, the built policy evaluates the last 100 connection acquisitions once at
+ * least 20 were recorded, opens the circuit when half of them failed or all of them
+ * took more than 5 seconds, stays open for 30 seconds, then lets 5 trial calls through.
+ * 
+ * @author John Daniel Regino
+ */
+public final class CircuitBreakerPolicyBuilder {
+  private int windowSize;
+  private int minimumCalls;
+  private double failureRateThreshold;
+  private double slowCallRateThreshold;
+  private Duration slowCallDuration;
+  private Duration openDuration;
+  private int halfOpenCalls;
+
+  CircuitBreakerPolicyBuilder() {
+    this.windowSize = 100;
+    this.minimumCalls = 20;
+    this.failureRateThreshold = 0.5;
+    this.slowCallRateThreshold = 1;
+    this.slowCallDuration = Duration.ofSeconds(5);
+    this.openDuration = Duration.ofSeconds(30);
+    this.halfOpenCalls = 5;
+  }
+
+  /**
+   * Sets the number of most recent acquisitions evaluated, and how many must be recorded
+   * before the circuit may open.
+   * 
+   * @param windowSize   the size of the sliding window
+   * @param minimumCalls the minimum number of recorded acquisitions
+   * @return itself
+   */
+  public CircuitBreakerPolicyBuilder window(int windowSize, int minimumCalls) {
+    if (windowSize < 1)
+      throw new IllegalArgumentException("Non-positive window size");
+    if (minimumCalls < 1 || minimumCalls > windowSize)
+      throw new IllegalArgumentException("Minimum calls out of range");
+
+    this.windowSize = windowSize;
+    this.minimumCalls = minimumCalls;
+    return this;
+  }
+
+  /**
+   * Sets the rate of failed acquisitions, between 0 exclusive and 1 inclusive, at which
+   * the circuit opens.
+   * 
+   * @param failureRateThreshold the failure rate threshold
+   * @return itself
+   */
+  public CircuitBreakerPolicyBuilder failureRateThreshold(double failureRateThreshold) {
+    if (!(failureRateThreshold > 0 && failureRateThreshold <= 1))
+      throw new IllegalArgumentException("Failure rate threshold out of range");
+
+    this.failureRateThreshold = failureRateThreshold;
+    return this;
+  }
+
+  /**
+   * Sets how long an acquisition may take before counting as slow, and the rate of slow
+   * acquisitions, between 0 exclusive and 1 inclusive, at which the circuit opens.
+   * 
+   * @param slowCallDuration      the duration over which an acquisition is slow
+   * @param slowCallRateThreshold the slow call rate threshold
+   * @return itself
+   */
+  public CircuitBreakerPolicyBuilder slowCalls(Duration slowCallDuration, double slowCallRateThreshold) {
+    if (slowCallDuration == null)
+      throw new IllegalArgumentException("Null slow call duration");
+    if (slowCallDuration.isNegative())
+      throw new IllegalArgumentException("Negative slow call duration");
+    if (!(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1))
+      throw new IllegalArgumentException("Slow call rate threshold out of range");
+
+    this.slowCallDuration = slowCallDuration;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    return this;
+  }
+
+  /**
+   * Sets how long the circuit stays open before letting trial calls through.
+   * 
+   * @param openDuration the duration of the open state
+   * @return itself
+   */
+  public CircuitBreakerPolicyBuilder openDuration(Duration openDuration) {
+    if (openDuration == null)
+      throw new IllegalArgumentException("Null open duration");
+    if (openDuration.isNegative())
+      throw new IllegalArgumentException("Negative open duration");
+
+    this.openDuration = openDuration;
+    return this;
+  }
+
+  /**
+   * Sets the number of trial calls let through while half-open, whose outcomes decide
+   * whether the circuit closes or opens again.
+   * 
+   * @param halfOpenCalls the number of trial calls
+   * @return itself
+   */
+  public CircuitBreakerPolicyBuilder halfOpenCalls(int halfOpenCalls) {
+    if (halfOpenCalls < 1)
+      throw new IllegalArgumentException("Non-positive half-open calls");
+
+    this.halfOpenCalls = halfOpenCalls;
+    return this;
+  }
+
+  /**
+   * Build the resulting circuit breaker policy.
+   * 
+   * @return the resulting circuit breaker policy
+   */
+  public CircuitBreakerPolicy build() {
+    return new CircuitBreakerPolicy(
+      windowSize,
+      minimumCalls,
+      failureRateThreshold,
+      slowCallRateThreshold,
+      slowCallDuration.toNanos(),
+      openDuration.toNanos(),
+      halfOpenCalls
+    );
+  }
+}
@@ -0,0 +1,205 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Represents the rows of a {@link ResultSet} read into typed columns.
+ * <br>
+ * <br>
+ * Integer columns up to <code>INTEGER</code> are read into <code>int</code> columns,
+ * <code>BIGINT</code> columns into <code>long</code> columns, and floating-point
+ * columns into <code>double</code> columns, without boxing their values. The other
+ * columns are read as objects.
+ * <br>
+ * <br>
+ * A result is typically read within a {@link ConnectionHandler}, e.g.:
+ * 
+ * <pre>
+ * ColumnarResult result = endpoint.connect(connection -&gt; {
+ *   try (Statement statement = connection.createStatement();
+ *       ResultSet rows = statement.executeQuery("SELECT id, total FROM orders")) {
+ *     return ColumnarResult.read(rows);
+ *   }
+ * });
+ * ResultColumn.OfDouble totals = result.doubleColumn("total");
+ * </pre>
+ * 
+ * @author John Daniel Regino
+ */
+public final class ColumnarResult {
+  private final ResultColumn[] columns;
+  private final int rowCount;
+
+  private ColumnarResult(ResultColumn[] columns, int rowCount) {
+    this.columns = columns;
+    this.rowCount = rowCount;
+  }
+
+  /**
+   * Reads the remaining rows of the given result set.
+   * <br>
+   * <br>
+   * The result set is left open.
+   * 
+   * @param resultSet the result set to read
+   * @return the columnar result
+   * @throws SQLException if an error occured while reading the result set
+   */
+  public static ColumnarResult read(ResultSet resultSet) throws SQLException {
+    if (resultSet == null)
+      throw new IllegalArgumentException("Null result set");
+
+    ResultSetMetaData metaData = resultSet.getMetaData();
+    ResultColumn[] columns = new ResultColumn[metaData.getColumnCount()];
+    for (int i = 0; i < columns.length; i++)
+      columns[i] = newColumn(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1));
+
+    int rowCount = 0;
+    while (resultSet.next()) {
+      for (int i = 0; i < columns.length; i++)
+        columns[i].read(resultSet, i + 1);
+
+      rowCount++;
+    }
+
+    return new ColumnarResult(columns, rowCount);
+  }
+
+  /**
+   * Returns the number of rows read.
+   * 
+   * @return the number of rows
+   */
+  public int rowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Returns the number of columns read.
+   * 
+   * @return the number of columns
+   */
+  public int columnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Returns the column of the given index.
+   * 
+   * @param column the index of the column, starting from 1 like in {@link ResultSet}
+   * @return the column
+   */
+  public ResultColumn column(int column) {
+    if (column < 1 || column > columns.length)
+      throw new IndexOutOfBoundsException("Column " + column + " out of " + columns.length);
+
+    return columns[column - 1];
+  }
+
+  /**
+   * Returns the column of the given label, ignoring case.
+   * 
+   * @param label the label of the column
+   * @return the column
+   */
+  public ResultColumn column(String label) {
+    if (label == null)
+      throw new IllegalArgumentException("Null column label");
+
+    for (ResultColumn column : columns)
+      if (column.name().equalsIgnoreCase(label))
+        return column;
+
+    throw new IllegalArgumentException("Unknown column " + label);
+  }
+
+  /**
+   * Returns the <code>int</code> column of the given label.
+   * 
+   * @param label the label of the column
+   * @return the column
+   */
+  public ResultColumn.OfInt intColumn(String label) {
+    return typed(column(label), ResultColumn.OfInt.class);
+  }
+
+  /**
+   * Returns the <code>long</code> column of the given label.
+   * 
+   * @param label the label of the column
+   * @return the column
+   */
+  public ResultColumn.OfLong longColumn(String label) {
+    return typed(column(label), ResultColumn.OfLong.class);
+  }
+
+  /**
+   * Returns the <code>double</code> column of the given label.
+   * 
+   * @param label the label of the column
+   * @return the column
+   */
+  public ResultColumn.OfDouble doubleColumn(String label) {
+    return typed(column(label), ResultColumn.OfDouble.class);
+  }
+
+  /**
+   * Returns the object column of the given label.
+   * 
+   * @param label the label of the column
+   * @return the column
+   */
+  public ResultColumn.OfObject objectColumn(String label) {
+    return typed(column(label), ResultColumn.OfObject.class);
+  }
+
+  private static <C extends ResultColumn> C typed(ResultColumn column, Class<C> type) {
+    if (!type.isInstance(column))
+      throw new IllegalArgumentException("Column " + column.name() + " is not of type " + type.getSimpleName());
+
+    return type.cast(column);
+  }
+
+  private static ResultColumn newColumn(String name, int type) {
+    switch (type) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+        return new ResultColumn.OfInt(name);
+      case Types.BIGINT:
+        return new ResultColumn.OfLong(name);
+      case Types.REAL:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return new ResultColumn.OfDouble(name);
+      default:
+        return new ResultColumn.OfObject(name);
+    }
+  }
+}
@@ -53,6 +53,54 @@ public interface ConnectionHandler<T> {
     return null;
   }
 
+  /**
+   * Returns the name under which the handler's latencies are recorded by
+   * {@link LatencyMetrics}, if any.
+   * 
+   * @return the name of the handler, or <code>null</code> if unnamed
+   */
+  default String name() {
+    return null;
+  }
+
+  /**
+   * Names the given handler, so that its latencies are recorded by the
+   * {@link LatencyMetrics} of the endpoints it is run on.
+   * <br>
+   * <br>
+   * The returned handler delegates both <code>handleAndReturn</code> and
+   * <code>defaultValue</code> to the given one. Names are meant to identify logical
+   * queries, so they should be few and constant.
+   * 
+   * @param <T>     the return type of the handler
+   * @param name    the name of the handler
+   * @param handler the handler to name
+   * @return the named handler
+   */
+  public static <T> ConnectionHandler<T> named(String name, ConnectionHandler<T> handler) {
+    if (name == null)
+      throw new IllegalArgumentException("Null name");
+    if (handler == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return new ConnectionHandler<>() {
+      @Override
+      public T handleAndReturn(Connection connection) throws Exception {
+        return handler.handleAndReturn(connection);
+      }
+
+      @Override
+      public T defaultValue() {
+        return handler.defaultValue();
+      }
+
+      @Override
+      public String name() {
+        return name;
+      }
+    };
+  }
+
   /**
    * Represents a specialized no-return connection handler.
    * <br>
@@ -0,0 +1,78 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * Reported to indicate that a connection provided by a {@link SqlEndpoint} was
+ * held longer than the threshold of its leak detection.
+ * <br>
+ * <br>
+ * Its stack trace is the one of the holding thread when the hold was detected. If the
+ * acquisition of the connection was sampled, its cause carries the stack trace of the
+ * acquisition.
+ * 
+ * @author John Daniel Regino
+ */
+public class ConnectionLeakException extends RuntimeException {
+  private static final long serialVersionUID = 5573018224106547761L;
+
+  /**
+   * Creates an instance of <code>ConnectionLeakException</code>
+   * with no message or cause.
+   */
+  public ConnectionLeakException() {
+    super();
+  }
+
+  /**
+   * Creates an instance of <code>ConnectionLeakException</code>
+   * with a given message and no cause.
+   * 
+   * @param message the description of the exception
+   */
+  public ConnectionLeakException(String message) {
+    super(message);
+  }
+
+  /**
+   * Creates an instance of <code>ConnectionLeakException</code>
+   * with a given cause and no message.
+   * 
+   * @param cause the underlying cause of the exception
+   */
+  public ConnectionLeakException(Throwable cause) {
+    super(cause);
+  }
+
+  /**
+   * Creates an instance of <code>ConnectionLeakException</code>
+   * with a given cause and message.
+   * 
+   * @param message the description of the exception
+   * @param cause   the underlying cause of the exception
+   */
+  public ConnectionLeakException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -23,12 +23,15 @@ package me.time1015.sql.function;
  * THE SOFTWARE.
  */
 
+import java.time.Duration;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 import me.time1015.sql.function.exception.IgnoreExceptionHandler;
 import me.time1015.sql.function.exception.MappedExceptionHandler;
+import me.time1015.sql.function.exception.RateLimitedExceptionHandler;
 
 /**
  * A Builder of <code>ExceptionHandler</code>s.
@@ -36,10 +39,18 @@ import me.time1015.sql.function.exception.MappedExceptionHandler;
  * @author John Daniel Regino
  */
 public final class ExceptionHandlerBuilder {
-  private final Map<Class<? extends Exception>, Consumer<Exception>> handlers;
+  private final Map<Class<?>, Consumer<Exception>> handlers;
+  private boolean matchCauses;
+  private int maxPerWindow;
+  private Duration window;
+  LongSupplier clock;
 
   ExceptionHandlerBuilder() {
     this.handlers = new IdentityHashMap<>();
+    this.matchCauses = false;
+    this.maxPerWindow = 0;
+    this.window = null;
+    this.clock = System::nanoTime;
   }
 
   /**
@@ -69,6 +80,31 @@ public final class ExceptionHandlerBuilder {
     return this;
   }
 
+  /**
+   * Registers a handler to an interface.
+   * <br>
+   * <br>
+   * The resulting exception handler will pass exceptions implementing the given
+   * interface to the given handler, unless a handler is registered to their class
+   * or one of its subclasses.
+   * 
+   * @param <I>     the type of the interface
+   * @param type    the interface to match
+   * @param handler the corresponding handler for the interface
+   * @return itself
+   */
+  public <I> ExceptionHandlerBuilder handleInterface(Class<I> type, Consumer<? super I> handler) {
+    if (type == null)
+      throw new IllegalArgumentException("Null type");
+    if (!type.isInterface())
+      throw new IllegalArgumentException("Type is not an interface");
+    if (handler == null)
+      throw new IllegalArgumentException("Null handler");
+
+    handlers.put(type, e -> handler.accept(type.cast(e)));
+    return this;
+  }
+
   /**
    * Registers a default handler.
    * <br>
@@ -117,6 +153,64 @@ public final class ExceptionHandlerBuilder {
     return this;
   }
 
+  /**
+   * Makes the resulting exception handler match the causes of exceptions.
+   * <br>
+   * <br>
+   * An exception will be passed to the first handler matching either itself or one
+   * of its causes, in that order. The matched cause is the one passed to the handler.
+   * The default handler is only used when neither the exception nor its causes match.
+   * <br>
+   * <br>
+   * E.g.: A handler registered to the <code>SQLException</code> type will consume the
+   * <code>SQLException</code> wrapped inside a {@link SqlEndpointException}, unless a handler
+   * is registered to <code>SqlEndpointException</code> or <code>RuntimeException</code>.
+   * 
+   * @return itself
+   */
+  public ExceptionHandlerBuilder matchCauses() {
+    this.matchCauses = true;
+    return this;
+  }
+
+  /**
+   * Makes the resulting exception handler pass on at most <code>maxPerWindow</code>
+   * similar exceptions per time window, and suppress the others.
+   * <br>
+   * <br>
+   * Exceptions are similar if they share their type, the SQLState of the first
+   * <code>SQLException</code> among them and their causes, and the top frames of their
+   * stack trace. Once a window has passed, the number of exceptions suppressed within
+   * it is passed on as an {@link ExceptionsSuppressedException}, which has one of them
+   * as its cause, to the handler registered for that cause. A handler whose type does
+   * not admit the summary is passed a new exception of the cause's type instead, with
+   * the summary as its cause, or the default handler is passed the summary if that type
+   * cannot be created with a message and a cause.
+   * <br>
+   * <br>
+   * Exceptions with no registered handler are not limited, and are thrown as usual.
+   * <br>
+   * <br>
+   * This keeps failure storms (e.g. every call failing while the database is down)
+   * from flooding the registered handlers.
+   * 
+   * @param maxPerWindow the maximum number of similar exceptions passed on per window
+   * @param window       the duration of a window
+   * @return itself
+   */
+  public ExceptionHandlerBuilder rateLimit(int maxPerWindow, Duration window) {
+    if (maxPerWindow < 1)
+      throw new IllegalArgumentException("Non-positive maximum exceptions per window");
+    if (window == null)
+      throw new IllegalArgumentException("Null window");
+    if (window.isNegative() || window.isZero())
+      throw new IllegalArgumentException("Non-positive window");
+
+    this.maxPerWindow = maxPerWindow;
+    this.window = window;
+    return this;
+  }
+
   /**
    * Build the resulting exception handler.
    * <br>
@@ -127,6 +221,10 @@ public final class ExceptionHandlerBuilder {
    * @return the resulting exception handler
    */
   public Consumer<Exception> build() {
-    return new MappedExceptionHandler(handlers);
+    MappedExceptionHandler handler = new MappedExceptionHandler(handlers, matchCauses);
+    if (window == null)
+      return handler;
+
+    return RateLimitedExceptionHandler.start(handler, maxPerWindow, window.toNanos(), clock);
   }
 }
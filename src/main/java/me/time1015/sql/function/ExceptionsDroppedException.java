@@ -0,0 +1,76 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * Reported by an {@link AsyncExceptionHandler} to indicate that exceptions were dropped
+ * because its buffer was full.
+ * <br>
+ * <br>
+ * Its cause, if any, is one of the dropped exceptions.
+ * 
+ * @author John Daniel Regino
+ */
+public class ExceptionsDroppedException extends RuntimeException {
+  private static final long serialVersionUID = 3360982471092917735L;
+
+  /**
+   * Creates an instance of <code>ExceptionsDroppedException</code>
+   * with no message or cause.
+   */
+  public ExceptionsDroppedException() {
+    super();
+  }
+
+  /**
+   * Creates an instance of <code>ExceptionsDroppedException</code>
+   * with a given message and no cause.
+   * 
+   * @param message the description of the exception
+   */
+  public ExceptionsDroppedException(String message) {
+    super(message);
+  }
+
+  /**
+   * Creates an instance of <code>ExceptionsDroppedException</code>
+   * with a given cause and no message.
+   * 
+   * @param cause the underlying cause of the exception
+   */
+  public ExceptionsDroppedException(Throwable cause) {
+    super(cause);
+  }
+
+  /**
+   * Creates an instance of <code>ExceptionsDroppedException</code>
+   * with a given cause and message.
+   * 
+   * @param message the description of the exception
+   * @param cause   the underlying cause of the exception
+   */
+  public ExceptionsDroppedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
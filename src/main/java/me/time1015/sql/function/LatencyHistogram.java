@@ -0,0 +1,218 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory histogram of latencies, in nanoseconds.
+ * <br>
+ * <br>
+ * Latencies are counted in log-linear buckets: latencies under 64 nanoseconds are
+ * counted exactly, and every power of two above is split into 64 buckets, which keeps
+ * the error of reported values under 1.6%. Latencies over about 68 seconds are counted
+ * as such.
+ * <br>
+ * <br>
+ * Recording is lock-free and does not allocate. Snapshots are taken either since the
+ * last reset or since the previous interval snapshot, without blocking recording.
+ * 
+ * @author John Daniel Regino
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final long MAX_NANOS = (1L << 36) - 1;
+  private static final int BUCKETS = indexOf(MAX_NANOS) + 1;
+
+  private final AtomicLongArray counts;
+  private long[] resetCounts;
+  private long[] intervalCounts;
+
+  LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.resetCounts = new long[BUCKETS];
+    this.intervalCounts = resetCounts;
+  }
+
+  /**
+   * Records a latency. Negative latencies are recorded as zero.
+   * 
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    counts.incrementAndGet(indexOf(Math.max(0, Math.min(nanos, MAX_NANOS))));
+  }
+
+  /**
+   * Takes a snapshot of the latencies recorded since the last reset.
+   * 
+   * @return the snapshot
+   */
+  public synchronized Snapshot snapshot() {
+    return new Snapshot(since(resetCounts, currentCounts()));
+  }
+
+  /**
+   * Takes a snapshot of the latencies recorded since the previous interval snapshot,
+   * or since the last reset if more recent.
+   * 
+   * @return the snapshot
+   */
+  public synchronized Snapshot intervalSnapshot() {
+    long[] current = currentCounts();
+    Snapshot snapshot = new Snapshot(since(intervalCounts, current));
+    intervalCounts = current;
+    return snapshot;
+  }
+
+  /**
+   * Discards the latencies recorded so far from the following snapshots.
+   */
+  public synchronized void reset() {
+    resetCounts = currentCounts();
+    intervalCounts = resetCounts;
+  }
+
+  private long[] currentCounts() {
+    long[] current = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++)
+      current[i] = counts.get(i);
+
+    return current;
+  }
+
+  private static long[] since(long[] previous, long[] current) {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++)
+      counts[i] = current[i] - previous[i];
+
+    return counts;
+  }
+
+  static int indexOf(long nanos) {
+    if (nanos < SUB_BUCKETS)
+      return (int) nanos;
+
+    int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+    return (shift << SUB_BUCKET_BITS) + (int) (nanos >>> shift);
+  }
+
+  static long lowestNanosAt(int index) {
+    if (index < SUB_BUCKETS)
+      return index;
+
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    return (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+  }
+
+  static long highestNanosAt(int index) {
+    return index + 1 < BUCKETS ? lowestNanosAt(index + 1) - 1 : MAX_NANOS;
+  }
+
+  /**
+   * An immutable view of the latencies recorded by a {@link LatencyHistogram} over
+   * some period.
+   * 
+   * @author John Daniel Regino
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+
+    private Snapshot(long[] counts) {
+      long count = 0;
+      for (long bucket : counts)
+        count += bucket;
+
+      this.counts = counts;
+      this.count = count;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     * 
+     * @return the number of latencies
+     */
+    public long count() {
+      return count;
+    }
+
+    /**
+     * Returns the latency under which the given percentage of recorded latencies fall,
+     * e.g. <code>99.9</code> for the 99.9th percentile.
+     * 
+     * @param percentile the percentile, between <code>0</code> and <code>100</code>
+     * @return the latency in nanoseconds, or <code>0</code> if nothing was recorded
+     * @throws IllegalArgumentException if the percentile is not between <code>0</code>
+     *                                  and <code>100</code>
+     */
+    public long valueAtPercentile(double percentile) {
+      if (!(percentile >= 0 && percentile <= 100))
+        throw new IllegalArgumentException("Percentile not between 0 and 100");
+      if (count == 0)
+        return 0;
+
+      long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target)
+          return highestNanosAt(i);
+      }
+
+      return MAX_NANOS;
+    }
+
+    /**
+     * Returns the highest recorded latency.
+     * 
+     * @return the latency in nanoseconds, or <code>0</code> if nothing was recorded
+     */
+    public long max() {
+      for (int i = counts.length - 1; i >= 0; i--)
+        if (counts[i] > 0)
+          return highestNanosAt(i);
+
+      return 0;
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     * 
+     * @return the mean in nanoseconds, or <code>0</code> if nothing was recorded
+     */
+    public double mean() {
+      if (count == 0)
+        return 0;
+
+      double total = 0;
+      for (int i = 0; i < counts.length; i++)
+        if (counts[i] > 0)
+          total += counts[i] * ((lowestNanosAt(i) + highestNanosAt(i)) / 2.0);
+
+      return total / count;
+    }
+  }
+}
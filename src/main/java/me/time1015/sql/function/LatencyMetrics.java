@@ -0,0 +1,126 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects latency histograms of the calls handled by {@link SqlEndpoint}s, per name
+ * of {@link ConnectionHandler}.
+ * <br>
+ * <br>
+ * For each name, the time taken to acquire the connection and the time taken by the
+ * handler are recorded into separate {@link LatencyHistogram}s. Handlers are named
+ * through {@link ConnectionHandler#named(String, ConnectionHandler)}, and unnamed
+ * handlers are not recorded. Phases that were not reached because of an earlier
+ * failure are not recorded either.
+ * <br>
+ * <br>
+ * Metrics are attached to an endpoint through its {@link SqlEndpointBuilder}, and may
+ * be shared between endpoints. E.g.:
+ * 
+ * <pre>
+ * LatencyMetrics metrics = new LatencyMetrics();
+ * SqlEndpoint endpoint = SqlEndpoint.builder(factory).latencyMetrics(metrics).build();
+ * 
+ * endpoint.connect(ConnectionHandler.named("orders.count", connection -&gt; countOrders(connection)));
+ * long p99 = metrics.handleLatency("orders.count").intervalSnapshot().valueAtPercentile(99);
+ * </pre>
+ * 
+ * @author John Daniel Regino
+ */
+public final class LatencyMetrics {
+  private final ConcurrentHashMap<String, Latencies> latencies;
+
+  /**
+   * Creates an empty instance of <code>LatencyMetrics</code>.
+   */
+  public LatencyMetrics() {
+    this.latencies = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the names of the handlers recorded so far.
+   * 
+   * @return the names of the recorded handlers
+   */
+  public Set<String> names() {
+    return Set.copyOf(latencies.keySet());
+  }
+
+  /**
+   * Returns the histogram of the connection acquisitions of the handlers with the
+   * given name.
+   * 
+   * @param name the name of the handlers
+   * @return the histogram, or <code>null</code> if no such handler was recorded
+   */
+  public LatencyHistogram acquireLatency(String name) {
+    Latencies recorded = latencies.get(name);
+    return recorded != null ? recorded.acquire : null;
+  }
+
+  /**
+   * Returns the histogram of the executions of the handlers with the given name.
+   * 
+   * @param name the name of the handlers
+   * @return the histogram, or <code>null</code> if no such handler was recorded
+   */
+  public LatencyHistogram handleLatency(String name) {
+    Latencies recorded = latencies.get(name);
+    return recorded != null ? recorded.handle : null;
+  }
+
+  /**
+   * Resets every histogram.
+   */
+  public void reset() {
+    for (Latencies recorded : latencies.values()) {
+      recorded.acquire.reset();
+      recorded.handle.reset();
+    }
+  }
+
+  void record(String name, long acquireNanos, long handleNanos) {
+    Latencies recorded = latencies.get(name);
+    if (recorded == null)
+      recorded = latencies.computeIfAbsent(name, n -> new Latencies());
+
+    if (acquireNanos >= 0)
+      recorded.acquire.record(acquireNanos);
+    if (handleNanos >= 0)
+      recorded.handle.record(handleNanos);
+  }
+
+  private static final class Latencies {
+    private final LatencyHistogram acquire;
+    private final LatencyHistogram handle;
+
+    private Latencies() {
+      this.acquire = new LatencyHistogram();
+      this.handle = new LatencyHistogram();
+    }
+  }
+}
@@ -72,4 +72,16 @@ public class NoConnectionProvidedException extends RuntimeException {
   public NoConnectionProvidedException(String message, Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Creates an instance of <code>NoConnectionProvidedException</code>
+   * with a given message and no cause, which only records its stack trace and
+   * suppressed exceptions if <code>writableStackTrace</code> is set.
+   * 
+   * @param message            the description of the exception
+   * @param writableStackTrace whether the stack trace should be writable
+   */
+  NoConnectionProvidedException(String message, boolean writableStackTrace) {
+    super(message, null, writableStackTrace, writableStackTrace);
+  }
 }
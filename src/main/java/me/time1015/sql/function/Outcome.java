@@ -0,0 +1,135 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * Represents the result of a call that either returned a value or failed with an
+ * exception, as returned by {@link SqlEndpoint#tryConnect(ConnectionHandler)}.
+ * <br>
+ * <br>
+ * Unlike the other ways to connect, no exception is thrown or handed to an
+ * {@link ExceptionHandler} for a failed call, which lets callers treat failures as
+ * ordinary values, e.g.:
+ * 
+ * <pre>
+ * Outcome&lt;Integer&gt; count = endpoint.tryConnect(connection -&gt; countOrders(connection));
+ * if (count.isFailure())
+ *   return fallbackCount(count.exception());
+ * 
+ * return count.value();
+ * </pre>
+ * 
+ * @param <T> the type of the value
+ * @author John Daniel Regino
+ */
+public final class Outcome<T> {
+  private final T value;
+  private final Exception exception;
+
+  private Outcome(T value, Exception exception) {
+    this.value = value;
+    this.exception = exception;
+  }
+
+  /**
+   * Creates a successful outcome of the given value.
+   * 
+   * @param <T>   the type of the value
+   * @param value the value, which may be <code>null</code>
+   * @return the successful outcome
+   */
+  public static <T> Outcome<T> success(T value) {
+    return new Outcome<>(value, null);
+  }
+
+  /**
+   * Creates a failed outcome of the given exception.
+   * 
+   * @param <T>       the type of the value
+   * @param exception the exception the call failed with
+   * @return the failed outcome
+   * @throws IllegalArgumentException if the given exception is <code>null</code>
+   */
+  public static <T> Outcome<T> failure(Exception exception) {
+    if (exception == null)
+      throw new IllegalArgumentException("Null exception");
+
+    return new Outcome<>(null, exception);
+  }
+
+  /**
+   * Tells whether the call returned a value.
+   * 
+   * @return <code>true</code> if the call returned a value
+   */
+  public boolean isSuccess() {
+    return exception == null;
+  }
+
+  /**
+   * Tells whether the call failed with an exception.
+   * 
+   * @return <code>true</code> if the call failed
+   */
+  public boolean isFailure() {
+    return exception != null;
+  }
+
+  /**
+   * Returns the value returned by the call.
+   * 
+   * @return the value, which may be <code>null</code>
+   * @throws IllegalStateException if the call failed
+   */
+  public T value() {
+    if (exception != null)
+      throw new IllegalStateException("Failed outcome has no value", exception);
+
+    return value;
+  }
+
+  /**
+   * Returns the value returned by the call, or the given one if the call failed.
+   * 
+   * @param other the value to return if the call failed
+   * @return the value of the call, or <code>other</code>
+   */
+  public T orElse(T other) {
+    return exception == null ? value : other;
+  }
+
+  /**
+   * Returns the exception the call failed with.
+   * 
+   * @return the exception, or <code>null</code> if the call returned a value
+   */
+  public Exception exception() {
+    return exception;
+  }
+
+  @Override
+  public String toString() {
+    return exception == null ? "Outcome.success(" + value + ")" : "Outcome.failure(" + exception + ")";
+  }
+}
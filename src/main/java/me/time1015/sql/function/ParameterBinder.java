@@ -0,0 +1,51 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.PreparedStatement;
+
+/**
+ * Represents a binder of parameters to a {@link PreparedStatement}.
+ * 
+ * @author John Daniel Regino
+ */
+@FunctionalInterface
+public interface ParameterBinder {
+  /**
+   * Binds the parameters of the given statement.
+   * 
+   * @param statement the statement to bind parameters to
+   * @throws Exception if an error occured while binding the parameters
+   */
+  void bind(PreparedStatement statement) throws Exception;
+
+  /**
+   * Returns a binder that binds no parameters.
+   * 
+   * @return the parameter binder
+   */
+  static ParameterBinder none() {
+    return statement -> {};
+  }
+}
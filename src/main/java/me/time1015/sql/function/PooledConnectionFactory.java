@@ -0,0 +1,495 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import me.time1015.sql.function.connection.DelegatingConnection;
+import me.time1015.sql.function.connection.StatementCache;
+
+/**
+ * A {@link ConnectionFactory} that pools the connections created by another factory.
+ * <br>
+ * <br>
+ * Connections returned by this factory are logical connections: closing one
+ * returns its underlying physical connection to the pool instead of closing it.
+ * This way, a {@link SqlEndpoint} wrapping this factory reuses physical connections
+ * across calls to its <code>connect</code> method.
+ * <br>
+ * <br>
+ * Idle connections are kept in a lock-free stack, and the number of connections
+ * handed out is bounded by a non-fair semaphore, so acquiring and releasing
+ * connections never serializes on a single monitor. When all connections are in
+ * use, callers wait up to the configured acquire timeout before failing with a
+ * {@link SQLTransientConnectionException}.
+ * <br>
+ * <br>
+ * When a logical connection is closed, the statements it opened are closed, any
+ * transaction it left open is rolled back, and the auto-commit, read-only,
+ * isolation and catalog settings of its physical connection are restored to the
+ * values the connection had when it was created. A connection that cannot be reset
+ * is closed and dropped from the pool instead.
+ * <br>
+ * <br>
+ * Optionally, each physical connection may keep a cache of its prepared statements,
+ * keyed by their SQL text. Statements prepared through
+ * {@link Connection#prepareStatement(String)} are then returned to the cache when
+ * closed, and reused by later calls preparing the same SQL on the same physical
+ * connection, including calls made through other logical connections. Cached
+ * statements left open are returned when their logical connection is closed, and
+ * their query timeout, fetch size, maximum rows and fetch direction are restored
+ * before they are reused.
+ * <br>
+ * <br>
+ * Instances are created through a {@link PooledConnectionFactoryBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class PooledConnectionFactory implements ConnectionFactory, AutoCloseable {
+  private final ConnectionFactory factory;
+  private final int minSize;
+  private final int maxSize;
+  private final long acquireTimeoutNanos;
+  private final long idleTimeoutNanos;
+  private final int statementCacheSize;
+
+  private final Semaphore permits;
+  private final ConcurrentLinkedDeque<PooledEntry> idle;
+  private final AtomicInteger size;
+  private final AtomicBoolean closed;
+  private final ScheduledExecutorService evictor;
+
+  PooledConnectionFactory(
+    ConnectionFactory factory,
+    int minSize,
+    int maxSize,
+    Duration acquireTimeout,
+    Duration idleTimeout,
+    int statementCacheSize
+  ) {
+    this.factory = factory;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.statementCacheSize = statementCacheSize;
+
+    this.permits = new Semaphore(maxSize);
+    this.idle = new ConcurrentLinkedDeque<>();
+    this.size = new AtomicInteger();
+    this.closed = new AtomicBoolean();
+    this.evictor = idleTimeoutNanos > 0 ? startEvictor() : null;
+  }
+
+  /**
+   * Returns a builder of a pool wrapping the given {@link ConnectionFactory}.
+   * 
+   * @param factory the factory creating the physical connections
+   * @return the pool builder
+   */
+  public static PooledConnectionFactoryBuilder builder(ConnectionFactory factory) {
+    return new PooledConnectionFactoryBuilder(factory);
+  }
+
+  /**
+   * Acquires a connection from the pool.
+   * <br>
+   * <br>
+   * An idle connection is reused if one is available. Otherwise, a new connection
+   * is created if the pool has not reached its maximum size yet, or the caller waits
+   * for another connection to be released.
+   * 
+   * @return a logical connection that returns to the pool when closed
+   * @throws SQLTransientConnectionException    if no connection was released within
+   *                                            the acquire timeout
+   * @throws SQLNonTransientConnectionException if the pool is closed
+   * @throws Exception                          if the wrapped factory failed to
+   *                                            create a connection
+   */
+  @Override
+  public Connection newConnection() throws Exception {
+    long deadline = System.nanoTime() + acquireTimeoutNanos;
+    if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS))
+      throw new SQLTransientConnectionException("Timed out waiting for a pooled connection");
+
+    try {
+      if (closed.get())
+        throw new SQLNonTransientConnectionException("Pool closed");
+
+      return new LogicalConnection(this, takeEntry(deadline));
+    } catch (Throwable t) {
+      permits.release();
+      throw t;
+    }
+  }
+
+  /**
+   * Returns the number of physical connections currently opened by the pool.
+   * 
+   * @return the number of physical connections
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Returns the number of connections currently handed out by the pool.
+   * 
+   * @return the number of connections in use
+   */
+  public int activeCount() {
+    return maxSize - permits.availablePermits();
+  }
+
+  /**
+   * Closes the connections that have been idle for longer than the idle timeout,
+   * while keeping at least the minimum size of the pool opened.
+   * <br>
+   * <br>
+   * This is called periodically by the pool itself, unless idle eviction is disabled.
+   */
+  public void evictIdle() {
+    if (idleTimeoutNanos <= 0)
+      return;
+
+    long now = System.nanoTime();
+    Iterator<PooledEntry> oldestFirst = idle.descendingIterator();
+    while (oldestFirst.hasNext() && size.get() > minSize) {
+      PooledEntry entry = oldestFirst.next();
+      if (now - entry.releasedAt < idleTimeoutNanos)
+        break;
+
+      if (idle.removeLastOccurrence(entry))
+        discard(entry);
+    }
+  }
+
+  /**
+   * Closes the pool along with all of its idle connections.
+   * <br>
+   * <br>
+   * Connections still in use are closed once they are released.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true))
+      return;
+
+    if (evictor != null)
+      evictor.shutdownNow();
+
+    PooledEntry entry;
+    while ((entry = idle.pollFirst()) != null)
+      discard(entry);
+  }
+
+  private PooledEntry takeEntry(long deadline) throws Exception {
+    while (true) {
+      PooledEntry entry = idle.pollFirst();
+      if (entry != null) {
+        if (isOpen(entry))
+          return entry;
+
+        discard(entry);
+        continue;
+      }
+
+      int current = size.get();
+      if (current < maxSize && size.compareAndSet(current, current + 1))
+        return openEntry();
+
+      if (System.nanoTime() - deadline >= 0)
+        throw new SQLTransientConnectionException("Timed out waiting for a pooled connection");
+
+      Thread.onSpinWait();
+    }
+  }
+
+  private PooledEntry openEntry() throws Exception {
+    try {
+      Connection connection = factory.newConnection();
+      if (connection == null)
+        throw new NoConnectionProvidedException();
+
+      try {
+        return new PooledEntry(connection, statementCacheSize);
+      } catch (Throwable t) {
+        closeQuietly(connection);
+        throw t;
+      }
+    } catch (Throwable t) {
+      size.decrementAndGet();
+      throw t;
+    }
+  }
+
+  private void release(PooledEntry entry) {
+    try {
+      if (closed.get() || entry.connection.isClosed()) {
+        discard(entry);
+        return;
+      }
+
+      entry.reset();
+      entry.releasedAt = System.nanoTime();
+      idle.offerFirst(entry);
+
+      if (closed.get() && idle.removeFirstOccurrence(entry))
+        discard(entry);
+    } catch (SQLException e) {
+      discard(entry);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void abandon(PooledEntry entry) {
+    try {
+      discard(entry);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void discard(PooledEntry entry) {
+    size.decrementAndGet();
+    closeQuietly(entry.connection);
+  }
+
+  private static boolean isOpen(PooledEntry entry) {
+    try {
+      return !entry.connection.isClosed();
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // the resource is dropped either way
+    }
+  }
+
+  private ScheduledExecutorService startEvictor() {
+    ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "sql-endpoint-pool-evictor");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    long period = Math.max(idleTimeoutNanos / 2, 1);
+    evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+    return evictor;
+  }
+
+  private static final class PooledEntry {
+    private final Connection connection;
+    private final StatementCache statements;
+    private final boolean autoCommit;
+    private final boolean readOnly;
+    private final int isolation;
+    private final String catalog;
+    private long releasedAt;
+
+    private PooledEntry(Connection connection, int statementCacheSize) throws SQLException {
+      this.connection = connection;
+      this.statements = statementCacheSize > 0 ? new StatementCache(connection, statementCacheSize) : null;
+      this.autoCommit = connection.getAutoCommit();
+      this.readOnly = connection.isReadOnly();
+      this.isolation = connection.getTransactionIsolation();
+      this.catalog = connection.getCatalog();
+    }
+
+    private void reset() throws SQLException {
+      boolean currentAutoCommit = connection.getAutoCommit();
+      if (!currentAutoCommit)
+        connection.rollback();
+      if (currentAutoCommit != autoCommit)
+        connection.setAutoCommit(autoCommit);
+      if (connection.isReadOnly() != readOnly)
+        connection.setReadOnly(readOnly);
+      if (connection.getTransactionIsolation() != isolation)
+        connection.setTransactionIsolation(isolation);
+      if (catalog != null && !catalog.equals(connection.getCatalog()))
+        connection.setCatalog(catalog);
+    }
+  }
+
+  private static final class LogicalConnection extends DelegatingConnection {
+    private static final AtomicIntegerFieldUpdater<LogicalConnection> RELEASED =
+      AtomicIntegerFieldUpdater.newUpdater(LogicalConnection.class, "released");
+
+    private final PooledConnectionFactory pool;
+    private final PooledEntry entry;
+    private final Queue<Statement> statements;
+    private volatile int released;
+
+    private LogicalConnection(PooledConnectionFactory pool, PooledEntry entry) {
+      this.pool = pool;
+      this.entry = entry;
+      this.statements = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    protected Connection delegate() throws SQLException {
+      if (released != 0)
+        throw new SQLNonTransientConnectionException("Connection closed");
+
+      return entry.connection;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+      return track(delegate().createStatement());
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+      if (entry.statements == null)
+        return track(delegate().prepareStatement(sql));
+
+      delegate();
+      return track(entry.statements.prepare(sql, this));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+      return track(delegate().prepareCall(sql));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+      return track(delegate().createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+      throws SQLException {
+      return track(delegate().prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+      return track(delegate().prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+      throws SQLException {
+      return track(delegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(
+      String sql,
+      int resultSetType,
+      int resultSetConcurrency,
+      int resultSetHoldability
+    ) throws SQLException {
+      return track(delegate().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public CallableStatement prepareCall(
+      String sql,
+      int resultSetType,
+      int resultSetConcurrency,
+      int resultSetHoldability
+    ) throws SQLException {
+      return track(delegate().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+      return track(delegate().prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+      return track(delegate().prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+      return track(delegate().prepareStatement(sql, columnNames));
+    }
+
+    @Override
+    public void close() {
+      if (!RELEASED.compareAndSet(this, 0, 1))
+        return;
+
+      Statement statement;
+      while ((statement = statements.poll()) != null)
+        closeQuietly(statement);
+
+      pool.release(entry);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+      return released != 0 || entry.connection.isClosed();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+      if (!RELEASED.compareAndSet(this, 0, 1))
+        return;
+
+      try {
+        entry.connection.abort(executor);
+      } finally {
+        pool.abandon(entry);
+      }
+    }
+
+    private <S extends Statement> S track(S statement) {
+      if (statement != null)
+        statements.add(statement);
+
+      return statement;
+    }
+  }
+}
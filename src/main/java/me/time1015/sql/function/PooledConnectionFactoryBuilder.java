@@ -0,0 +1,155 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+
+/**
+ * A Builder of {@link PooledConnectionFactory} instances.
+ * <br>
+ * <br>
+ * By default, the built pool holds at most 10 connections, waits up to 30 seconds
+ * for a connection to be released, and closes connections that have been idle for
+ * 10 minutes. Statement caching is disabled unless a cache size is set.
+ * 
+ * @author John Daniel Regino
+ */
+public final class PooledConnectionFactoryBuilder {
+  private final ConnectionFactory factory;
+  private int minSize;
+  private int maxSize;
+  private Duration acquireTimeout;
+  private Duration idleTimeout;
+  private int statementCacheSize;
+
+  PooledConnectionFactoryBuilder(ConnectionFactory factory) {
+    if (factory == null)
+      throw new IllegalArgumentException("Null factory");
+
+    this.factory = factory;
+    this.minSize = 0;
+    this.maxSize = 10;
+    this.acquireTimeout = Duration.ofSeconds(30);
+    this.idleTimeout = Duration.ofMinutes(10);
+    this.statementCacheSize = 0;
+  }
+
+  /**
+   * Sets the number of connections that idle eviction will keep opened.
+   * 
+   * @param minSize the minimum size of the pool
+   * @return itself
+   */
+  public PooledConnectionFactoryBuilder minSize(int minSize) {
+    if (minSize < 0)
+      throw new IllegalArgumentException("Negative minimum size");
+
+    this.minSize = minSize;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of connections the pool may open at once.
+   * 
+   * @param maxSize the maximum size of the pool
+   * @return itself
+   */
+  public PooledConnectionFactoryBuilder maxSize(int maxSize) {
+    if (maxSize < 1)
+      throw new IllegalArgumentException("Non-positive maximum size");
+
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  /**
+   * Sets how long a caller waits for a connection when all of them are in use.
+   * <br>
+   * <br>
+   * A zero timeout makes the caller fail immediately.
+   * 
+   * @param acquireTimeout the acquire timeout
+   * @return itself
+   */
+  public PooledConnectionFactoryBuilder acquireTimeout(Duration acquireTimeout) {
+    if (acquireTimeout == null)
+      throw new IllegalArgumentException("Null acquire timeout");
+    if (acquireTimeout.isNegative())
+      throw new IllegalArgumentException("Negative acquire timeout");
+
+    this.acquireTimeout = acquireTimeout;
+    return this;
+  }
+
+  /**
+   * Sets how long a connection may stay idle before it gets closed.
+   * <br>
+   * <br>
+   * A zero timeout disables idle eviction.
+   * 
+   * @param idleTimeout the idle timeout
+   * @return itself
+   */
+  public PooledConnectionFactoryBuilder idleTimeout(Duration idleTimeout) {
+    if (idleTimeout == null)
+      throw new IllegalArgumentException("Null idle timeout");
+    if (idleTimeout.isNegative())
+      throw new IllegalArgumentException("Negative idle timeout");
+
+    this.idleTimeout = idleTimeout;
+    return this;
+  }
+
+  /**
+   * Sets how many prepared statements each physical connection keeps cached.
+   * <br>
+   * <br>
+   * Statements prepared through <code>prepareStatement(String)</code> are cached by
+   * their SQL text, and the least recently used ones are closed once the cache is
+   * full. A zero size disables statement caching.
+   * 
+   * @param statementCacheSize the number of cached statements per connection
+   * @return itself
+   */
+  public PooledConnectionFactoryBuilder statementCacheSize(int statementCacheSize) {
+    if (statementCacheSize < 0)
+      throw new IllegalArgumentException("Negative statement cache size");
+
+    this.statementCacheSize = statementCacheSize;
+    return this;
+  }
+
+  /**
+   * Build the resulting pool.
+   * 
+   * @return the resulting pool
+   * @throws IllegalStateException if the minimum size exceeds the maximum size
+   */
+  public PooledConnectionFactory build() {
+    if (minSize > maxSize)
+      throw new IllegalStateException("Minimum size exceeds maximum size");
+
+    return new PooledConnectionFactory(factory, minSize, maxSize, acquireTimeout, idleTimeout, statementCacheSize);
+  }
+}
@@ -0,0 +1,377 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Represents a column of a {@link ColumnarResult}.
+ * <br>
+ * <br>
+ * Values are stored in chunks of 1024 rows, so the column grows without copying the
+ * values already read. Numeric columns keep their values in primitive arrays, and track
+ * <code>NULL</code>s in a bitmap that is only allocated for chunks that contain any.
+ * <br>
+ * <br>
+ * Each chunk can be viewed as a read-only buffer sharing the column's storage, which
+ * allows aggregating a column without copying or boxing its values.
+ * 
+ * @author John Daniel Regino
+ */
+public abstract class ResultColumn {
+  static final int CHUNK_SHIFT = 10;
+  static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final int INITIAL_CHUNKS = 4;
+
+  private final String name;
+  private long[][] nulls;
+  int size;
+
+  ResultColumn(String name) {
+    this.name = name;
+    this.nulls = new long[0][];
+  }
+
+  /**
+   * Returns the label of this column.
+   * 
+   * @return the column label
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Returns the number of values in this column.
+   * 
+   * @return the number of values
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the value of the given row is SQL <code>NULL</code>.
+   * 
+   * @param row the index of the row, starting from 0
+   * @return <code>true</code> if the value is <code>NULL</code>
+   */
+  public boolean isNull(int row) {
+    checkRow(row);
+
+    int chunk = row >>> CHUNK_SHIFT;
+    if (chunk >= nulls.length || nulls[chunk] == null)
+      return false;
+
+    int offset = row & CHUNK_MASK;
+    return (nulls[chunk][offset >>> 6] & (1L << offset)) != 0;
+  }
+
+  /**
+   * Returns the number of chunks holding the values of this column.
+   * 
+   * @return the number of chunks
+   */
+  public int chunkCount() {
+    return (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+  }
+
+  abstract void read(ResultSet resultSet, int column) throws SQLException;
+
+  final int chunkLength(int chunk) {
+    if (chunk < 0 || chunk >= chunkCount())
+      throw new IndexOutOfBoundsException("Chunk " + chunk + " out of " + chunkCount());
+
+    return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_SHIFT));
+  }
+
+  final void checkRow(int row) {
+    if (row < 0 || row >= size)
+      throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+  }
+
+  final void markNull(int row) {
+    int chunk = row >>> CHUNK_SHIFT;
+    if (chunk >= nulls.length)
+      nulls = Arrays.copyOf(nulls, Math.max(chunk + 1, nulls.length * 2));
+    if (nulls[chunk] == null)
+      nulls[chunk] = new long[CHUNK_SIZE >>> 6];
+
+    int offset = row & CHUNK_MASK;
+    nulls[chunk][offset >>> 6] |= 1L << offset;
+  }
+
+  static <A> A[] withChunk(A[] chunks, int chunk, A values) {
+    if (chunk == chunks.length)
+      chunks = Arrays.copyOf(chunks, Math.max(INITIAL_CHUNKS, chunks.length * 2));
+
+    chunks[chunk] = values;
+    return chunks;
+  }
+
+  /**
+   * Represents a column of <code>int</code> values.
+   * 
+   * @author John Daniel Regino
+   */
+  public static final class OfInt extends ResultColumn {
+    private int[][] chunks;
+
+    OfInt(String name) {
+      super(name);
+      this.chunks = new int[0][];
+    }
+
+    /**
+     * Returns the value of the given row, or 0 if it is <code>NULL</code>.
+     * 
+     * @param row the index of the row, starting from 0
+     * @return the value
+     */
+    public int get(int row) {
+      checkRow(row);
+      return chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    /**
+     * Returns a read-only view of the values of the given chunk.
+     * 
+     * @param chunk the index of the chunk, starting from 0
+     * @return the view of the chunk
+     */
+    public IntBuffer chunk(int chunk) {
+      return IntBuffer.wrap(chunks[chunk], 0, chunkLength(chunk)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the values of this column.
+     * 
+     * @return the values
+     */
+    public int[] toArray() {
+      int[] values = new int[size];
+      for (int chunk = 0; chunk < chunkCount(); chunk++)
+        System.arraycopy(chunks[chunk], 0, values, chunk << CHUNK_SHIFT, chunkLength(chunk));
+
+      return values;
+    }
+
+    @Override
+    void read(ResultSet resultSet, int column) throws SQLException {
+      int value = resultSet.getInt(column);
+      if (resultSet.wasNull())
+        markNull(size);
+
+      if ((size & CHUNK_MASK) == 0)
+        chunks = withChunk(chunks, size >>> CHUNK_SHIFT, new int[CHUNK_SIZE]);
+
+      chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = value;
+      size++;
+    }
+  }
+
+  /**
+   * Represents a column of <code>long</code> values.
+   * 
+   * @author John Daniel Regino
+   */
+  public static final class OfLong extends ResultColumn {
+    private long[][] chunks;
+
+    OfLong(String name) {
+      super(name);
+      this.chunks = new long[0][];
+    }
+
+    /**
+     * Returns the value of the given row, or 0 if it is <code>NULL</code>.
+     * 
+     * @param row the index of the row, starting from 0
+     * @return the value
+     */
+    public long get(int row) {
+      checkRow(row);
+      return chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    /**
+     * Returns a read-only view of the values of the given chunk.
+     * 
+     * @param chunk the index of the chunk, starting from 0
+     * @return the view of the chunk
+     */
+    public LongBuffer chunk(int chunk) {
+      return LongBuffer.wrap(chunks[chunk], 0, chunkLength(chunk)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the values of this column.
+     * 
+     * @return the values
+     */
+    public long[] toArray() {
+      long[] values = new long[size];
+      for (int chunk = 0; chunk < chunkCount(); chunk++)
+        System.arraycopy(chunks[chunk], 0, values, chunk << CHUNK_SHIFT, chunkLength(chunk));
+
+      return values;
+    }
+
+    @Override
+    void read(ResultSet resultSet, int column) throws SQLException {
+      long value = resultSet.getLong(column);
+      if (resultSet.wasNull())
+        markNull(size);
+
+      if ((size & CHUNK_MASK) == 0)
+        chunks = withChunk(chunks, size >>> CHUNK_SHIFT, new long[CHUNK_SIZE]);
+
+      chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = value;
+      size++;
+    }
+  }
+
+  /**
+   * Represents a column of <code>double</code> values.
+   * 
+   * @author John Daniel Regino
+   */
+  public static final class OfDouble extends ResultColumn {
+    private double[][] chunks;
+
+    OfDouble(String name) {
+      super(name);
+      this.chunks = new double[0][];
+    }
+
+    /**
+     * Returns the value of the given row, or 0 if it is <code>NULL</code>.
+     * 
+     * @param row the index of the row, starting from 0
+     * @return the value
+     */
+    public double get(int row) {
+      checkRow(row);
+      return chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    /**
+     * Returns a read-only view of the values of the given chunk.
+     * 
+     * @param chunk the index of the chunk, starting from 0
+     * @return the view of the chunk
+     */
+    public DoubleBuffer chunk(int chunk) {
+      return DoubleBuffer.wrap(chunks[chunk], 0, chunkLength(chunk)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the values of this column.
+     * 
+     * @return the values
+     */
+    public double[] toArray() {
+      double[] values = new double[size];
+      for (int chunk = 0; chunk < chunkCount(); chunk++)
+        System.arraycopy(chunks[chunk], 0, values, chunk << CHUNK_SHIFT, chunkLength(chunk));
+
+      return values;
+    }
+
+    @Override
+    void read(ResultSet resultSet, int column) throws SQLException {
+      double value = resultSet.getDouble(column);
+      if (resultSet.wasNull())
+        markNull(size);
+
+      if ((size & CHUNK_MASK) == 0)
+        chunks = withChunk(chunks, size >>> CHUNK_SHIFT, new double[CHUNK_SIZE]);
+
+      chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = value;
+      size++;
+    }
+  }
+
+  /**
+   * Represents a column of object values, for the column types without a primitive
+   * representation.
+   * 
+   * @author John Daniel Regino
+   */
+  public static final class OfObject extends ResultColumn {
+    private Object[][] chunks;
+
+    OfObject(String name) {
+      super(name);
+      this.chunks = new Object[0][];
+    }
+
+    /**
+     * Returns the value of the given row, or <code>null</code> if it is <code>NULL</code>.
+     * 
+     * @param row the index of the row, starting from 0
+     * @return the value
+     */
+    public Object get(int row) {
+      checkRow(row);
+      return chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the value of the given row cast to the given type, or <code>null</code>
+     * if it is <code>NULL</code>.
+     * 
+     * @param <T>  the type of the value
+     * @param row  the index of the row, starting from 0
+     * @param type the class of the value
+     * @return the value
+     */
+    public <T> T get(int row, Class<T> type) {
+      return type.cast(get(row));
+    }
+
+    @Override
+    public boolean isNull(int row) {
+      return get(row) == null;
+    }
+
+    @Override
+    void read(ResultSet resultSet, int column) throws SQLException {
+      Object value = resultSet.getObject(column);
+
+      if ((size & CHUNK_MASK) == 0)
+        chunks = withChunk(chunks, size >>> CHUNK_SHIFT, new Object[CHUNK_SIZE]);
+
+      chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = value;
+      size++;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+final class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+  private final Connection connection;
+  private final Statement statement;
+  private final ResultSet resultSet;
+  private final RowMapper<T> mapper;
+  private final ExceptionHandler onException;
+  private final Release onRelease;
+  private boolean closed;
+
+  ResultSetSpliterator(
+    Connection connection,
+    Statement statement,
+    ResultSet resultSet,
+    RowMapper<T> mapper,
+    ExceptionHandler onException,
+    Release onRelease
+  ) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED);
+    this.connection = connection;
+    this.statement = statement;
+    this.resultSet = resultSet;
+    this.mapper = mapper;
+    this.onException = onException;
+    this.onRelease = onRelease;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if (closed)
+      return false;
+
+    T row;
+    try {
+      if (!resultSet.next()) {
+        close();
+        return false;
+      }
+
+      row = mapper.map(resultSet);
+    } catch (Exception e) {
+      release(e);
+      onException.accept(e);
+      return false;
+    }
+
+    action.accept(row);
+    return true;
+  }
+
+  @Override
+  public void close() {
+    if (closed)
+      return;
+
+    Exception failure = release(null);
+    if (failure != null)
+      onException.accept(failure);
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  private Exception release(Exception failure) {
+    closed = true;
+    long closeStart = System.nanoTime();
+
+    Exception closeFailure = null;
+    for (AutoCloseable resource : new AutoCloseable[] { resultSet, statement, connection }) {
+      try {
+        resource.close();
+      } catch (Exception e) {
+        if (closeFailure == null)
+          closeFailure = e;
+        else
+          closeFailure.addSuppressed(e);
+      }
+    }
+
+    if (failure != null && closeFailure != null)
+      failure.addSuppressed(closeFailure);
+
+    Exception outcome = failure != null ? failure : closeFailure;
+    onRelease.released(closeStart, System.nanoTime(), outcome);
+    return outcome;
+  }
+
+  @FunctionalInterface
+  static interface Release {
+    void released(long closeStart, long closeEnd, Exception failure);
+  }
+}
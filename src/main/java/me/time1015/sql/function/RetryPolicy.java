@@ -0,0 +1,141 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents how a {@link SqlEndpoint} retries calls that failed transiently.
+ * <br>
+ * <br>
+ * A call is retried when it throws a {@link SQLTransientException}, a
+ * {@link SQLRecoverableException}, or a {@link SQLException} whose SQLState starts
+ * with one of the configured prefixes, either directly or as the cause of the thrown
+ * exception. Each attempt acquires a fresh connection from the factory.
+ * <br>
+ * <br>
+ * Retries are delayed by an exponential backoff with random jitter, and stop once the
+ * maximum number of attempts is reached or the next attempt would start after the
+ * deadline. Only the exception of the last attempt reaches the {@link ExceptionHandler}.
+ * <br>
+ * <br>
+ * Instances are created through a {@link RetryPolicyBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class RetryPolicy {
+  private static final int MAX_CAUSE_DEPTH = 32;
+
+  private final int maxAttempts;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+  private final double multiplier;
+  private final double jitter;
+  private final long deadlineNanos;
+  private final List<String> sqlStatePrefixes;
+
+  RetryPolicy(
+    int maxAttempts,
+    long initialBackoffNanos,
+    long maxBackoffNanos,
+    double multiplier,
+    double jitter,
+    long deadlineNanos,
+    List<String> sqlStatePrefixes
+  ) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffNanos = initialBackoffNanos;
+    this.maxBackoffNanos = maxBackoffNanos;
+    this.multiplier = multiplier;
+    this.jitter = jitter;
+    this.deadlineNanos = deadlineNanos;
+    this.sqlStatePrefixes = List.copyOf(sqlStatePrefixes);
+  }
+
+  /**
+   * Returns an instance of <code>RetryPolicyBuilder</code>.
+   * 
+   * @return the retry policy builder
+   */
+  public static RetryPolicyBuilder builder() {
+    return new RetryPolicyBuilder();
+  }
+
+  /**
+   * Returns whether the given exception is considered transient by this policy.
+   * 
+   * @param exception the exception thrown by an attempt
+   * @return <code>true</code> if the attempt may be retried
+   */
+  public boolean isRetryable(Exception exception) {
+    Throwable link = exception;
+    for (int depth = 0; link != null && depth < MAX_CAUSE_DEPTH; link = link.getCause(), depth++) {
+      if (link instanceof SQLTransientException || link instanceof SQLRecoverableException)
+        return true;
+      if (link instanceof SQLException && hasRetryableSqlState((SQLException) link))
+        return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns how long to wait before the next attempt, or <code>-1</code> if the call
+   * should not be retried.
+   * 
+   * @param exception    the exception thrown by the last attempt
+   * @param attempt      the number of the last attempt, starting from 1
+   * @param elapsedNanos the time elapsed since the first attempt started
+   * @return the backoff in nanoseconds, or <code>-1</code>
+   */
+  long backoffNanos(Exception exception, int attempt, long elapsedNanos) {
+    if (attempt >= maxAttempts || !isRetryable(exception))
+      return -1;
+
+    double exponential = initialBackoffNanos * Math.pow(multiplier, attempt - 1);
+    double capped = Math.min(exponential, maxBackoffNanos);
+    long backoff = (long) (capped * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+
+    if (deadlineNanos > 0 && elapsedNanos + backoff >= deadlineNanos)
+      return -1;
+
+    return backoff;
+  }
+
+  private boolean hasRetryableSqlState(SQLException exception) {
+    String sqlState = exception.getSQLState();
+    if (sqlState == null)
+      return false;
+
+    for (String prefix : sqlStatePrefixes)
+      if (sqlState.startsWith(prefix))
+        return true;
+
+    return false;
+  }
+}
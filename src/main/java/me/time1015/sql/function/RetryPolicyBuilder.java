@@ -0,0 +1,186 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Builder of {@link RetryPolicy} instances.
+ * <br>
+ * <br>
+ * By default, the built policy makes at most 3 attempts, starts with a 50 millisecond
+ * backoff doubled on each retry up to 2 seconds, applies up to 50% of jitter, has no
+ * deadline, and retries serialization failures (SQLState <code>40001</code>) and
+ * PostgreSQL deadlocks (SQLState <code>40P01</code>).
+ * 
+ * @author John Daniel Regino
+ */
+public final class RetryPolicyBuilder {
+  private int maxAttempts;
+  private Duration initialBackoff;
+  private Duration maxBackoff;
+  private double multiplier;
+  private double jitter;
+  private Duration deadline;
+  private final List<String> sqlStatePrefixes;
+
+  RetryPolicyBuilder() {
+    this.maxAttempts = 3;
+    this.initialBackoff = Duration.ofMillis(50);
+    this.maxBackoff = Duration.ofSeconds(2);
+    this.multiplier = 2;
+    this.jitter = 0.5;
+    this.deadline = Duration.ZERO;
+    this.sqlStatePrefixes = new ArrayList<>(List.of("40001", "40P01"));
+  }
+
+  /**
+   * Sets the maximum number of attempts, including the first one.
+   * 
+   * @param maxAttempts the maximum number of attempts
+   * @return itself
+   */
+  public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+    if (maxAttempts < 1)
+      throw new IllegalArgumentException("Non-positive maximum attempts");
+
+    this.maxAttempts = maxAttempts;
+    return this;
+  }
+
+  /**
+   * Sets the backoff before the first retry, and the growth of the backoff on each
+   * further retry.
+   * 
+   * @param initialBackoff the backoff before the first retry
+   * @param maxBackoff     the maximum backoff before a retry
+   * @param multiplier     the factor applied to the backoff on each retry
+   * @return itself
+   */
+  public RetryPolicyBuilder backoff(Duration initialBackoff, Duration maxBackoff, double multiplier) {
+    if (initialBackoff == null)
+      throw new IllegalArgumentException("Null initial backoff");
+    if (maxBackoff == null)
+      throw new IllegalArgumentException("Null maximum backoff");
+    if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0)
+      throw new IllegalArgumentException("Invalid backoff range");
+    if (!(multiplier >= 1))
+      throw new IllegalArgumentException("Multiplier less than 1");
+
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.multiplier = multiplier;
+    return this;
+  }
+
+  /**
+   * Sets the maximum fraction of each backoff that is randomly removed from it.
+   * <br>
+   * <br>
+   * A zero jitter makes backoffs deterministic, while a jitter of 1 spreads them
+   * uniformly between zero and their full length.
+   * 
+   * @param jitter the jitter, between 0 and 1
+   * @return itself
+   */
+  public RetryPolicyBuilder jitter(double jitter) {
+    if (!(jitter >= 0 && jitter <= 1))
+      throw new IllegalArgumentException("Jitter out of range");
+
+    this.jitter = jitter;
+    return this;
+  }
+
+  /**
+   * Sets the time after the first attempt past which no retry starts.
+   * <br>
+   * <br>
+   * A zero deadline leaves retries bounded only by the maximum number of attempts.
+   * 
+   * @param deadline the overall deadline
+   * @return itself
+   */
+  public RetryPolicyBuilder deadline(Duration deadline) {
+    if (deadline == null)
+      throw new IllegalArgumentException("Null deadline");
+    if (deadline.isNegative())
+      throw new IllegalArgumentException("Negative deadline");
+
+    this.deadline = deadline;
+    return this;
+  }
+
+  /**
+   * Registers SQLState prefixes to retry, in addition to the ones already registered.
+   * <br>
+   * <br>
+   * E.g.: The prefix <code>"40"</code> retries every exception of the transaction
+   * rollback class.
+   * 
+   * @param prefixes the SQLState prefixes to retry
+   * @return itself
+   */
+  public RetryPolicyBuilder retrySqlStates(String... prefixes) {
+    if (prefixes == null)
+      throw new IllegalArgumentException("Null prefixes");
+
+    for (String prefix : prefixes) {
+      if (prefix == null || prefix.isEmpty())
+        throw new IllegalArgumentException("Null or empty prefix");
+
+      sqlStatePrefixes.add(prefix);
+    }
+
+    return this;
+  }
+
+  /**
+   * Removes all the registered SQLState prefixes, including the default ones.
+   * 
+   * @return itself
+   */
+  public RetryPolicyBuilder clearSqlStates() {
+    sqlStatePrefixes.clear();
+    return this;
+  }
+
+  /**
+   * Build the resulting retry policy.
+   * 
+   * @return the resulting retry policy
+   */
+  public RetryPolicy build() {
+    return new RetryPolicy(
+      maxAttempts,
+      initialBackoff.toNanos(),
+      maxBackoff.toNanos(),
+      multiplier,
+      jitter,
+      deadline.toNanos(),
+      sqlStatePrefixes
+    );
+  }
+}
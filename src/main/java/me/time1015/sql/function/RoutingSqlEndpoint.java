@@ -0,0 +1,298 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Represents an endpoint routing writes to a primary database, and read-only calls to
+ * its replicas.
+ * <br>
+ * <br>
+ * Calls made through the <code>connect</code> methods run on the primary. Calls made
+ * through the <code>connectReadOnly</code> methods run on the replica with the fewest
+ * calls in flight, ties being broken randomly.
+ * <br>
+ * <br>
+ * A replica that fails to provide a connection a number of consecutive times is ejected
+ * for a while. Read-only calls whose replica failed to provide a connection, or made
+ * while every replica is ejected, fall back to the primary. Other exceptions are handled
+ * by the {@link ExceptionHandler} as usual.
+ * <br>
+ * <br>
+ * Instances are created through a {@link RoutingSqlEndpointBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class RoutingSqlEndpoint {
+  private final SqlEndpoint primary;
+  private final Replica[] replicas;
+  private final ExceptionHandler onException;
+  private final int ejectionThreshold;
+  private final long ejectionNanos;
+  private final boolean fallbackToPrimary;
+  private final LongSupplier clock;
+
+  RoutingSqlEndpoint(RoutingSqlEndpointBuilder builder) {
+    this.onException = builder.onException;
+    this.primary = new SqlEndpoint(builder.primary, onException);
+    this.replicas = builder.replicas.stream()
+      .map(factory -> new Replica(new SqlEndpoint(factory, onException)))
+      .toArray(Replica[]::new);
+    this.ejectionThreshold = builder.ejectionThreshold;
+    this.ejectionNanos = builder.ejectionDuration.toNanos();
+    this.fallbackToPrimary = builder.fallbackToPrimary;
+    this.clock = builder.clock;
+  }
+
+  /**
+   * Returns an instance of <code>RoutingSqlEndpointBuilder</code> for the given
+   * primary {@link ConnectionFactory}.
+   * 
+   * @param primary the connection factory of the primary
+   * @return the routing endpoint builder
+   */
+  public static RoutingSqlEndpointBuilder builder(ConnectionFactory primary) {
+    return new RoutingSqlEndpointBuilder(primary);
+  }
+
+  /**
+   * Returns the endpoint of the primary, e.g. to run transactions or streams on it.
+   * 
+   * @return the primary endpoint
+   */
+  public SqlEndpoint primary() {
+    return primary;
+  }
+
+  /**
+   * Feeds a connection of the primary to the given {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * This behaves like {@link SqlEndpoint#connect(ConnectionHandler)}.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to receive the established connection
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connect(ConnectionHandler<T> onConnect) {
+    return primary.connect(onConnect);
+  }
+
+  /**
+   * Feeds a connection of the primary to the given {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * This behaves like {@link SqlEndpoint#connect(ConnectionHandler, ExceptionHandler)}.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param onConnect   the connection handler to receive the established connection
+   * @param onException the exception handler to use
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connect(ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    return primary.connect(onConnect, onException);
+  }
+
+  /**
+   * Feeds a connection of a replica to the given read-only {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called if an exception is thrown,
+   * and the <code>onConnect</code>'s <code>defaultValue</code> method will be
+   * called as the returned value to the caller.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to receive the established connection
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectReadOnly(ConnectionHandler<T> onConnect) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return doConnectReadOnly(onConnect, this.onException);
+  }
+
+  /**
+   * Feeds a connection of a replica to the given read-only {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * This behaves like {@link #connectReadOnly(ConnectionHandler)}, except that the given
+   * {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param onConnect   the connection handler to receive the established connection
+   * @param onException the exception handler to use
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectReadOnly(ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return doConnectReadOnly(onConnect, onException);
+  }
+
+  /**
+   * Returns the number of replicas currently receiving calls.
+   * 
+   * @return the number of healthy replicas
+   */
+  public int healthyReplicaCount() {
+    long now = clock.getAsLong();
+    int healthy = 0;
+    for (Replica replica : replicas)
+      if (replica.isHealthy(now))
+        healthy++;
+
+    return healthy;
+  }
+
+  private <T> T doConnectReadOnly(ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    Replica replica = select(clock.getAsLong());
+    if (replica == null)
+      return primary.connect(onConnect, onException);
+
+    CapturingExceptionHandler failure = new CapturingExceptionHandler();
+    Attempt<T> attempt = new Attempt<>(onConnect);
+    T value;
+    replica.outstanding.incrementAndGet();
+    try {
+      value = replica.endpoint.connect(attempt, failure);
+    } finally {
+      replica.outstanding.decrementAndGet();
+    }
+
+    Exception exception = failure.exception();
+    if (exception == null) {
+      replica.failures.set(0);
+      return value;
+    }
+
+    // exceptions thrown by the handler itself say nothing about the replica's health
+    if (exception == attempt.thrown) {
+      replica.failures.set(0);
+    } else if (isConnectionFailure(exception)) {
+      if (replica.failures.incrementAndGet() >= ejectionThreshold)
+        replica.ejectedUntil = clock.getAsLong() + ejectionNanos;
+      if (fallbackToPrimary)
+        return primary.connect(onConnect, onException);
+    }
+
+    onException.accept(exception);
+    return value;
+  }
+
+  private Replica select(long now) {
+    if (replicas.length == 0)
+      return null;
+
+    int start = ThreadLocalRandom.current().nextInt(replicas.length);
+    Replica selected = null;
+    Replica soonest = null;
+    for (int i = 0; i < replicas.length; i++) {
+      Replica replica = replicas[(start + i) % replicas.length];
+      if (replica.isHealthy(now)) {
+        if (selected == null || replica.outstanding.get() < selected.outstanding.get())
+          selected = replica;
+      } else if (soonest == null || replica.ejectedUntil - soonest.ejectedUntil < 0) {
+        soonest = replica;
+      }
+    }
+
+    if (selected != null || fallbackToPrimary)
+      return selected;
+
+    return soonest;
+  }
+
+  private static boolean isConnectionFailure(Exception exception) {
+    if (exception instanceof NoConnectionProvidedException
+      || exception instanceof SQLTransientConnectionException
+      || exception instanceof SQLNonTransientConnectionException
+      || exception instanceof SQLRecoverableException)
+      return true;
+
+    if (exception instanceof SQLException) {
+      String sqlState = ((SQLException) exception).getSQLState();
+      return sqlState != null && sqlState.startsWith("08");
+    }
+
+    return false;
+  }
+
+  private static final class Attempt<T> implements ConnectionHandler<T> {
+    private final ConnectionHandler<T> onConnect;
+    private volatile Exception thrown;
+
+    private Attempt(ConnectionHandler<T> onConnect) {
+      this.onConnect = onConnect;
+    }
+
+    @Override
+    public T handleAndReturn(Connection connection) throws Exception {
+      try {
+        return onConnect.handleAndReturn(connection);
+      } catch (Exception e) {
+        thrown = e;
+        throw e;
+      }
+    }
+
+    @Override
+    public T defaultValue() {
+      return onConnect.defaultValue();
+    }
+
+    @Override
+    public String name() {
+      return onConnect.name();
+    }
+  }
+
+  private final class Replica {
+    private final SqlEndpoint endpoint;
+    private final AtomicInteger outstanding;
+    private final AtomicInteger failures;
+    private volatile long ejectedUntil;
+
+    private Replica(SqlEndpoint endpoint) {
+      this.endpoint = endpoint;
+      this.outstanding = new AtomicInteger();
+      this.failures = new AtomicInteger();
+    }
+
+    private boolean isHealthy(long now) {
+      return failures.get() < ejectionThreshold || now - ejectedUntil >= 0;
+    }
+  }
+}
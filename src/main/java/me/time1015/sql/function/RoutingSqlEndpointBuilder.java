@@ -0,0 +1,139 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * A Builder of {@link RoutingSqlEndpoint}s.
+ * <br>
+ * <br>
+ * By default, the built endpoint rethrows exceptions caught as
+ * {@link SqlEndpointException}s, ejects a replica for 30 seconds after 3 consecutive
+ * connection failures, and falls back to the primary when no replica can serve a call.
+ * 
+ * @author John Daniel Regino
+ */
+public final class RoutingSqlEndpointBuilder {
+  final ConnectionFactory primary;
+  final List<ConnectionFactory> replicas;
+  ExceptionHandler onException;
+  int ejectionThreshold;
+  Duration ejectionDuration;
+  boolean fallbackToPrimary;
+  LongSupplier clock;
+
+  RoutingSqlEndpointBuilder(ConnectionFactory primary) {
+    if (primary == null)
+      throw new IllegalArgumentException("Null primary factory");
+
+    this.primary = primary;
+    this.replicas = new ArrayList<>();
+    this.onException = ExceptionHandler.rethrow();
+    this.ejectionThreshold = 3;
+    this.ejectionDuration = Duration.ofSeconds(30);
+    this.fallbackToPrimary = true;
+    this.clock = System::nanoTime;
+  }
+
+  /**
+   * Adds a replica to route read-only calls to.
+   * 
+   * @param replica the connection factory of the replica
+   * @return itself
+   */
+  public RoutingSqlEndpointBuilder replica(ConnectionFactory replica) {
+    if (replica == null)
+      throw new IllegalArgumentException("Null replica factory");
+
+    replicas.add(replica);
+    return this;
+  }
+
+  /**
+   * Sets the default {@link ExceptionHandler} of the endpoint.
+   * 
+   * @param onException the default exception handler to use
+   * @return itself
+   */
+  public RoutingSqlEndpointBuilder exceptionHandler(ExceptionHandler onException) {
+    if (onException == null)
+      throw new IllegalArgumentException("Null default exception handler");
+
+    this.onException = onException;
+    return this;
+  }
+
+  /**
+   * Sets how many consecutive connection failures eject a replica, and for how long.
+   * <br>
+   * <br>
+   * Once the duration elapses, the replica receives calls again, and a single success
+   * clears its failures.
+   * 
+   * @param threshold the number of consecutive failures ejecting a replica
+   * @param duration  the duration of an ejection
+   * @return itself
+   */
+  public RoutingSqlEndpointBuilder ejection(int threshold, Duration duration) {
+    if (threshold < 1)
+      throw new IllegalArgumentException("Non-positive ejection threshold");
+    if (duration == null)
+      throw new IllegalArgumentException("Null ejection duration");
+    if (duration.isNegative())
+      throw new IllegalArgumentException("Negative ejection duration");
+
+    this.ejectionThreshold = threshold;
+    this.ejectionDuration = duration;
+    return this;
+  }
+
+  /**
+   * Sets whether read-only calls run on the primary when every replica is ejected, or
+   * when the selected replica fails to provide a connection.
+   * <br>
+   * <br>
+   * Without fallback, such calls run on the replica whose ejection ends first, and the
+   * connection failures of replicas are handled like any other exception.
+   * 
+   * @param fallbackToPrimary whether to fall back to the primary
+   * @return itself
+   */
+  public RoutingSqlEndpointBuilder fallbackToPrimary(boolean fallbackToPrimary) {
+    this.fallbackToPrimary = fallbackToPrimary;
+    return this;
+  }
+
+  /**
+   * Build the resulting routing endpoint.
+   * 
+   * @return the resulting routing endpoint
+   */
+  public RoutingSqlEndpoint build() {
+    return new RoutingSqlEndpoint(this);
+  }
+}
@@ -0,0 +1,184 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class RowPublisher<T> implements Flow.Publisher<T> {
+  private final Opener<T> opener;
+  private final ExceptionHandler onException;
+  private final Executor executor;
+
+  RowPublisher(Opener<T> opener, ExceptionHandler onException, Executor executor) {
+    this.opener = opener;
+    this.onException = onException;
+    this.executor = executor;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    if (subscriber == null)
+      throw new NullPointerException("Null subscriber");
+
+    RowSubscription subscription = new RowSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  @FunctionalInterface
+  static interface Opener<T> {
+    ResultSetSpliterator<T> open() throws Exception;
+  }
+
+  private final class RowSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super T> subscriber;
+    private final AtomicLong requested;
+    private final AtomicInteger pending;
+    private volatile boolean cancelled;
+    private volatile boolean invalidRequest;
+    private ResultSetSpliterator<T> rows;
+    private boolean done;
+
+    private RowSubscription(Flow.Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+      this.requested = new AtomicLong();
+      this.pending = new AtomicInteger();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0)
+        invalidRequest = true;
+      else
+        requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        if (!done)
+          drain();
+
+        missed = pending.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void schedule() {
+      if (pending.getAndIncrement() != 0)
+        return;
+
+      try {
+        executor.execute(this);
+      } catch (RuntimeException e) {
+        pending.set(0);
+        done = true;
+        cancelled = true;
+        subscriber.onError(e);
+      }
+    }
+
+    private void drain() {
+      if (cancelled) {
+        terminate();
+        return;
+      }
+      if (invalidRequest) {
+        terminate();
+        subscriber.onError(new IllegalArgumentException("Non-positive request"));
+        return;
+      }
+      if (requested.get() == 0)
+        return;
+
+      try {
+        if (rows == null && (rows = open()) == null)
+          return;
+
+        long emitted = 0;
+        long available = requested.get();
+        for (;;) {
+          while (emitted != available) {
+            if (cancelled || invalidRequest) {
+              drain();
+              return;
+            }
+            if (!rows.tryAdvance(subscriber::onNext)) {
+              done = true;
+              subscriber.onComplete();
+              return;
+            }
+
+            emitted++;
+          }
+
+          available = requested.get();
+          if (emitted == available) {
+            available = requested.addAndGet(-emitted);
+            if (available == 0)
+              return;
+
+            emitted = 0;
+          }
+        }
+      } catch (Throwable t) {
+        terminate();
+        subscriber.onError(t);
+      }
+    }
+
+    private ResultSetSpliterator<T> open() {
+      try {
+        return opener.open();
+      } catch (Exception e) {
+        done = true;
+        onException.accept(e);
+        subscriber.onComplete();
+        return null;
+      }
+    }
+
+    private void terminate() {
+      done = true;
+      if (rows == null)
+        return;
+
+      try {
+        rows.close();
+      } catch (Throwable ignored) {
+        // already passed to the exception handler
+      }
+    }
+  }
+}
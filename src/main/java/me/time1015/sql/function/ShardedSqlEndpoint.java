@@ -0,0 +1,280 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BinaryOperator;
+
+/**
+ * Represents an endpoint over data partitioned between several databases, or shards.
+ * <br>
+ * <br>
+ * The <code>connect</code> methods run a handler on the shard owning a given key,
+ * routed either by consistent hashing or by key ranges. The <code>connectAll</code>
+ * methods run a handler on every shard in parallel, and merge their results in shard
+ * order with a combiner.
+ * <br>
+ * <br>
+ * Each failed shard of a scatter-gather call is handled by the {@link ExceptionHandler}
+ * separately. The call then returns the handler's <code>defaultValue</code>, or, if
+ * the endpoint returns partial results, the combined results of the other shards.
+ * <br>
+ * <br>
+ * Instances are created through a {@link ShardedSqlEndpointBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class ShardedSqlEndpoint {
+  private final SqlEndpoint[] shards;
+  private final ExceptionHandler onException;
+  private final boolean partialResults;
+  private final long[] ring;
+  private final int[] ringOwners;
+  private final TreeMap<Object, Integer> ranges;
+
+  ShardedSqlEndpoint(ShardedSqlEndpointBuilder builder, boolean ranged) {
+    this.onException = builder.onException;
+    this.partialResults = builder.partialResults;
+    this.shards = new SqlEndpoint[builder.shards.size()];
+    for (int i = 0; i < shards.length; i++) {
+      SqlEndpointBuilder shard = SqlEndpoint.builder(builder.shards.get(i)).exceptionHandler(onException);
+      shards[i] = (builder.executor != null ? shard.executor(builder.executor) : shard).build();
+    }
+
+    if (ranged) {
+      this.ring = null;
+      this.ringOwners = null;
+      this.ranges = rangesOf(builder.lowerBounds);
+    } else {
+      this.ring = new long[shards.length * builder.virtualNodes];
+      this.ringOwners = new int[ring.length];
+      this.ranges = null;
+      buildRing(builder.virtualNodes);
+    }
+  }
+
+  /**
+   * Returns an instance of <code>ShardedSqlEndpointBuilder</code>.
+   * 
+   * @return the sharded endpoint builder
+   */
+  public static ShardedSqlEndpointBuilder builder() {
+    return new ShardedSqlEndpointBuilder();
+  }
+
+  /**
+   * Returns the number of shards.
+   * 
+   * @return the number of shards
+   */
+  public int shardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Returns the index of the shard owning the given key, in the order the shards were
+   * added.
+   * 
+   * @param key the shard key
+   * @return the index of the shard
+   * @throws IllegalArgumentException if the key is below every range, or is not
+   *                                  comparable with the lower bounds of the ranges
+   */
+  public int shardOf(Object key) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+
+    if (ranges != null) {
+      Map.Entry<Object, Integer> range;
+      try {
+        range = ranges.floorEntry(key);
+      } catch (ClassCastException e) {
+        throw new IllegalArgumentException("Key not comparable with ranges: " + key, e);
+      }
+      if (range == null)
+        throw new IllegalArgumentException("Key below every range: " + key);
+
+      return range.getValue();
+    }
+
+    int point = Arrays.binarySearch(ring, mix(key.hashCode()));
+    if (point < 0)
+      point = -point - 1;
+
+    return ringOwners[point == ring.length ? 0 : point];
+  }
+
+  /**
+   * Feeds a connection of the shard owning the given key to the given
+   * {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called if an exception is thrown,
+   * including when no shard owns the key, and the <code>onConnect</code>'s
+   * <code>defaultValue</code> method will be called as the returned value to the caller.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param key       the shard key
+   * @param onConnect the connection handler to receive the established connection
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connect(Object key, ConnectionHandler<T> onConnect) {
+    return connect(key, onConnect, this.onException);
+  }
+
+  /**
+   * Feeds a connection of the shard owning the given key to the given
+   * {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * This behaves like {@link #connect(Object, ConnectionHandler)}, except that the given
+   * {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param key         the shard key
+   * @param onConnect   the connection handler to receive the established connection
+   * @param onException the exception handler to use
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connect(Object key, ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    int shard;
+    try {
+      shard = shardOf(key);
+    } catch (IllegalArgumentException e) {
+      onException.accept(e);
+      return onConnect.defaultValue();
+    }
+
+    return shards[shard].connect(onConnect, onException);
+  }
+
+  /**
+   * Runs the given {@link ConnectionHandler} on every shard in parallel, and merges
+   * their results with the given combiner.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called for each shard that threw an
+   * exception, once every shard is done.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to run on each shard
+   * @param combiner  the function merging two results
+   * @return the combined results (normally or partially), or the handler's default value
+   */
+  public <T> T connectAll(ConnectionHandler<T> onConnect, BinaryOperator<T> combiner) {
+    return connectAll(onConnect, combiner, this.onException);
+  }
+
+  /**
+   * Runs the given {@link ConnectionHandler} on every shard in parallel, and merges
+   * their results with the given combiner.
+   * <br>
+   * <br>
+   * This behaves like {@link #connectAll(ConnectionHandler, BinaryOperator)}, except
+   * that the given {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param onConnect   the connection handler to run on each shard
+   * @param combiner    the function merging two results
+   * @param onException the exception handler to use
+   * @return the combined results (normally or partially), or the handler's default value
+   */
+  public <T> T connectAll(ConnectionHandler<T> onConnect, BinaryOperator<T> combiner, ExceptionHandler onException) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (combiner == null)
+      throw new IllegalArgumentException("Null combiner");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    CapturingExceptionHandler[] failures = new CapturingExceptionHandler[shards.length];
+    List<CompletableFuture<T>> results = new ArrayList<>(shards.length);
+    for (int i = 0; i < shards.length; i++) {
+      failures[i] = new CapturingExceptionHandler();
+      results.add(shards[i].connectAsync(onConnect, failures[i]));
+    }
+
+    T combined = null;
+    boolean succeeded = false;
+    boolean failed = false;
+    for (int i = 0; i < shards.length; i++) {
+      T result = results.get(i).join();
+      if (failures[i].exception() != null) {
+        failed = true;
+        onException.accept(failures[i].exception());
+        continue;
+      }
+
+      combined = succeeded ? combiner.apply(combined, result) : result;
+      succeeded = true;
+    }
+
+    return succeeded && (!failed || partialResults) ? combined : onConnect.defaultValue();
+  }
+
+  private void buildRing(int virtualNodes) {
+    long[][] points = new long[ring.length][];
+    for (int shard = 0, i = 0; shard < shards.length; shard++)
+      for (int node = 0; node < virtualNodes; node++, i++)
+        points[i] = new long[] { mix(((long) shard << 32) | node), shard };
+
+    Arrays.sort(points, (a, b) -> Long.compare(a[0], b[0]));
+    for (int i = 0; i < points.length; i++) {
+      ring[i] = points[i][0];
+      ringOwners[i] = (int) points[i][1];
+    }
+  }
+
+  private static TreeMap<Object, Integer> rangesOf(List<Comparable<?>> lowerBounds) {
+    TreeMap<Object, Integer> ranges = new TreeMap<>();
+    for (int i = 0; i < lowerBounds.size(); i++) {
+      try {
+        if (ranges.put(lowerBounds.get(i), i) != null)
+          throw new IllegalStateException("Duplicate lower bound " + lowerBounds.get(i));
+      } catch (ClassCastException e) {
+        throw new IllegalStateException("Lower bounds not mutually comparable", e);
+      }
+    }
+
+    return ranges;
+  }
+
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+}
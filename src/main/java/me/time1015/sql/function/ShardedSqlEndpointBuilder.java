@@ -0,0 +1,176 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A Builder of {@link ShardedSqlEndpoint}s.
+ * <br>
+ * <br>
+ * Shards are either added without bounds, in which case keys are routed by consistent
+ * hashing, or with the lower bound of their key range, in which case keys are routed to
+ * the shard with the greatest lower bound not above them. Both kinds cannot be mixed.
+ * <br>
+ * <br>
+ * By default, the built endpoint rethrows exceptions caught as
+ * {@link SqlEndpointException}s, places 128 virtual nodes per shard on the hash ring,
+ * runs scatter-gather calls on the default executor of {@link SqlEndpoint}, and does
+ * not return partial results.
+ * 
+ * @author John Daniel Regino
+ */
+public final class ShardedSqlEndpointBuilder {
+  final List<ConnectionFactory> shards;
+  final List<Comparable<?>> lowerBounds;
+  ExceptionHandler onException;
+  int virtualNodes;
+  Executor executor;
+  boolean partialResults;
+
+  ShardedSqlEndpointBuilder() {
+    this.shards = new ArrayList<>();
+    this.lowerBounds = new ArrayList<>();
+    this.onException = ExceptionHandler.rethrow();
+    this.virtualNodes = 128;
+    this.executor = null;
+    this.partialResults = false;
+  }
+
+  /**
+   * Adds a shard to route keys to by consistent hashing.
+   * 
+   * @param shard the connection factory of the shard
+   * @return itself
+   */
+  public ShardedSqlEndpointBuilder shard(ConnectionFactory shard) {
+    if (shard == null)
+      throw new IllegalArgumentException("Null shard factory");
+
+    shards.add(shard);
+    lowerBounds.add(null);
+    return this;
+  }
+
+  /**
+   * Adds a shard to route the keys of a range to.
+   * <br>
+   * <br>
+   * The range starts at the given lower bound, inclusive, and ends at the next greater
+   * lower bound of another shard, exclusive. Keys must be mutually comparable with the
+   * lower bounds.
+   * 
+   * @param lowerBound the lower bound of the range of the shard
+   * @param shard      the connection factory of the shard
+   * @return itself
+   */
+  public ShardedSqlEndpointBuilder shard(Comparable<?> lowerBound, ConnectionFactory shard) {
+    if (lowerBound == null)
+      throw new IllegalArgumentException("Null lower bound");
+    if (shard == null)
+      throw new IllegalArgumentException("Null shard factory");
+
+    shards.add(shard);
+    lowerBounds.add(lowerBound);
+    return this;
+  }
+
+  /**
+   * Sets the default {@link ExceptionHandler} of the endpoint.
+   * 
+   * @param onException the default exception handler to use
+   * @return itself
+   */
+  public ShardedSqlEndpointBuilder exceptionHandler(ExceptionHandler onException) {
+    if (onException == null)
+      throw new IllegalArgumentException("Null default exception handler");
+
+    this.onException = onException;
+    return this;
+  }
+
+  /**
+   * Sets the number of points each shard occupies on the hash ring.
+   * <br>
+   * <br>
+   * More points spread keys more evenly between shards.
+   * 
+   * @param virtualNodes the number of virtual nodes per shard
+   * @return itself
+   */
+  public ShardedSqlEndpointBuilder virtualNodes(int virtualNodes) {
+    if (virtualNodes < 1)
+      throw new IllegalArgumentException("Non-positive virtual nodes");
+
+    this.virtualNodes = virtualNodes;
+    return this;
+  }
+
+  /**
+   * Sets the {@link Executor} running the handlers of scatter-gather calls.
+   * 
+   * @param executor the executor to use
+   * @return itself
+   */
+  public ShardedSqlEndpointBuilder executor(Executor executor) {
+    if (executor == null)
+      throw new IllegalArgumentException("Null executor");
+
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Sets whether scatter-gather calls combine the results of the shards that succeeded
+   * when others failed, instead of returning the handler's <code>defaultValue</code>.
+   * 
+   * @param partialResults whether to return partial results
+   * @return itself
+   */
+  public ShardedSqlEndpointBuilder partialResults(boolean partialResults) {
+    this.partialResults = partialResults;
+    return this;
+  }
+
+  /**
+   * Build the resulting sharded endpoint.
+   * 
+   * @return the resulting sharded endpoint
+   * @throws IllegalStateException if no shards were added, or shards with and without
+   *                               bounds were mixed, or two shards share a lower bound
+   */
+  public ShardedSqlEndpoint build() {
+    if (shards.isEmpty())
+      throw new IllegalStateException("No shards");
+
+    boolean ranged = lowerBounds.get(0) != null;
+    for (Comparable<?> lowerBound : lowerBounds)
+      if ((lowerBound != null) != ranged)
+        throw new IllegalStateException("Mixed hashed and ranged shards");
+
+    return new ShardedSqlEndpoint(this, ranged);
+  }
+}
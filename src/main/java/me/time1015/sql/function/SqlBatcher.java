@@ -0,0 +1,276 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces small, independent write handlers into batches run on a single connection.
+ * <br>
+ * <br>
+ * Handlers submitted to the batcher are queued until either the maximum batch size
+ * is reached or the maximum delay since the first queued handler has elapsed. The
+ * queued handlers are then run one after the other through the {@link SqlEndpoint}'s
+ * <code>connect</code> method, on a single connection and in a single transaction.
+ * <br>
+ * <br>
+ * Each handler runs within its own savepoint: a handler that throws has its changes
+ * rolled back to that savepoint, and its exception is sent to its {@link ExceptionHandler}
+ * without affecting the rest of the batch. If the batch itself fails (e.g. no connection
+ * could be provided, or the commit failed), the exception is sent to the exception
+ * handler of every handler of the batch. When the endpoint retries a failed batch,
+ * only the failures of its last attempt are reported.
+ * <br>
+ * <br>
+ * Instances are created through a {@link SqlBatcherBuilder}.
+ * 
+ * @author John Daniel Regino
+ */
+public final class SqlBatcher implements AutoCloseable {
+  private final SqlEndpoint endpoint;
+  private final ExceptionHandler onException;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+
+  private final ConcurrentLinkedQueue<Pending> queue;
+  private final AtomicInteger queued;
+  private final AtomicBoolean closed;
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  SqlBatcher(SqlEndpoint endpoint, ExceptionHandler onException, int maxBatchSize, Duration maxDelay) {
+    this.endpoint = endpoint;
+    this.onException = onException;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+
+    this.queue = new ConcurrentLinkedQueue<>();
+    this.queued = new AtomicInteger();
+    this.closed = new AtomicBoolean();
+    this.scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+      Thread thread = new Thread(task, "sql-batcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * Returns a builder of a batcher running its batches through the given {@link SqlEndpoint}.
+   * 
+   * @param endpoint the endpoint to run the batches through
+   * @return the batcher builder
+   */
+  public static SqlBatcherBuilder builder(SqlEndpoint endpoint) {
+    return new SqlBatcherBuilder(endpoint);
+  }
+
+  /**
+   * Queues the given handler to run in the next batch.
+   * <br>
+   * <br>
+   * The batcher's default {@link ExceptionHandler} will be called if the handler or
+   * its batch fails. The returned future completes once the batch is committed or the
+   * exception is handled, or completes exceptionally if the exception handler throws.
+   * 
+   * @param handler the handler to run
+   * @return a future completing once the handler's batch has run
+   * @throws IllegalStateException if the batcher is closed
+   */
+  public CompletableFuture<Void> submit(ConnectionHandler.OfVoid handler) {
+    if (handler == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return doSubmit(handler, this.onException);
+  }
+
+  /**
+   * Queues the given handler to run in the next batch.
+   * <br>
+   * <br>
+   * The given {@link ExceptionHandler} will be called if the handler or its batch
+   * fails. The returned future completes once the batch is committed or the exception
+   * is handled, or completes exceptionally if the exception handler throws.
+   * 
+   * @param handler     the handler to run
+   * @param onException the exception handler to use
+   * @return a future completing once the handler's batch has run
+   * @throws IllegalStateException if the batcher is closed
+   */
+  public CompletableFuture<Void> submit(ConnectionHandler.OfVoid handler, ExceptionHandler onException) {
+    if (handler == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return doSubmit(handler, onException);
+  }
+
+  /**
+   * Stops accepting handlers, and runs the handlers still queued on the calling thread.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true))
+      return;
+
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    flush();
+  }
+
+  private CompletableFuture<Void> doSubmit(ConnectionHandler.OfVoid handler, ExceptionHandler onException) {
+    if (closed.get())
+      throw new IllegalStateException("Batcher closed");
+
+    Pending pending = new Pending(handler, onException);
+    int size = queued.incrementAndGet();
+    queue.offer(pending);
+
+    if (closed.get())
+      flush();
+    else if (size == maxBatchSize)
+      scheduleFlush(0);
+    else if (size == 1)
+      scheduleFlush(maxDelayNanos);
+
+    return pending.future;
+  }
+
+  private void flush() {
+    List<Pending> batch;
+    while (!(batch = drainBatch()).isEmpty())
+      runBatch(batch);
+
+    if (queued.get() > 0 && !closed.get())
+      scheduleFlush(maxDelayNanos);
+  }
+
+  private void scheduleFlush(long delayNanos) {
+    try {
+      scheduler.schedule(this::flush, delayNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException closing) {
+      // the queued handlers are flushed by close
+    }
+  }
+
+  private List<Pending> drainBatch() {
+    List<Pending> batch = new ArrayList<>(Math.min(maxBatchSize, Math.max(queued.get(), 1)));
+    Pending pending;
+    while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+      queued.decrementAndGet();
+      batch.add(pending);
+    }
+
+    return batch;
+  }
+
+  private void runBatch(List<Pending> batch) {
+    Exception[] batchFailure = new Exception[1];
+    endpoint.connect((ConnectionHandler.OfVoid) connection -> runInTransaction(connection, batch), e -> {
+      batchFailure[0] = e;
+    });
+
+    for (Pending pending : batch)
+      pending.complete(batchFailure[0]);
+  }
+
+  private void runInTransaction(Connection connection, List<Pending> batch) throws Exception {
+    for (Pending pending : batch)
+      pending.failure = null;
+
+    boolean autoCommit = connection.getAutoCommit();
+    if (autoCommit)
+      connection.setAutoCommit(false);
+
+    try {
+      for (Pending pending : batch)
+        runInSavepoint(connection, pending);
+
+      connection.commit();
+    } catch (Exception e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      if (autoCommit)
+        connection.setAutoCommit(true);
+    }
+  }
+
+  private void runInSavepoint(Connection connection, Pending pending) throws Exception {
+    Savepoint savepoint = connection.setSavepoint();
+    try {
+      pending.handler.handle(connection);
+    } catch (Exception e) {
+      connection.rollback(savepoint);
+      pending.failure = e;
+      return;
+    }
+
+    connection.releaseSavepoint(savepoint);
+  }
+
+  private static final class Pending {
+    private final ConnectionHandler.OfVoid handler;
+    private final ExceptionHandler onException;
+    private final CompletableFuture<Void> future;
+    private Exception failure;
+
+    private Pending(ConnectionHandler.OfVoid handler, ExceptionHandler onException) {
+      this.handler = handler;
+      this.onException = onException;
+      this.future = new CompletableFuture<>();
+    }
+
+    private void complete(Exception batchFailure) {
+      Exception exception = failure != null ? failure : batchFailure;
+      if (exception == null) {
+        future.complete(null);
+        return;
+      }
+
+      try {
+        onException.accept(exception);
+        future.complete(null);
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+
+/**
+ * A Builder of {@link SqlBatcher}s.
+ * <br>
+ * <br>
+ * By default, the built batcher runs batches of at most 100 handlers, waits at most
+ * 5 milliseconds before running a batch, and rethrows exceptions caught as
+ * {@link SqlEndpointException}s.
+ * 
+ * @author John Daniel Regino
+ */
+public final class SqlBatcherBuilder {
+  private final SqlEndpoint endpoint;
+  private ExceptionHandler onException;
+  private int maxBatchSize;
+  private Duration maxDelay;
+
+  SqlBatcherBuilder(SqlEndpoint endpoint) {
+    if (endpoint == null)
+      throw new IllegalArgumentException("Null endpoint");
+
+    this.endpoint = endpoint;
+    this.onException = ExceptionHandler.rethrow();
+    this.maxBatchSize = 100;
+    this.maxDelay = Duration.ofMillis(5);
+  }
+
+  /**
+   * Sets the default {@link ExceptionHandler} of the batcher.
+   * 
+   * @param onException the default exception handler to use
+   * @return itself
+   */
+  public SqlBatcherBuilder exceptionHandler(ExceptionHandler onException) {
+    if (onException == null)
+      throw new IllegalArgumentException("Null default exception handler");
+
+    this.onException = onException;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of handlers run in a single batch.
+   * <br>
+   * <br>
+   * A batch is run as soon as this many handlers are queued.
+   * 
+   * @param maxBatchSize the maximum batch size
+   * @return itself
+   */
+  public SqlBatcherBuilder maxBatchSize(int maxBatchSize) {
+    if (maxBatchSize < 1)
+      throw new IllegalArgumentException("Non-positive maximum batch size");
+
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  /**
+   * Sets how long the first handler of a batch waits for others to join it.
+   * 
+   * @param maxDelay the maximum delay
+   * @return itself
+   */
+  public SqlBatcherBuilder maxDelay(Duration maxDelay) {
+    if (maxDelay == null)
+      throw new IllegalArgumentException("Null maximum delay");
+    if (maxDelay.isNegative())
+      throw new IllegalArgumentException("Negative maximum delay");
+
+    this.maxDelay = maxDelay;
+    return this;
+  }
+
+  /**
+   * Build the resulting batcher.
+   * 
+   * @return the resulting batcher
+   */
+  public SqlBatcher build() {
+    return new SqlBatcher(endpoint, onException, maxBatchSize, maxDelay);
+  }
+}
@@ -23,7 +23,32 @@ package me.time1015.sql.function;
  * THE SOFTWARE.
  */
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import me.time1015.sql.function.endpoint.Bulkhead;
+import me.time1015.sql.function.endpoint.CircuitBreaker;
+import me.time1015.sql.function.endpoint.Deadline;
+import me.time1015.sql.function.endpoint.ExceptionFactory;
+import me.time1015.sql.function.endpoint.LeakWatchdog;
 
 /**
  * A wrapper class for SQL connection factories.
@@ -53,12 +78,74 @@ import java.sql.Connection;
  * gets sent to the <code>ExceptionHandler</code> to consume. Afterwards,
  * a value queried from the <code>ConnectionHandler</code>'s
  * <code>defaultValue</code> will be returned to the caller.
+ * <br>
+ * <br>
+ * The <code>connectAsync</code> methods behave the same way, but run on the
+ * endpoint's {@link Executor} and return a {@link CompletableFuture} instead.
+ * <br>
+ * <br>
+ * An endpoint may also be given a bulkhead, which bounds the number of calls
+ * handled at once. Calls over the limit wait in a bounded queue, and are rejected
+ * with a {@link BulkheadFullException} once the queue is full or their wait times
+ * out. Rejections are handled like any other exception.
+ * <br>
+ * <br>
+ * An endpoint may also report the timings and outcome of every call it handles
+ * to a {@link SqlEndpointListener}.
+ * <br>
+ * <br>
+ * An endpoint may also retry calls that failed transiently according to a
+ * {@link RetryPolicy}, in which case only the last failure is handled, and stop
+ * acquiring connections while its database appears to be down according to a
+ * {@link CircuitBreakerPolicy}.
+ * <br>
+ * <br>
+ * Connections held longer than a threshold can also be reported to a separate exception
+ * handler as {@link ConnectionLeakException}s, with the acquisition site captured for a
+ * sample of them.
+ * <br>
+ * <br>
+ * Endpoints with such options are created through a {@link SqlEndpointBuilder}.
+ * <br>
+ * <br>
+ * The <code>stream</code> methods run a query and return its rows as a lazily
+ * populated {@link Stream}, which holds its connection until it is closed. The
+ * <code>publish</code> methods do the same for reactive consumers through a
+ * {@link Flow.Publisher}, reading rows only as they are requested.
+ * <br>
+ * <br>
+ * The <code>connectCoalesced</code> methods let concurrent calls with an equal key
+ * share the result of a single execution, and the <code>warmUp</code> methods
+ * establish connections ahead of the first calls.
+ * <br>
+ * <br>
+ * The <code>connect</code> methods accepting a {@link Duration} bound the whole call,
+ * from waiting for its connection to its last statement, so that no database work
+ * outlives a caller that has given up.
+ * <br>
+ * <br>
+ * The <code>tryConnect</code> method reports failures as an {@link Outcome} instead of
+ * handing them to an exception handler.
+ * <br>
+ * <br>
+ * Endpoints may also record the latencies of named handlers into {@link LatencyMetrics}.
  * 
  * @author John Daniel Regino
  */
 public final class SqlEndpoint {
+  private static final int DEFAULT_FETCH_SIZE = 100;
+
   private final ConnectionFactory factory;
   private final ExceptionHandler onException;
+  private final Executor executor;
+  private final Bulkhead bulkhead;
+  private final SqlEndpointListener listener;
+  private final LatencyMetrics latencyMetrics;
+  private final RetryPolicy retryPolicy;
+  private final CircuitBreaker circuitBreaker;
+  private final LeakWatchdog leakWatchdog;
+  private final ExceptionFactory exceptions;
+  private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights;
 
   /**
    * Creates a <code>SqlEndpoint</code> from a given {@link ConnectionFactory}.
@@ -81,13 +168,77 @@ public final class SqlEndpoint {
    * @param onException the default exception handler to use
    */
   public SqlEndpoint(ConnectionFactory factory, ExceptionHandler onException) {
-    if (factory == null)
-      throw new IllegalArgumentException("Null factory");
-    if (onException == null)
-      throw new IllegalArgumentException("Null default exception handler");
+    this(builder(factory).exceptionHandler(onException));
+  }
+
+  private SqlEndpoint(SqlEndpointBuilder builder) {
+    this.factory = builder.factory;
+    this.executor = builder.executor != null ? builder.executor : DefaultExecutor.INSTANCE;
+    this.exceptions = builder.stacklessExceptions
+      ? new StacklessExceptionFactory(builder.traceSamplingRate)
+      : ExceptionFactory.STANDARD;
+    this.onException = builder.onException == ExceptionHandler.rethrow()
+      ? rethrowing(exceptions)
+      : builder.onException;
+    this.bulkhead = builder.maxConcurrent > 0
+      ? new Bulkhead(builder.maxConcurrent, builder.maxWaiting, builder.waitTimeout.toNanos(), exceptions)
+      : null;
+    this.listener = builder.listener;
+    this.latencyMetrics = builder.latencyMetrics;
+    this.retryPolicy = builder.retryPolicy;
+    this.circuitBreaker = builder.circuitBreakerPolicy != null
+      ? newCircuitBreaker(builder.circuitBreakerPolicy, exceptions)
+      : null;
+    this.leakWatchdog = builder.leakThreshold != null
+      ? LeakWatchdog.start(builder.leakThreshold.toNanos(), builder.leakSamplingRate, builder.onLeak)
+      : null;
+    this.flights = new ConcurrentHashMap<>();
+  }
+
+  private static ExceptionHandler rethrowing(ExceptionFactory exceptions) {
+    if (exceptions == ExceptionFactory.STANDARD)
+      return ExceptionHandler.rethrow();
+
+    return exception -> {
+      throw exceptions.rethrown(exception);
+    };
+  }
+
+  private static CircuitBreaker newCircuitBreaker(CircuitBreakerPolicy policy, ExceptionFactory exceptions) {
+    return new CircuitBreaker(
+      policy.windowSize,
+      policy.minimumCalls,
+      policy.failureRateThreshold,
+      policy.slowCallRateThreshold,
+      policy.slowCallNanos,
+      policy.openNanos,
+      policy.halfOpenCalls,
+      System::nanoTime,
+      exceptions
+    );
+  }
+
+  ExceptionHandler exceptionHandler() {
+    return onException;
+  }
+
+  LeakWatchdog leakWatchdog() {
+    return leakWatchdog;
+  }
+
+  static SqlEndpoint from(SqlEndpointBuilder builder) {
+    return new SqlEndpoint(builder);
+  }
 
-    this.factory = factory;
-    this.onException = onException;
+  /**
+   * Returns an instance of <code>SqlEndpointBuilder</code> for the given
+   * {@link ConnectionFactory}.
+   * 
+   * @param factory the connection factory to use
+   * @return the endpoint builder
+   */
+  public static SqlEndpointBuilder builder(ConnectionFactory factory) {
+    return new SqlEndpointBuilder(factory);
   }
 
   /**
@@ -133,16 +284,869 @@ public final class SqlEndpoint {
     return doConnect(onConnect, onException);
   }
 
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler}, within the given time budget.
+   * <br>
+   * <br>
+   * What remains of the budget bounds each step of the call in turn: waiting for a
+   * bulkhead slot, acquiring the connection, the connection's network timeout and the
+   * query timeout of every statement created through it. Once the budget runs out, a
+   * pending acquisition is interrupted and running statements are cancelled.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called if an exception is thrown,
+   * or with a {@link DeadlineExceededException} if the call failed once the budget ran
+   * out or was interrupted by it, and the <code>onConnect</code>'s
+   * <code>defaultValue</code> method will be called as the returned value to the caller.
+   * A call that completes after the budget ran out without being interrupted still
+   * returns its handler's value, since its work may already be committed.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param timeout   the time budget of the call
+   * @param onConnect the connection handler to receive the established connection
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connect(Duration timeout, ConnectionHandler<T> onConnect) {
+    if (timeout == null)
+      throw new IllegalArgumentException("Null timeout");
+    if (timeout.isNegative() || timeout.isZero())
+      throw new IllegalArgumentException("Non-positive timeout");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return doConnectWithin(onConnect, timeout, this.onException);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler}, within the given time budget.
+   * <br>
+   * <br>
+   * The budget applies the same way as in {@link #connect(Duration, ConnectionHandler)}.
+   * The given {@link ExceptionHandler} will be called if an exception is thrown, or
+   * with a {@link DeadlineExceededException} if the budget made the call fail, and the
+   * <code>onConnect</code>'s <code>defaultValue</code> method will be called as the
+   * returned value to the caller.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param timeout     the time budget of the call
+   * @param onConnect   the connection handler to receive the established connection
+   * @param onException the exception handler to use
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connect(Duration timeout, ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    if (timeout == null)
+      throw new IllegalArgumentException("Null timeout");
+    if (timeout.isNegative() || timeout.isZero())
+      throw new IllegalArgumentException("Non-positive timeout");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return doConnectWithin(onConnect, timeout, onException);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler}, reporting the result as an {@link Outcome}.
+   * <br>
+   * <br>
+   * No exception handler is called: a failed call returns a failed outcome holding the
+   * exception instead, so failures cost no more than the exception itself. The
+   * <code>onConnect</code>'s <code>defaultValue</code> method is not called either.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to receive the established connection
+   * @return the outcome of the handler
+   */
+  public <T> Outcome<T> tryConnect(ConnectionHandler<T> onConnect) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    try {
+      return Outcome.success(execute(onConnect, null));
+    } catch (Exception e) {
+      return Outcome.failure(e);
+    }
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) on the endpoint's
+   * {@link Executor} and feeds it to the given {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called if an exception is thrown,
+   * and the returned future will complete with the <code>onConnect</code>'s
+   * <code>defaultValue</code>. If the exception handler itself throws, the returned
+   * future completes exceptionally.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to receive the established connection
+   * @return a future of the value returned from the handler (normally or exceptionally)
+   */
+  public <T> CompletableFuture<T> connectAsync(ConnectionHandler<T> onConnect) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return CompletableFuture.supplyAsync(() -> doConnect(onConnect, this.onException), executor);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) on the endpoint's
+   * {@link Executor} and feeds it to the given {@link ConnectionHandler}.
+   * <br>
+   * <br>
+   * The given {@link ExceptionHandler} will be called if an exception is thrown,
+   * and the returned future will complete with the <code>onConnect</code>'s
+   * <code>defaultValue</code>. If the exception handler itself throws, the returned
+   * future completes exceptionally.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param onConnect   the connection handler to receive the established connection
+   * @param onException the exception handler to use
+   * @return a future of the value returned from the handler (normally or exceptionally)
+   */
+  public <T> CompletableFuture<T> connectAsync(ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return CompletableFuture.supplyAsync(() -> doConnect(onConnect, onException), executor);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler}, unless a call with an equal key is already in flight.
+   * <br>
+   * <br>
+   * While a call is in flight, other calls with an equal key wait for it and share its
+   * result instead of running their own handler, which turns concurrent identical
+   * queries into a single one. Calls sharing a key should therefore run equivalent
+   * handlers returning the same type, and unrelated callers of the same endpoint should
+   * keep their keys apart, e.g. by wrapping them in a key type of their own.
+   * <br>
+   * <br>
+   * If the call in flight throws an exception, the default {@link ExceptionHandler} will
+   * be called by each waiting call, and each returns its own handler's
+   * <code>defaultValue</code>.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param key       the key identifying equivalent calls
+   * @param onConnect the connection handler to receive the established connection
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectCoalesced(Object key, ConnectionHandler<T> onConnect) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+
+    return doConnectCoalesced(key, onConnect, this.onException);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler}, unless a call with an equal key is already in flight.
+   * <br>
+   * <br>
+   * This behaves like {@link #connectCoalesced(Object, ConnectionHandler)}, except that
+   * the given {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param key         the key identifying equivalent calls
+   * @param onConnect   the connection handler to receive the established connection
+   * @param onException the exception handler to use
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectCoalesced(Object key, ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    if (key == null)
+      throw new IllegalArgumentException("Null key");
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return doConnectCoalesced(key, onConnect, onException);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler} within a transaction.
+   * <br>
+   * <br>
+   * This is the same as calling
+   * {@link #connectInTransaction(ConnectionHandler, TransactionOptions)} with the
+   * default {@link TransactionOptions}.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to receive the established connection
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectInTransaction(ConnectionHandler<T> onConnect) {
+    return connectInTransaction(onConnect, TransactionOptions.defaults());
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler} within a transaction.
+   * <br>
+   * <br>
+   * The isolation level and read-only hint of the given {@link TransactionOptions} are
+   * applied and auto-commit is disabled before the handler runs. The transaction is
+   * committed if the handler returns normally, and rolled back if it throws. Either way,
+   * the settings of the connection that were changed are restored afterwards. The handler
+   * may still use savepoints within the transaction.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called after the rollback if an exception
+   * is thrown, and the <code>onConnect</code>'s <code>defaultValue</code> method will be
+   * called as the returned value to the caller.
+   * 
+   * @param <T>       the return type of the connection handler
+   * @param onConnect the connection handler to receive the established connection
+   * @param options   the settings of the transaction
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectInTransaction(ConnectionHandler<T> onConnect, TransactionOptions options) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (options == null)
+      throw new IllegalArgumentException("Null transaction options");
+
+    return doConnect(new TransactionalHandler<>(onConnect, options), this.onException);
+  }
+
+  /**
+   * Establishes a connection (provided from the factory) and feeds it to the given
+   * {@link ConnectionHandler} within a transaction.
+   * <br>
+   * <br>
+   * This behaves like {@link #connectInTransaction(ConnectionHandler, TransactionOptions)},
+   * except that the given {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the return type of the connection handler
+   * @param onConnect   the connection handler to receive the established connection
+   * @param options     the settings of the transaction
+   * @param onException the exception handler to use
+   * @return the value returned from the handler (normally or exceptionally)
+   */
+  public <T> T connectInTransaction(
+    ConnectionHandler<T> onConnect,
+    TransactionOptions options,
+    ExceptionHandler onException
+  ) {
+    if (onConnect == null)
+      throw new IllegalArgumentException("Null connection handler");
+    if (options == null)
+      throw new IllegalArgumentException("Null transaction options");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return doConnect(new TransactionalHandler<>(onConnect, options), onException);
+  }
+
+  /**
+   * Executes the given query on a connection (provided from the factory) and returns
+   * its rows as a lazily populated {@link Stream}.
+   * <br>
+   * <br>
+   * The query runs on a forward-only, read-only {@link ResultSet} fetched in batches of
+   * 100 rows, and each row is mapped by the given {@link RowMapper} only as the stream
+   * is consumed, so memory use does not grow with the size of the result. Note that some
+   * drivers only honor the fetch size within a transaction.
+   * <br>
+   * <br>
+   * The connection stays open until the stream is exhausted or closed. Streams that may
+   * not be fully consumed should therefore be closed, e.g. with a
+   * <code>try</code>-with-resources statement.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called if an exception is thrown while
+   * executing the query, in which case an empty stream is returned, or while fetching or
+   * mapping a row, in which case the stream ends early.
+   * 
+   * @param <T>    the type of the mapped rows
+   * @param sql    the query to execute
+   * @param binder the binder of the query parameters
+   * @param mapper the mapper of each row
+   * @return the stream of mapped rows
+   */
+  public <T> Stream<T> stream(String sql, ParameterBinder binder, RowMapper<T> mapper) {
+    return stream(sql, binder, mapper, DEFAULT_FETCH_SIZE, this.onException);
+  }
+
+  /**
+   * Executes the given query on a connection (provided from the factory) and returns
+   * its rows as a lazily populated {@link Stream}.
+   * <br>
+   * <br>
+   * This behaves like {@link #stream(String, ParameterBinder, RowMapper)}, except that
+   * rows are fetched in batches of the given size.
+   * 
+   * @param <T>       the type of the mapped rows
+   * @param sql       the query to execute
+   * @param binder    the binder of the query parameters
+   * @param mapper    the mapper of each row
+   * @param fetchSize the number of rows to fetch at once, or 0 for the driver's default
+   * @return the stream of mapped rows
+   */
+  public <T> Stream<T> stream(String sql, ParameterBinder binder, RowMapper<T> mapper, int fetchSize) {
+    return stream(sql, binder, mapper, fetchSize, this.onException);
+  }
+
+  /**
+   * Executes the given query on a connection (provided from the factory) and returns
+   * its rows as a lazily populated {@link Stream}.
+   * <br>
+   * <br>
+   * This behaves like {@link #stream(String, ParameterBinder, RowMapper, int)}, except
+   * that the given {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the type of the mapped rows
+   * @param sql         the query to execute
+   * @param binder      the binder of the query parameters
+   * @param mapper      the mapper of each row
+   * @param fetchSize   the number of rows to fetch at once, or 0 for the driver's default
+   * @param onException the exception handler to use
+   * @return the stream of mapped rows
+   */
+  public <T> Stream<T> stream(
+    String sql,
+    ParameterBinder binder,
+    RowMapper<T> mapper,
+    int fetchSize,
+    ExceptionHandler onException
+  ) {
+    if (sql == null)
+      throw new IllegalArgumentException("Null query");
+    if (binder == null)
+      throw new IllegalArgumentException("Null parameter binder");
+    if (mapper == null)
+      throw new IllegalArgumentException("Null row mapper");
+    if (fetchSize < 0)
+      throw new IllegalArgumentException("Negative fetch size");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    try {
+      ResultSetSpliterator<T> rows = openRows(sql, binder, mapper, fetchSize, onException);
+
+      return StreamSupport.stream(rows, false).onClose(rows::close);
+    } catch (Exception e) {
+      onException.accept(e);
+
+      return Stream.empty();
+    }
+  }
+
+  /**
+   * Returns a {@link Flow.Publisher} of the rows of the given query, executed on a
+   * connection (provided from the factory) for each subscriber.
+   * <br>
+   * <br>
+   * Rows are read like in {@link #stream(String, ParameterBinder, RowMapper)}, but only
+   * as the subscriber requests them, on the endpoint's {@link Executor}. A slow subscriber
+   * thus throttles the read from the database instead of having rows buffered for it.
+   * The connection is closed once the rows are exhausted, or the subscription fails or
+   * is cancelled.
+   * <br>
+   * <br>
+   * The default {@link ExceptionHandler} will be called if an exception is thrown while
+   * executing the query or reading a row, after which the subscriber is completed. If the
+   * exception handler throws an exception itself, the subscriber receives it as an error.
+   * 
+   * @param <T>    the type of the mapped rows
+   * @param sql    the query to execute
+   * @param binder the binder of the query parameters
+   * @param mapper the mapper of each row
+   * @return the publisher of mapped rows
+   */
+  public <T> Flow.Publisher<T> publish(String sql, ParameterBinder binder, RowMapper<T> mapper) {
+    return publish(sql, binder, mapper, DEFAULT_FETCH_SIZE, this.onException);
+  }
+
+  /**
+   * Returns a {@link Flow.Publisher} of the rows of the given query, executed on a
+   * connection (provided from the factory) for each subscriber.
+   * <br>
+   * <br>
+   * This behaves like {@link #publish(String, ParameterBinder, RowMapper)}, except that
+   * rows are fetched in batches of the given size.
+   * 
+   * @param <T>       the type of the mapped rows
+   * @param sql       the query to execute
+   * @param binder    the binder of the query parameters
+   * @param mapper    the mapper of each row
+   * @param fetchSize the number of rows to fetch at once, or 0 for the driver's default
+   * @return the publisher of mapped rows
+   */
+  public <T> Flow.Publisher<T> publish(String sql, ParameterBinder binder, RowMapper<T> mapper, int fetchSize) {
+    return publish(sql, binder, mapper, fetchSize, this.onException);
+  }
+
+  /**
+   * Returns a {@link Flow.Publisher} of the rows of the given query, executed on a
+   * connection (provided from the factory) for each subscriber.
+   * <br>
+   * <br>
+   * This behaves like {@link #publish(String, ParameterBinder, RowMapper, int)}, except
+   * that the given {@link ExceptionHandler} will be called if an exception is thrown.
+   * 
+   * @param <T>         the type of the mapped rows
+   * @param sql         the query to execute
+   * @param binder      the binder of the query parameters
+   * @param mapper      the mapper of each row
+   * @param fetchSize   the number of rows to fetch at once, or 0 for the driver's default
+   * @param onException the exception handler to use
+   * @return the publisher of mapped rows
+   */
+  public <T> Flow.Publisher<T> publish(
+    String sql,
+    ParameterBinder binder,
+    RowMapper<T> mapper,
+    int fetchSize,
+    ExceptionHandler onException
+  ) {
+    if (sql == null)
+      throw new IllegalArgumentException("Null query");
+    if (binder == null)
+      throw new IllegalArgumentException("Null parameter binder");
+    if (mapper == null)
+      throw new IllegalArgumentException("Null row mapper");
+    if (fetchSize < 0)
+      throw new IllegalArgumentException("Negative fetch size");
+    if (onException == null)
+      throw new IllegalArgumentException("Null exception handler");
+
+    return new RowPublisher<>(() -> openRows(sql, binder, mapper, fetchSize, onException), onException, executor);
+  }
+
+  /**
+   * Establishes the given number of connections in parallel, and holds them all until
+   * every one of them is established.
+   * <br>
+   * <br>
+   * This behaves like {@link #warmUp(int, ConnectionHandler.OfVoid)}, without running a
+   * handler on the connections.
+   * 
+   * @param connections the number of connections to establish
+   * @return the future completed once every connection is established and released
+   */
+  public CompletableFuture<Void> warmUp(int connections) {
+    return warmUp(connections, connection -> {});
+  }
+
+  /**
+   * Establishes the given number of connections in parallel, runs the given warm-up
+   * handler on each, and holds them all until every one of them is done.
+   * <br>
+   * <br>
+   * Since every connection is held at once, warming up an endpoint wrapping a
+   * {@link PooledConnectionFactory} fills its pool with that many connections, which
+   * should therefore not exceed its maximum size. The warm-up handler may run queries
+   * the endpoint will commonly run, priming the caches of the server and of the JVM.
+   * <br>
+   * <br>
+   * The connections are established on the endpoint's {@link Executor}, bypassing its
+   * bulkhead. The returned future completes once they are all released, and can serve
+   * as a readiness signal: it completes exceptionally with the first exception thrown
+   * while establishing or warming up a connection, the others being suppressed by it.
+   * Such exceptions are not sent to the {@link ExceptionHandler}.
+   * 
+   * @param connections the number of connections to establish
+   * @param onWarmUp    the handler to run on each connection
+   * @return the future completed once every connection is warmed up and released
+   */
+  public CompletableFuture<Void> warmUp(int connections, ConnectionHandler.OfVoid onWarmUp) {
+    if (connections < 1)
+      throw new IllegalArgumentException("Non-positive connections");
+    if (onWarmUp == null)
+      throw new IllegalArgumentException("Null warm-up handler");
+
+    List<CompletableFuture<Connection>> warmedUp = new ArrayList<>(connections);
+    for (int i = 0; i < connections; i++)
+      warmedUp.add(CompletableFuture.supplyAsync(() -> warmUpConnection(onWarmUp), executor));
+
+    return CompletableFuture.allOf(warmedUp.toArray(new CompletableFuture<?>[0]))
+      .handle((ignored, failure) -> releaseWarmedUp(warmedUp));
+  }
+
   private <T> T doConnect(ConnectionHandler<T> onConnect, ExceptionHandler onException) {
-    try (Connection connection = factory.newConnection()) {
+    try {
+      return execute(onConnect, null);
+    } catch (Exception e) {
+      onException.accept(e);
+
+      return onConnect.defaultValue();
+    }
+  }
+
+  private <T> T doConnectWithin(ConnectionHandler<T> onConnect, Duration timeout, ExceptionHandler onException) {
+    Deadline deadline = Deadline.start(timeout.toNanos());
+    T value = null;
+    Exception failure = null;
+    try {
+      value = execute(onConnect, deadline);
+    } catch (Exception e) {
+      failure = e;
+    }
+
+    boolean exceeded = deadline.finish() || failure != null && deadline.remainingNanos() <= 0;
+    if (exceeded && !(failure instanceof DeadlineExceededException))
+      failure = new DeadlineExceededException("Deadline of " + timeout.toMillis() + " ms exceeded", failure);
+    if (failure == null)
+      return value;
+
+    onException.accept(failure);
+    return onConnect.defaultValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T doConnectCoalesced(Object key, ConnectionHandler<T> onConnect, ExceptionHandler onException) {
+    CompletableFuture<Object> flight = new CompletableFuture<>();
+    CompletableFuture<Object> inFlight = flights.putIfAbsent(key, flight);
+
+    try {
+      if (inFlight == null)
+        return lead(key, flight, onConnect);
+
+      return (T) inFlight.get();
+    } catch (ExecutionException e) {
+      Throwable failure = e.getCause();
+      onException.accept(failure instanceof Exception ? (Exception) failure : new SqlEndpointException(failure));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      onException.accept(e);
+    } catch (Exception e) {
+      onException.accept(e);
+    }
+
+    return onConnect.defaultValue();
+  }
+
+  private <T> T lead(Object key, CompletableFuture<Object> flight, ConnectionHandler<T> onConnect) throws Exception {
+    try {
+      T value = execute(onConnect, null);
+      flight.complete(value);
+      return value;
+    } catch (Throwable t) {
+      flight.completeExceptionally(t);
+      throw t;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  private <T> T execute(ConnectionHandler<T> onConnect, Deadline deadline) throws Exception {
+    if (bulkhead == null)
+      return attempt(onConnect, deadline);
+
+    acquireSlot(deadline);
+    try {
+      return attempt(onConnect, deadline);
+    } finally {
+      bulkhead.release();
+    }
+  }
+
+  private void acquireSlot(Deadline deadline) throws Exception {
+    try {
+      if (deadline == null)
+        bulkhead.acquire();
+      else
+        bulkhead.acquireWithin(deadline.remainingNanos());
+    } catch (Exception e) {
+      if (listener != null)
+        listener.onConnect(-1, -1, -1, e);
+
+      throw e;
+    }
+  }
+
+  private <T> T attempt(ConnectionHandler<T> onConnect, Deadline deadline) throws Exception {
+    if (retryPolicy == null)
+      return handle(onConnect, deadline);
+
+    return retry(() -> handle(onConnect, deadline), deadline);
+  }
+
+  private <T> T retry(Callable<T> call, Deadline deadline) throws Exception {
+    long start = System.nanoTime();
+    for (int attempt = 1;; attempt++) {
+      try {
+        return call.call();
+      } catch (Exception e) {
+        long backoff = retryPolicy.backoffNanos(e, attempt, System.nanoTime() - start);
+        if (backoff < 0 || deadline != null && backoff >= deadline.remainingNanos())
+          throw e;
+
+        try {
+          TimeUnit.NANOSECONDS.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          e.addSuppressed(interrupted);
+          throw e;
+        }
+      }
+    }
+  }
+
+  private Connection acquireConnection() throws Exception {
+    Connection connection = newConnection();
+    return connection != null && leakWatchdog != null ? leakWatchdog.track(connection) : connection;
+  }
+
+  private Connection acquireConnection(Deadline deadline) throws Exception {
+    if (deadline == null)
+      return acquireConnection();
+
+    deadline.beginAcquisition();
+    Connection connection;
+    try {
+      connection = acquireConnection();
+    } catch (Throwable t) {
+      deadline.endAcquisition();
+      throw t;
+    }
+
+    if (deadline.endAcquisition()) {
+      if (connection != null)
+        connection.close();
+
+      throw new DeadlineExceededException("Deadline exceeded while acquiring a connection");
+    }
+
+    if (connection == null)
+      return null;
+
+    try {
+      return deadline.bind(connection, executor);
+    } catch (Throwable t) {
+      closeAfterFailure(connection, t);
+      throw t;
+    }
+  }
+
+  private Connection newConnection() throws Exception {
+    if (circuitBreaker == null)
+      return factory.newConnection();
+
+    CircuitBreaker.Window permit = circuitBreaker.acquirePermission();
+    long start = System.nanoTime();
+    Connection connection;
+    try {
+      connection = factory.newConnection();
+    } catch (Throwable t) {
+      circuitBreaker.onResult(permit, false, System.nanoTime() - start);
+      throw t;
+    }
+
+    circuitBreaker.onResult(permit, connection != null, System.nanoTime() - start);
+    return connection;
+  }
+
+  private <T> T handle(ConnectionHandler<T> onConnect, Deadline deadline) throws Exception {
+    if (listener != null || latencyMetrics != null && onConnect.name() != null)
+      return handleObserved(onConnect, deadline);
+
+    try (Connection connection = acquireConnection(deadline)) {
       if (connection == null)
-        throw new NoConnectionProvidedException();
+        throw exceptions.noConnectionProvided();
 
       return onConnect.handleAndReturn(connection);
+    }
+  }
+
+  private <T> T handleObserved(ConnectionHandler<T> onConnect, Deadline deadline) throws Exception {
+    long acquireNanos = -1;
+    long handleNanos = -1;
+    long closeNanos = -1;
+    Exception failure = null;
+    T value = null;
+
+    long start = System.nanoTime();
+    try {
+      Connection connection;
+      try {
+        connection = acquireConnection(deadline);
+      } finally {
+        acquireNanos = System.nanoTime() - start;
+      }
+      if (connection == null)
+        throw exceptions.noConnectionProvided();
+
+      start = System.nanoTime();
+      try {
+        value = onConnect.handleAndReturn(connection);
+      } catch (Throwable t) {
+        handleNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        closeAfterFailure(connection, t);
+        closeNanos = System.nanoTime() - start;
+        throw t;
+      }
+      handleNanos = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      connection.close();
+      closeNanos = System.nanoTime() - start;
     } catch (Exception e) {
-      onException.accept(e);
+      failure = e;
+    }
 
-      return onConnect.defaultValue();
+    if (latencyMetrics != null && onConnect.name() != null)
+      latencyMetrics.record(onConnect.name(), acquireNanos, handleNanos);
+    if (listener != null)
+      listener.onConnect(acquireNanos, handleNanos, closeNanos, failure);
+    if (failure != null)
+      throw failure;
+
+    return value;
+  }
+
+  private <T> ResultSetSpliterator<T> openRows(
+    String sql,
+    ParameterBinder binder,
+    RowMapper<T> mapper,
+    int fetchSize,
+    ExceptionHandler onException
+  ) throws Exception {
+    if (bulkhead != null)
+      acquireSlot(null);
+
+    try {
+      if (retryPolicy == null)
+        return openRowsOnce(sql, binder, mapper, fetchSize, onException);
+
+      return retry(() -> openRowsOnce(sql, binder, mapper, fetchSize, onException), null);
+    } catch (Throwable t) {
+      if (bulkhead != null)
+        bulkhead.release();
+
+      throw t;
+    }
+  }
+
+  private <T> ResultSetSpliterator<T> openRowsOnce(
+    String sql,
+    ParameterBinder binder,
+    RowMapper<T> mapper,
+    int fetchSize,
+    ExceptionHandler onException
+  ) throws Exception {
+    long start = System.nanoTime();
+    long acquired = -1;
+    Connection connection = null;
+    PreparedStatement statement = null;
+
+    try {
+      try {
+        connection = acquireConnection();
+      } finally {
+        acquired = System.nanoTime();
+      }
+      if (connection == null)
+        throw exceptions.noConnectionProvided();
+
+      statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      binder.bind(statement);
+      ResultSet resultSet = statement.executeQuery();
+
+      long acquireNanos = acquired - start;
+      long handleStart = acquired;
+      return new ResultSetSpliterator<>(
+        connection,
+        statement,
+        resultSet,
+        mapper,
+        onException,
+        (closeStart, closeEnd, failure) -> {
+          if (bulkhead != null)
+            bulkhead.release();
+          if (listener != null)
+            listener.onConnect(acquireNanos, closeStart - handleStart, closeEnd - closeStart, failure);
+        }
+      );
+    } catch (Throwable t) {
+      if (statement != null)
+        closeAfterFailure(statement, t);
+      if (connection != null)
+        closeAfterFailure(connection, t);
+      if (listener != null && t instanceof Exception)
+        listener.onConnect(acquired - start, -1, -1, (Exception) t);
+
+      throw t;
+    }
+  }
+
+  private Connection warmUpConnection(ConnectionHandler.OfVoid onWarmUp) {
+    try {
+      Connection connection = acquireConnection();
+      if (connection == null)
+        throw exceptions.noConnectionProvided();
+
+      try {
+        onWarmUp.handle(connection);
+      } catch (Throwable t) {
+        closeAfterFailure(connection, t);
+        throw t;
+      }
+
+      return connection;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private static Void releaseWarmedUp(List<CompletableFuture<Connection>> warmedUp) {
+    Throwable failure = null;
+    for (CompletableFuture<Connection> connection : warmedUp) {
+      try {
+        connection.join().close();
+      } catch (Exception e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (failure == null)
+          failure = cause;
+        else
+          failure.addSuppressed(cause);
+      }
+    }
+
+    if (failure != null)
+      throw new CompletionException(failure);
+
+    return null;
+  }
+
+  private static void closeAfterFailure(AutoCloseable resource, Throwable failure) {
+    try {
+      resource.close();
+    } catch (Throwable t) {
+      failure.addSuppressed(t);
+    }
+  }
+
+  private static final class DefaultExecutor {
+    private static final Executor INSTANCE = newDefaultExecutor();
+
+    private static Executor newDefaultExecutor() {
+      try {
+        return (ExecutorService) MethodHandles.publicLookup()
+          .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+          .invoke();
+      } catch (Throwable virtualThreadsUnavailable) {
+        return Executors.newCachedThreadPool(task -> {
+          Thread thread = new Thread(task, "sql-endpoint-async");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
     }
   }
 }
@@ -0,0 +1,272 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * A Builder of {@link SqlEndpoint}s.
+ * 
+ * @author John Daniel Regino
+ */
+public final class SqlEndpointBuilder {
+  final ConnectionFactory factory;
+  ExceptionHandler onException;
+  Executor executor;
+  int maxConcurrent;
+  int maxWaiting;
+  Duration waitTimeout;
+  SqlEndpointListener listener;
+  RetryPolicy retryPolicy;
+  CircuitBreakerPolicy circuitBreakerPolicy;
+  Duration leakThreshold;
+  double leakSamplingRate;
+  ExceptionHandler onLeak;
+  boolean stacklessExceptions;
+  double traceSamplingRate;
+  LatencyMetrics latencyMetrics;
+
+  SqlEndpointBuilder(ConnectionFactory factory) {
+    if (factory == null)
+      throw new IllegalArgumentException("Null factory");
+
+    this.factory = factory;
+    this.onException = ExceptionHandler.rethrow();
+    this.executor = null;
+    this.maxConcurrent = 0;
+    this.maxWaiting = 0;
+    this.waitTimeout = Duration.ZERO;
+    this.listener = null;
+    this.retryPolicy = null;
+    this.circuitBreakerPolicy = null;
+    this.leakThreshold = null;
+    this.leakSamplingRate = 0;
+    this.onLeak = null;
+    this.stacklessExceptions = false;
+    this.traceSamplingRate = 0;
+    this.latencyMetrics = null;
+  }
+
+  /**
+   * Sets the default {@link ExceptionHandler} of the endpoint.
+   * <br>
+   * <br>
+   * If not set, the endpoint will rethrow exceptions caught as
+   * {@link SqlEndpointException}s.
+   * 
+   * @param onException the default exception handler to use
+   * @return itself
+   */
+  public SqlEndpointBuilder exceptionHandler(ExceptionHandler onException) {
+    if (onException == null)
+      throw new IllegalArgumentException("Null default exception handler");
+
+    this.onException = onException;
+    return this;
+  }
+
+  /**
+   * Sets the {@link Executor} running the endpoint's <code>connectAsync</code> calls.
+   * <br>
+   * <br>
+   * If not set, the endpoint will run each call on its own virtual thread when the
+   * runtime supports them, or on a shared pool of daemon threads otherwise.
+   * 
+   * @param executor the executor to use
+   * @return itself
+   */
+  public SqlEndpointBuilder executor(Executor executor) {
+    if (executor == null)
+      throw new IllegalArgumentException("Null executor");
+
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Limits the number of calls the endpoint handles at once.
+   * <br>
+   * <br>
+   * Calls over <code>maxConcurrent</code> wait for a free slot, up to
+   * <code>maxWaiting</code> of them at a time and for at most <code>waitTimeout</code>
+   * each. Otherwise, they are rejected with a {@link BulkheadFullException}, which is
+   * sent to the exception handler before returning the connection handler's default value.
+   * 
+   * @param maxConcurrent the maximum number of calls handled at once
+   * @param maxWaiting    the maximum number of calls waiting for a free slot
+   * @param waitTimeout   the maximum time a call waits for a free slot
+   * @return itself
+   */
+  public SqlEndpointBuilder bulkhead(int maxConcurrent, int maxWaiting, Duration waitTimeout) {
+    if (maxConcurrent < 1)
+      throw new IllegalArgumentException("Non-positive maximum concurrent calls");
+    if (maxWaiting < 0)
+      throw new IllegalArgumentException("Negative maximum waiting calls");
+    if (waitTimeout == null)
+      throw new IllegalArgumentException("Null wait timeout");
+    if (waitTimeout.isNegative())
+      throw new IllegalArgumentException("Negative wait timeout");
+
+    this.maxConcurrent = maxConcurrent;
+    this.maxWaiting = maxWaiting;
+    this.waitTimeout = waitTimeout;
+    return this;
+  }
+
+  /**
+   * Sets the {@link SqlEndpointListener} receiving the timings and outcome of
+   * every call handled by the endpoint.
+   * 
+   * @param listener the listener to use
+   * @return itself
+   */
+  public SqlEndpointBuilder listener(SqlEndpointListener listener) {
+    if (listener == null)
+      throw new IllegalArgumentException("Null listener");
+
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Sets the policy used to retry calls that failed transiently.
+   * <br>
+   * <br>
+   * Each attempt acquires its own connection and counts as a separate call for the
+   * {@link SqlEndpointListener}, but retries happen within a single bulkhead permit.
+   * 
+   * @param retryPolicy the retry policy to use
+   * @return itself
+   */
+  public SqlEndpointBuilder retry(RetryPolicy retryPolicy) {
+    if (retryPolicy == null)
+      throw new IllegalArgumentException("Null retry policy");
+
+    this.retryPolicy = retryPolicy;
+    return this;
+  }
+
+  /**
+   * Sets the policy of the circuit breaker guarding connection acquisitions.
+   * <br>
+   * <br>
+   * Each built endpoint gets its own circuit breaker.
+   * 
+   * @param circuitBreakerPolicy the circuit breaker policy to use
+   * @return itself
+   */
+  public SqlEndpointBuilder circuitBreaker(CircuitBreakerPolicy circuitBreakerPolicy) {
+    if (circuitBreakerPolicy == null)
+      throw new IllegalArgumentException("Null circuit breaker policy");
+
+    this.circuitBreakerPolicy = circuitBreakerPolicy;
+    return this;
+  }
+
+  /**
+   * Reports connections held longer than <code>threshold</code> to <code>onLeak</code>
+   * as {@link ConnectionLeakException}s, once per connection.
+   * <br>
+   * <br>
+   * A background thread checks for such connections about twice per threshold and
+   * captures the stack trace of the holding thread only when it reports one. The
+   * acquisition site costs a stack trace per acquisition, so it is only captured for
+   * the given fraction of connections, from <code>0</code> for none to <code>1</code>
+   * for all of them.
+   * 
+   * @param threshold    the time a connection may be held before being reported
+   * @param samplingRate the fraction of acquisitions whose site is captured
+   * @param onLeak       the exception handler receiving the reports
+   * @return itself
+   */
+  public SqlEndpointBuilder leakDetection(Duration threshold, double samplingRate, ExceptionHandler onLeak) {
+    if (threshold == null)
+      throw new IllegalArgumentException("Null leak threshold");
+    if (threshold.isNegative() || threshold.isZero())
+      throw new IllegalArgumentException("Non-positive leak threshold");
+    if (!(samplingRate >= 0 && samplingRate <= 1))
+      throw new IllegalArgumentException("Sampling rate not between 0 and 1");
+    if (onLeak == null)
+      throw new IllegalArgumentException("Null leak exception handler");
+
+    this.leakThreshold = threshold;
+    this.leakSamplingRate = samplingRate;
+    this.onLeak = onLeak;
+    return this;
+  }
+
+  /**
+   * Makes the exceptions raised by the endpoint itself skip capturing their stack
+   * trace, which otherwise dominates the cost of failing calls while the database is
+   * unavailable.
+   * <br>
+   * <br>
+   * This applies to {@link NoConnectionProvidedException}s, {@link BulkheadFullException}s
+   * and {@link CircuitBreakerOpenException}s. Such exceptions are preallocated and shared
+   * between calls, and ignore suppressed exceptions added to them, except for the given
+   * fraction of them, from <code>0</code> for none to <code>1</code> for all, which are
+   * created with a full stack trace as usual.
+   * <br>
+   * <br>
+   * If the default exception handler is left as {@link ExceptionHandler#rethrow()}, the
+   * {@link SqlEndpointException}s it throws skip their stack trace as well, but keep
+   * their cause. Handlers passed to individual calls are used as given.
+   * 
+   * @param traceSamplingRate the fraction of exceptions created with a stack trace
+   * @return itself
+   */
+  public SqlEndpointBuilder stacklessExceptions(double traceSamplingRate) {
+    if (!(traceSamplingRate >= 0 && traceSamplingRate <= 1))
+      throw new IllegalArgumentException("Sampling rate not between 0 and 1");
+
+    this.stacklessExceptions = true;
+    this.traceSamplingRate = traceSamplingRate;
+    return this;
+  }
+
+  /**
+   * Sets the {@link LatencyMetrics} recording the latencies of the named handlers
+   * run by the endpoint.
+   * 
+   * @param latencyMetrics the latency metrics to record into
+   * @return itself
+   */
+  public SqlEndpointBuilder latencyMetrics(LatencyMetrics latencyMetrics) {
+    if (latencyMetrics == null)
+      throw new IllegalArgumentException("Null latency metrics");
+
+    this.latencyMetrics = latencyMetrics;
+    return this;
+  }
+
+  /**
+   * Build the resulting endpoint.
+   * 
+   * @return the resulting endpoint
+   */
+  public SqlEndpoint build() {
+    return SqlEndpoint.from(this);
+  }
+}
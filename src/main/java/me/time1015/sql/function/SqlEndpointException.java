@@ -70,4 +70,16 @@ public class SqlEndpointException extends RuntimeException {
   public SqlEndpointException(String message, Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Creates an instance of <code>SqlEndpointException</code>
+   * with a given cause and no message, which only records its stack trace if
+   * <code>writableStackTrace</code> is set.
+   * 
+   * @param cause              the underlying cause of the exception
+   * @param writableStackTrace whether the stack trace should be writable
+   */
+  SqlEndpointException(Throwable cause, boolean writableStackTrace) {
+    super(cause == null ? null : cause.toString(), cause, true, writableStackTrace);
+  }
 }
@@ -0,0 +1,71 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/**
+ * Represents a listener of the calls handled by a {@link SqlEndpoint}.
+ * <br>
+ * <br>
+ * The listener receives how long each phase of a call took, in nanoseconds:
+ * acquiring the connection from the {@link ConnectionFactory}, executing the
+ * {@link ConnectionHandler}, and closing the connection. Phases that were not
+ * reached because of an earlier failure are reported as <code>-1</code>. The
+ * acquisition time is reported even if acquiring failed, so that time spent waiting
+ * on an exhausted pool shows up, while calls rejected by the endpoint's bulkhead
+ * are reported with every phase at <code>-1</code>.
+ * <br>
+ * <br>
+ * The listener is called once per attempt rather than once per call: a call retried
+ * through a {@link RetryPolicy}, or sent to more than one endpoint by a
+ * {@link RoutingSqlEndpoint} or {@link ShardedSqlEndpoint}, reports each attempt.
+ * <br>
+ * <br>
+ * The listener is called on the thread handling the attempt, after the connection
+ * is closed and before the {@link ExceptionHandler} is called. Exceptions thrown
+ * by the listener are handled like any other exception of the call.
+ * <br>
+ * <br>
+ * Endpoints without a listener do not measure anything, unless they record named
+ * handlers into {@link LatencyMetrics}.
+ * 
+ * @author John Daniel Regino
+ */
+@FunctionalInterface
+public interface SqlEndpointListener {
+  /**
+   * Receives the timings and outcome of an attempt.
+   * <br>
+   * <br>
+   * A <code>null</code> exception means the attempt succeeded. Otherwise, the attempt
+   * failed with the given exception, which is either retried or sent to the exception
+   * handler, in which case the call will fall back to the connection handler's default
+   * value (unless the exception handler throws).
+   * 
+   * @param acquireNanos the time taken to acquire the connection, or <code>-1</code>
+   * @param handleNanos  the time taken by the connection handler, or <code>-1</code>
+   * @param closeNanos   the time taken to close the connection, or <code>-1</code>
+   * @param exception    the exception that made the call fail, or <code>null</code>
+   */
+  void onConnect(long acquireNanos, long handleNanos, long closeNanos, Exception exception);
+}
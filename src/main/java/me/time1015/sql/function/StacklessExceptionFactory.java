@@ -0,0 +1,75 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import me.time1015.sql.function.endpoint.ExceptionFactory;
+
+final class StacklessExceptionFactory extends ExceptionFactory {
+  private final double traceSamplingRate;
+  private final NoConnectionProvidedException noConnectionProvided;
+  private final ConcurrentHashMap<String, BulkheadFullException> bulkheadFull;
+  private final ConcurrentHashMap<String, CircuitBreakerOpenException> circuitBreakerOpen;
+
+  StacklessExceptionFactory(double traceSamplingRate) {
+    this.traceSamplingRate = traceSamplingRate;
+    this.noConnectionProvided = new NoConnectionProvidedException(null, false);
+    this.bulkheadFull = new ConcurrentHashMap<>();
+    this.circuitBreakerOpen = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public NoConnectionProvidedException noConnectionProvided() {
+    return sampled() ? super.noConnectionProvided() : noConnectionProvided;
+  }
+
+  @Override
+  public BulkheadFullException bulkheadFull(String message) {
+    if (sampled())
+      return super.bulkheadFull(message);
+
+    // messages are constants, so each one maps to a single shared instance
+    return bulkheadFull.computeIfAbsent(message, m -> new BulkheadFullException(m, false));
+  }
+
+  @Override
+  public CircuitBreakerOpenException circuitBreakerOpen(String message) {
+    if (sampled())
+      return super.circuitBreakerOpen(message);
+
+    return circuitBreakerOpen.computeIfAbsent(message, m -> new CircuitBreakerOpenException(m, false));
+  }
+
+  @Override
+  public SqlEndpointException rethrown(Exception cause) {
+    // each one has its own cause, so only the stack trace is saved
+    return sampled() ? super.rethrown(cause) : new SqlEndpointException(cause, false);
+  }
+
+  private boolean sampled() {
+    return traceSamplingRate > 0 && ThreadLocalRandom.current().nextDouble() < traceSamplingRate;
+  }
+}
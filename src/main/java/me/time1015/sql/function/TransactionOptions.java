@@ -0,0 +1,88 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+
+/**
+ * Represents the settings of a transaction started by
+ * {@link SqlEndpoint#connectInTransaction(ConnectionHandler, TransactionOptions)}.
+ * <br>
+ * <br>
+ * Settings left unspecified keep the connection's current value. Instances are
+ * immutable: each setter returns a new instance.
+ * 
+ * @author John Daniel Regino
+ */
+public final class TransactionOptions {
+  static final int UNCHANGED_ISOLATION = -1;
+
+  private static final TransactionOptions DEFAULTS = new TransactionOptions(UNCHANGED_ISOLATION, null);
+
+  final int isolation;
+  final Boolean readOnly;
+
+  private TransactionOptions(int isolation, Boolean readOnly) {
+    this.isolation = isolation;
+    this.readOnly = readOnly;
+  }
+
+  /**
+   * Returns the options keeping the connection's current settings.
+   * 
+   * @return the default options
+   */
+  public static TransactionOptions defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Returns a copy of these options with the given isolation level.
+   * 
+   * @param isolation one of the <code>TRANSACTION_*</code> levels of {@link Connection},
+   *                  except <code>TRANSACTION_NONE</code>
+   * @return the resulting options
+   */
+  public TransactionOptions isolation(int isolation) {
+    switch (isolation) {
+      case Connection.TRANSACTION_READ_UNCOMMITTED:
+      case Connection.TRANSACTION_READ_COMMITTED:
+      case Connection.TRANSACTION_REPEATABLE_READ:
+      case Connection.TRANSACTION_SERIALIZABLE:
+        return new TransactionOptions(isolation, readOnly);
+      default:
+        throw new IllegalArgumentException("Invalid isolation level");
+    }
+  }
+
+  /**
+   * Returns a copy of these options with the given read-only hint.
+   * 
+   * @param readOnly whether the transaction only reads data
+   * @return the resulting options
+   */
+  public TransactionOptions readOnly(boolean readOnly) {
+    return new TransactionOptions(isolation, readOnly);
+  }
+}
@@ -0,0 +1,121 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+
+/**
+ * Runs a {@link ConnectionHandler} in a transaction, and restores the settings
+ * of the connection it changed afterwards.
+ * 
+ * @author John Daniel Regino
+ */
+final class TransactionalHandler<T> implements ConnectionHandler<T> {
+  private final ConnectionHandler<T> onConnect;
+  private final TransactionOptions options;
+
+  TransactionalHandler(ConnectionHandler<T> onConnect, TransactionOptions options) {
+    this.onConnect = onConnect;
+    this.options = options;
+  }
+
+  @Override
+  public T handleAndReturn(Connection connection) throws Exception {
+    int previousIsolation = TransactionOptions.UNCHANGED_ISOLATION;
+    boolean readOnlyChanged = false;
+    boolean autoCommitChanged = false;
+    boolean inTransaction = false;
+    Throwable failure = null;
+    try {
+      if (options.isolation != TransactionOptions.UNCHANGED_ISOLATION) {
+        int isolation = connection.getTransactionIsolation();
+        if (isolation != options.isolation) {
+          connection.setTransactionIsolation(options.isolation);
+          previousIsolation = isolation;
+        }
+      }
+      if (options.readOnly != null && connection.isReadOnly() != options.readOnly) {
+        connection.setReadOnly(options.readOnly);
+        readOnlyChanged = true;
+      }
+      if (connection.getAutoCommit()) {
+        connection.setAutoCommit(false);
+        autoCommitChanged = true;
+      }
+      inTransaction = true;
+
+      T value = onConnect.handleAndReturn(connection);
+      connection.commit();
+      return value;
+    } catch (Throwable t) {
+      failure = t;
+      if (inTransaction)
+        rollback(connection, t);
+
+      throw t;
+    } finally {
+      restore(connection, autoCommitChanged, readOnlyChanged, previousIsolation, failure);
+    }
+  }
+
+  @Override
+  public T defaultValue() {
+    return onConnect.defaultValue();
+  }
+
+  @Override
+  public String name() {
+    return onConnect.name();
+  }
+
+  private static void rollback(Connection connection, Throwable failure) {
+    try {
+      connection.rollback();
+    } catch (Throwable t) {
+      failure.addSuppressed(t);
+    }
+  }
+
+  private void restore(
+    Connection connection,
+    boolean autoCommitChanged,
+    boolean readOnlyChanged,
+    int previousIsolation,
+    Throwable failure
+  ) throws Exception {
+    try {
+      if (autoCommitChanged)
+        connection.setAutoCommit(true);
+      if (readOnlyChanged)
+        connection.setReadOnly(!options.readOnly);
+      if (previousIsolation != TransactionOptions.UNCHANGED_ISOLATION)
+        connection.setTransactionIsolation(previousIsolation);
+    } catch (Exception e) {
+      if (failure == null)
+        throw e;
+
+      failure.addSuppressed(e);
+    }
+  }
+}
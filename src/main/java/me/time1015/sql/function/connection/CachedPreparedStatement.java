@@ -0,0 +1,72 @@
+package me.time1015.sql.function.connection;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+final class CachedPreparedStatement extends DelegatingPreparedStatement {
+  private static final AtomicIntegerFieldUpdater<CachedPreparedStatement> CLOSED =
+    AtomicIntegerFieldUpdater.newUpdater(CachedPreparedStatement.class, "closed");
+
+  private final StatementCache cache;
+  private final String sql;
+  private final StatementCache.Entry entry;
+  private final Connection owner;
+  private volatile int closed;
+
+  CachedPreparedStatement(StatementCache cache, String sql, StatementCache.Entry entry, Connection owner) {
+    this.cache = cache;
+    this.sql = sql;
+    this.entry = entry;
+    this.owner = owner;
+  }
+
+  @Override
+  protected PreparedStatement delegate() throws SQLException {
+    if (closed != 0)
+      throw new SQLException("Statement closed");
+
+    return entry.statement;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    delegate();
+    return owner;
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    return closed != 0 || entry.statement.isClosed();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (CLOSED.compareAndSet(this, 0, 1))
+      cache.release(sql, entry);
+  }
+}
@@ -0,0 +1,122 @@
+package me.time1015.sql.function.connection;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class StatementCache {
+  private final Connection connection;
+  private final Map<String, Entry> idle;
+
+  public StatementCache(Connection connection, int maxSize) {
+    this.connection = connection;
+    this.idle = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, StatementCache.Entry> eldest) {
+        if (size() <= maxSize)
+          return false;
+
+        closeQuietly(eldest.getValue().statement);
+        return true;
+      }
+    };
+  }
+
+  public PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+    Entry entry = idle.remove(sql);
+    if (entry == null || entry.statement.isClosed())
+      entry = new Entry(connection.prepareStatement(sql));
+
+    return new CachedPreparedStatement(this, sql, entry, owner);
+  }
+
+  public int size() {
+    return idle.size();
+  }
+
+  public void clear() {
+    idle.values().forEach(entry -> closeQuietly(entry.statement));
+    idle.clear();
+  }
+
+  void release(String sql, Entry entry) {
+    try {
+      if (entry.statement.isClosed())
+        return;
+
+      entry.reset();
+    } catch (SQLException e) {
+      closeQuietly(entry.statement);
+      return;
+    }
+
+    if (idle.putIfAbsent(sql, entry) != null)
+      closeQuietly(entry.statement);
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // the statement is dropped from the cache either way
+    }
+  }
+
+  static final class Entry {
+    final PreparedStatement statement;
+    private final int queryTimeout;
+    private final int fetchSize;
+    private final int maxRows;
+    private final int fetchDirection;
+
+    private Entry(PreparedStatement statement) throws SQLException {
+      this.statement = statement;
+      this.queryTimeout = statement.getQueryTimeout();
+      this.fetchSize = statement.getFetchSize();
+      this.maxRows = statement.getMaxRows();
+      this.fetchDirection = statement.getFetchDirection();
+    }
+
+    private void reset() throws SQLException {
+      statement.clearParameters();
+      statement.clearBatch();
+      statement.clearWarnings();
+
+      if (statement.getQueryTimeout() != queryTimeout)
+        statement.setQueryTimeout(queryTimeout);
+      if (statement.getFetchSize() != fetchSize)
+        statement.setFetchSize(fetchSize);
+      if (statement.getMaxRows() != maxRows)
+        statement.setMaxRows(maxRows);
+      if (statement.getFetchDirection() != fetchDirection)
+        statement.setFetchDirection(fetchDirection);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.time1015.sql.function.BulkheadFullException;
+
+public final class Bulkhead {
+  private final Semaphore permits;
+  private final AtomicInteger waiting;
+  private final int maxWaiting;
+  private final long waitTimeoutNanos;
+  private final ExceptionFactory exceptions;
+
+  public Bulkhead(int maxConcurrent, int maxWaiting, long waitTimeoutNanos) {
+    this(maxConcurrent, maxWaiting, waitTimeoutNanos, ExceptionFactory.STANDARD);
+  }
+
+  public Bulkhead(int maxConcurrent, int maxWaiting, long waitTimeoutNanos, ExceptionFactory exceptions) {
+    this.permits = new Semaphore(maxConcurrent);
+    this.waiting = new AtomicInteger();
+    this.maxWaiting = maxWaiting;
+    this.waitTimeoutNanos = waitTimeoutNanos;
+    this.exceptions = exceptions;
+  }
+
+  public void acquire() {
+    acquireWithin(waitTimeoutNanos);
+  }
+
+  public void acquireWithin(long maxWaitNanos) {
+    if (permits.tryAcquire())
+      return;
+
+    try {
+      if (waiting.incrementAndGet() > maxWaiting)
+        throw exceptions.bulkheadFull("Too many waiting calls");
+      if (!permits.tryAcquire(Math.min(waitTimeoutNanos, maxWaitNanos), TimeUnit.NANOSECONDS))
+        throw exceptions.bulkheadFull("Timed out waiting for a free call slot");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BulkheadFullException("Interrupted while waiting for a free call slot", e);
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  public void release() {
+    permits.release();
+  }
+
+  public int availableCalls() {
+    return permits.availablePermits();
+  }
+}
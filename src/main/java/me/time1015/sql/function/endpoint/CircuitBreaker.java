@@ -0,0 +1,211 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public final class CircuitBreaker {
+  private static final int CLOSED = 0;
+  private static final int OPEN = 1;
+  private static final int HALF_OPEN = 2;
+
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final double slowCallRateThreshold;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final int halfOpenCalls;
+  private final LongSupplier clock;
+  private final ExceptionFactory exceptions;
+
+  private volatile Window window;
+  private long openedAt;
+  private int halfOpenPermits;
+  private int halfOpenResults;
+
+  public CircuitBreaker(
+    int windowSize,
+    int minimumCalls,
+    double failureRateThreshold,
+    double slowCallRateThreshold,
+    long slowCallNanos,
+    long openNanos,
+    int halfOpenCalls,
+    LongSupplier clock
+  ) {
+    this(
+      windowSize,
+      minimumCalls,
+      failureRateThreshold,
+      slowCallRateThreshold,
+      slowCallNanos,
+      openNanos,
+      halfOpenCalls,
+      clock,
+      ExceptionFactory.STANDARD
+    );
+  }
+
+  public CircuitBreaker(
+    int windowSize,
+    int minimumCalls,
+    double failureRateThreshold,
+    double slowCallRateThreshold,
+    long slowCallNanos,
+    long openNanos,
+    int halfOpenCalls,
+    LongSupplier clock,
+    ExceptionFactory exceptions
+  ) {
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallNanos = slowCallNanos;
+    this.openNanos = openNanos;
+    this.halfOpenCalls = halfOpenCalls;
+    this.clock = clock;
+    this.exceptions = exceptions;
+    this.windowSize = windowSize;
+    this.window = new Window(CLOSED, windowSize);
+  }
+
+  public Window acquirePermission() {
+    Window window = this.window;
+    if (window.state == CLOSED)
+      return window;
+
+    return acquireTrialPermission();
+  }
+
+  public void onResult(Window permit, boolean success, long elapsedNanos) {
+    // results of calls admitted under an earlier state or window are dropped
+    Window window = this.window;
+    if (permit != window)
+      return;
+
+    boolean slow = elapsedNanos > slowCallNanos;
+    if (window.state != CLOSED) {
+      onTrialResult(window, success, slow);
+      return;
+    }
+
+    window.record(success, slow);
+    if (window.count() >= minimumCalls && isOverThresholds(window))
+      trip(window);
+  }
+
+  public boolean isOpen() {
+    return window.state == OPEN;
+  }
+
+  public boolean isHalfOpen() {
+    return window.state == HALF_OPEN;
+  }
+
+  private synchronized Window acquireTrialPermission() {
+    if (window.state == CLOSED)
+      return window;
+
+    if (window.state == OPEN) {
+      if (clock.getAsLong() - openedAt < openNanos)
+        throw exceptions.circuitBreakerOpen("Circuit breaker is open");
+
+      transition(HALF_OPEN);
+    }
+
+    if (halfOpenPermits == 0)
+      throw exceptions.circuitBreakerOpen("Circuit breaker is half-open and has no trial calls left");
+
+    halfOpenPermits--;
+    return window;
+  }
+
+  private synchronized void onTrialResult(Window permit, boolean success, boolean slow) {
+    if (window != permit)
+      return;
+
+    permit.record(success, slow);
+    if (++halfOpenResults == halfOpenCalls)
+      transition(isOverThresholds(permit) ? OPEN : CLOSED);
+  }
+
+  private synchronized void trip(Window window) {
+    if (this.window == window)
+      transition(OPEN);
+  }
+
+  private boolean isOverThresholds(Window window) {
+    int count = window.count();
+    return window.failures.get() >= failureRateThreshold * count
+      || window.slowCalls.get() >= slowCallRateThreshold * count;
+  }
+
+  private void transition(int state) {
+    this.halfOpenPermits = halfOpenCalls;
+    this.halfOpenResults = 0;
+    if (state == OPEN)
+      openedAt = clock.getAsLong();
+
+    // the window carries its state, so both are published together
+    this.window = new Window(state, windowSize);
+  }
+
+  public static final class Window {
+    private final int state;
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong recorded;
+    private final AtomicInteger failures;
+    private final AtomicInteger slowCalls;
+
+    private Window(int state, int size) {
+      this.state = state;
+      this.outcomes = new AtomicIntegerArray(size);
+      this.recorded = new AtomicLong();
+      this.failures = new AtomicInteger();
+      this.slowCalls = new AtomicInteger();
+    }
+
+    private void record(boolean success, boolean slow) {
+      int outcome = (success ? 0 : 1) | (slow ? 2 : 0);
+      int slot = (int) (recorded.getAndIncrement() % outcomes.length());
+      int evicted = outcomes.getAndSet(slot, outcome);
+
+      int failureDelta = (outcome & 1) - (evicted & 1);
+      if (failureDelta != 0)
+        failures.addAndGet(failureDelta);
+
+      int slowDelta = (outcome >>> 1) - (evicted >>> 1);
+      if (slowDelta != 0)
+        slowCalls.addAndGet(slowDelta);
+    }
+
+    private int count() {
+      return (int) Math.min(recorded.get(), outcomes.length());
+    }
+  }
+}
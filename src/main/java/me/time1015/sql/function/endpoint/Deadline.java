@@ -0,0 +1,287 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import me.time1015.sql.function.connection.DelegatingConnection;
+
+public final class Deadline {
+  private static final ScheduledThreadPoolExecutor SCHEDULER = newScheduler();
+
+  private static final int IDLE = 0;
+  private static final int ACQUIRING = 1;
+  private static final int RUNNING = 2;
+  private static final int EXPIRED = 3;
+  private static final int FINISHED = 4;
+
+  private final long deadlineNanos;
+  private final LongSupplier clock;
+  private final List<Statement> statements;
+  private int state;
+  private boolean interrupted;
+  private Thread acquirer;
+  private ScheduledFuture<?> expiry;
+
+  public Deadline(long timeoutNanos, LongSupplier clock) {
+    this.deadlineNanos = clock.getAsLong() + timeoutNanos;
+    this.clock = clock;
+    this.statements = new ArrayList<>();
+    this.state = IDLE;
+  }
+
+  public static Deadline start(long timeoutNanos) {
+    Deadline deadline = new Deadline(timeoutNanos, System::nanoTime);
+    deadline.expiry = SCHEDULER.schedule(deadline::expire, timeoutNanos, TimeUnit.NANOSECONDS);
+    return deadline;
+  }
+
+  private static ScheduledThreadPoolExecutor newScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+      Thread thread = new Thread(task, "sql-endpoint-deadline");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  public long remainingNanos() {
+    return deadlineNanos - clock.getAsLong();
+  }
+
+  public synchronized boolean isExpired() {
+    return state == EXPIRED || remainingNanos() <= 0;
+  }
+
+  public synchronized void beginAcquisition() throws SQLTimeoutException {
+    if (isExpired())
+      throw new SQLTimeoutException("Deadline exceeded before acquiring a connection");
+
+    state = ACQUIRING;
+    acquirer = Thread.currentThread();
+  }
+
+  public synchronized boolean endAcquisition() {
+    acquirer = null;
+    if (state != EXPIRED) {
+      state = RUNNING;
+      return false;
+    }
+
+    // clears the interrupt sent by expire
+    Thread.interrupted();
+    return true;
+  }
+
+  public Connection bind(Connection connection, Executor executor) throws SQLException {
+    int networkTimeout = -1;
+    try {
+      networkTimeout = connection.getNetworkTimeout();
+      connection.setNetworkTimeout(executor, (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos())));
+    } catch (SQLFeatureNotSupportedException ignored) {
+      // the driver cannot bound its network calls, the query timeouts still apply
+      networkTimeout = -1;
+    }
+
+    return new BoundConnection(connection, executor, networkTimeout);
+  }
+
+  public synchronized void expire() {
+    if (state == ACQUIRING) {
+      acquirer.interrupt();
+      interrupted = true;
+    }
+    if (state == RUNNING) {
+      // statements the handler already closed have nothing left to cancel
+      for (Statement statement : statements)
+        if (!isClosed(statement)) {
+          cancel(statement);
+          interrupted = true;
+        }
+    }
+
+    if (state != FINISHED)
+      state = EXPIRED;
+  }
+
+  public synchronized boolean finish() {
+    state = FINISHED;
+    statements.clear();
+    if (expiry != null)
+      expiry.cancel(false);
+
+    return interrupted;
+  }
+
+  private <S extends Statement> S register(S statement) throws SQLException {
+    long remaining = remainingNanos();
+    synchronized (this) {
+      if (state == EXPIRED || remaining <= 0) {
+        statement.close();
+        throw new SQLTimeoutException("Deadline exceeded before running a statement");
+      }
+
+      statements.add(statement);
+    }
+
+    statement.setQueryTimeout((int) Math.max(1, (remaining + 999_999_999) / 1_000_000_000));
+    return statement;
+  }
+
+  private synchronized void release() {
+    statements.clear();
+    if (state == RUNNING)
+      state = IDLE;
+  }
+
+  private static boolean isClosed(Statement statement) {
+    try {
+      return statement.isClosed();
+    } catch (SQLException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static void cancel(Statement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException | RuntimeException ignored) {
+      // the network timeout still bounds the statement
+    }
+  }
+
+  private final class BoundConnection extends DelegatingConnection {
+    private final Connection connection;
+    private final Executor executor;
+    private final int networkTimeout;
+
+    private BoundConnection(Connection connection, Executor executor, int networkTimeout) {
+      this.connection = connection;
+      this.executor = executor;
+      this.networkTimeout = networkTimeout;
+    }
+
+    @Override
+    protected Connection delegate() {
+      return connection;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+      return register(connection.createStatement());
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+      return register(connection.prepareStatement(sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+      return register(connection.prepareCall(sql));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+      return register(connection.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+      throws SQLException {
+      return register(connection.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+      return register(connection.prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+      throws SQLException {
+      return register(connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(
+      String sql,
+      int resultSetType,
+      int resultSetConcurrency,
+      int resultSetHoldability
+    ) throws SQLException {
+      return register(connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public CallableStatement prepareCall(
+      String sql,
+      int resultSetType,
+      int resultSetConcurrency,
+      int resultSetHoldability
+    ) throws SQLException {
+      return register(connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+      return register(connection.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+      return register(connection.prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+      return register(connection.prepareStatement(sql, columnNames));
+    }
+
+    @Override
+    public void close() throws SQLException {
+      release();
+      try {
+        if (networkTimeout >= 0 && !connection.isClosed())
+          connection.setNetworkTimeout(executor, networkTimeout);
+      } finally {
+        connection.close();
+      }
+    }
+  }
+}
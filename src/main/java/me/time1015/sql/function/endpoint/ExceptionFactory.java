@@ -0,0 +1,51 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import me.time1015.sql.function.BulkheadFullException;
+import me.time1015.sql.function.CircuitBreakerOpenException;
+import me.time1015.sql.function.NoConnectionProvidedException;
+import me.time1015.sql.function.SqlEndpointException;
+
+public class ExceptionFactory {
+  public static final ExceptionFactory STANDARD = new ExceptionFactory();
+
+  protected ExceptionFactory() {}
+
+  public NoConnectionProvidedException noConnectionProvided() {
+    return new NoConnectionProvidedException();
+  }
+
+  public BulkheadFullException bulkheadFull(String message) {
+    return new BulkheadFullException(message);
+  }
+
+  public CircuitBreakerOpenException circuitBreakerOpen(String message) {
+    return new CircuitBreakerOpenException(message);
+  }
+
+  public SqlEndpointException rethrown(Exception cause) {
+    return new SqlEndpointException(cause);
+  }
+}
@@ -0,0 +1,161 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import me.time1015.sql.function.ConnectionLeakException;
+import me.time1015.sql.function.connection.DelegatingConnection;
+
+public final class LeakWatchdog {
+  private static final long MIN_CHECK_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+    Thread thread = new Thread(task, "sql-endpoint-leak-watchdog");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final long thresholdNanos;
+  private final double samplingRate;
+  private final Consumer<Exception> onLeak;
+  private final LongSupplier clock;
+  private final Set<TrackedConnection> held;
+
+  public LeakWatchdog(long thresholdNanos, double samplingRate, Consumer<Exception> onLeak, LongSupplier clock) {
+    this.thresholdNanos = thresholdNanos;
+    this.samplingRate = samplingRate;
+    this.onLeak = onLeak;
+    this.clock = clock;
+    this.held = ConcurrentHashMap.newKeySet();
+  }
+
+  public static LeakWatchdog start(long thresholdNanos, double samplingRate, Consumer<Exception> onLeak) {
+    LeakWatchdog watchdog = new LeakWatchdog(thresholdNanos, samplingRate, onLeak, System::nanoTime);
+    long period = Math.max(MIN_CHECK_PERIOD_NANOS, thresholdNanos / 2);
+    new PeriodicCheck(watchdog).schedule(period);
+    return watchdog;
+  }
+
+  public Connection track(Connection connection) {
+    Throwable acquisition = samplingRate > 0 && ThreadLocalRandom.current().nextDouble() < samplingRate
+      ? new Throwable("Connection acquired here")
+      : null;
+
+    TrackedConnection tracked = new TrackedConnection(connection, Thread.currentThread(), clock.getAsLong(), acquisition);
+    held.add(tracked);
+    return tracked;
+  }
+
+  public int heldCount() {
+    return held.size();
+  }
+
+  public void check() {
+    long now = clock.getAsLong();
+    for (TrackedConnection connection : held) {
+      long heldNanos = now - connection.acquiredAt;
+      if (connection.reported || heldNanos < thresholdNanos)
+        continue;
+
+      connection.reported = true;
+      ConnectionLeakException leak = new ConnectionLeakException(
+        "Connection held for " + TimeUnit.NANOSECONDS.toMillis(heldNanos) + " ms by " + connection.holder.getName(),
+        connection.acquisition
+      );
+      leak.setStackTrace(connection.holder.getStackTrace());
+
+      try {
+        onLeak.accept(leak);
+      } catch (RuntimeException ignored) {
+        // the watchdog keeps checking other connections
+      }
+    }
+  }
+
+  private final class TrackedConnection extends DelegatingConnection {
+    private final Connection connection;
+    private final Thread holder;
+    private final long acquiredAt;
+    private final Throwable acquisition;
+    private volatile boolean reported;
+
+    private TrackedConnection(Connection connection, Thread holder, long acquiredAt, Throwable acquisition) {
+      this.connection = connection;
+      this.holder = holder;
+      this.acquiredAt = acquiredAt;
+      this.acquisition = acquisition;
+    }
+
+    @Override
+    protected Connection delegate() {
+      return connection;
+    }
+
+    @Override
+    public void close() throws SQLException {
+      held.remove(this);
+      connection.close();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+      held.remove(this);
+      connection.abort(executor);
+    }
+  }
+
+  private static final class PeriodicCheck implements Runnable {
+    private final WeakReference<LeakWatchdog> watchdog;
+    private volatile ScheduledFuture<?> schedule;
+
+    private PeriodicCheck(LeakWatchdog watchdog) {
+      this.watchdog = new WeakReference<>(watchdog);
+    }
+
+    private void schedule(long periodNanos) {
+      schedule = SCHEDULER.scheduleAtFixedRate(this, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void run() {
+      LeakWatchdog current = watchdog.get();
+      if (current != null)
+        current.check();
+      else if (schedule != null)
+        schedule.cancel(false);
+    }
+  }
+}
@@ -23,34 +23,144 @@ package me.time1015.sql.function.exception;
  * THE SOFTWARE.
  */
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
-import java.util.Objects;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
 import me.time1015.sql.function.ExceptionHandler;
+import me.time1015.sql.function.ExceptionsSuppressedException;
 
 public final class MappedExceptionHandler implements ExceptionHandler {
-  private final Map<Class<? extends Exception>, Consumer<Exception>> map;
+  private static final int MAX_CAUSE_DEPTH = 32;
+  private static final Consumer<Exception> UNMATCHED = e -> {};
 
-  public MappedExceptionHandler(Map<Class<? extends Exception>, Consumer<Exception>> map) {
+  private final Map<Class<?>, Consumer<Exception>> map;
+  private final Consumer<Exception> defaultHandler;
+  private final boolean matchCauses;
+  private final ClassValue<Consumer<Exception>> resolved;
+
+  public MappedExceptionHandler(Map<? extends Class<?>, ? extends Consumer<Exception>> map) {
+    this(map, false);
+  }
+
+  public MappedExceptionHandler(Map<? extends Class<?>, ? extends Consumer<Exception>> map, boolean matchCauses) {
     if (map == null)
       throw new IllegalArgumentException("Null map");
 
     this.map = Map.copyOf(map);
+    this.defaultHandler = this.map.getOrDefault(Exception.class, this::throwUncaught);
+    this.matchCauses = matchCauses;
+    this.resolved = new ClassValue<>() {
+      @Override
+      protected Consumer<Exception> computeValue(Class<?> type) {
+        Class<?> matched = matchingType(type);
+        return matched != null ? MappedExceptionHandler.this.map.get(matched) : UNMATCHED;
+      }
+    };
+  }
+
+  public boolean handles(Exception exception) {
+    return map.containsKey(Exception.class) || matchingLink(exception) != null;
+  }
+
+  public void handleSummary(ExceptionsSuppressedException summary) {
+    Throwable sample = summary.getCause();
+    Throwable link = sample instanceof Exception ? matchingLink((Exception) sample) : null;
+    if (link == null) {
+      defaultHandler.accept(summary);
+      return;
+    }
+
+    Class<?> type = matchingType(link.getClass());
+    if (type.isInstance(summary)) {
+      map.get(type).accept(summary);
+      return;
+    }
+
+    // the handler only takes its own type, and samples may be shared, so the summary gets a fresh carrier
+    Exception carrier = carry(link.getClass(), summary);
+    if (carrier != null)
+      map.get(type).accept(carrier);
+    else
+      defaultHandler.accept(summary);
   }
 
   @Override
   public void handle(Exception exception) {
-    matchingHandlerFor(exception.getClass()).accept(exception);
+    if (matchCauses) {
+      handleByCauses(exception);
+      return;
+    }
+
+    Consumer<Exception> handler = resolved.get(exception.getClass());
+    (handler != UNMATCHED ? handler : defaultHandler).accept(exception);
   }
 
-  private Consumer<Exception> matchingHandlerFor(Class<? extends Exception> type) {
-    return lineageOf(type).map(map::get).filter(Objects::nonNull).findFirst().orElse(this::throwUncaught);
+  private void handleByCauses(Exception exception) {
+    Throwable link = exception;
+    for (int depth = 0; link != null && depth < MAX_CAUSE_DEPTH; link = link.getCause(), depth++) {
+      if (!(link instanceof Exception))
+        continue;
+
+      Consumer<Exception> handler = resolved.get(link.getClass());
+      if (handler != UNMATCHED) {
+        handler.accept((Exception) link);
+        return;
+      }
+    }
+
+    defaultHandler.accept(exception);
+  }
+
+  private Throwable matchingLink(Exception exception) {
+    if (!matchCauses)
+      return resolved.get(exception.getClass()) != UNMATCHED ? exception : null;
+
+    Throwable link = exception;
+    for (int depth = 0; link != null && depth < MAX_CAUSE_DEPTH; link = link.getCause(), depth++)
+      if (link instanceof Exception && resolved.get(link.getClass()) != UNMATCHED)
+        return link;
+
+    return null;
+  }
+
+  private Class<?> matchingType(Class<?> type) {
+    for (Class<?> current = type; current != Exception.class; current = current.getSuperclass()) {
+      if (map.containsKey(current))
+        return current;
+
+      Class<?> matched = matchingInterface(current);
+      if (matched != null)
+        return matched;
+    }
+
+    return null;
+  }
+
+  private Class<?> matchingInterface(Class<?> type) {
+    Deque<Class<?>> pending = new ArrayDeque<>();
+    for (Class<?> declared : type.getInterfaces())
+      pending.add(declared);
+
+    while (!pending.isEmpty()) {
+      Class<?> current = pending.poll();
+      if (map.containsKey(current))
+        return current;
+
+      for (Class<?> inherited : current.getInterfaces())
+        pending.add(inherited);
+    }
+
+    return null;
   }
 
-  private Stream<Class<?>> lineageOf(Class<? extends Exception> type) {
-    return Stream.iterate(type, Exception.class::isAssignableFrom, Class::getSuperclass);
+  private static Exception carry(Class<?> type, ExceptionsSuppressedException summary) {
+    try {
+      return (Exception) type.getConstructor(String.class, Throwable.class).newInstance(summary.getMessage(), summary);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
   }
 
   private void throwUncaught(Exception exception) {
@@ -0,0 +1,281 @@
+package me.time1015.sql.function.exception;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.lang.ref.WeakReference;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import me.time1015.sql.function.ExceptionHandler;
+import me.time1015.sql.function.ExceptionsSuppressedException;
+
+public final class RateLimitedExceptionHandler implements ExceptionHandler {
+  private static final int TOP_FRAMES = 3;
+  private static final int MAX_CAUSE_DEPTH = 32;
+  private static final int MAX_FINGERPRINTS = 1024;
+  private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+    Thread thread = new Thread(task, "sql-exception-rate-limiter");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Consumer<Exception> handler;
+  private final Predicate<Exception> limited;
+  private final Consumer<ExceptionsSuppressedException> summaries;
+  private final int maxPerWindow;
+  private final long windowNanos;
+  private final LongSupplier clock;
+  private final ConcurrentHashMap<Fingerprint, AtomicReference<Window>> windows;
+
+  public RateLimitedExceptionHandler(
+    Consumer<Exception> handler,
+    int maxPerWindow,
+    long windowNanos,
+    LongSupplier clock
+  ) {
+    this(handler, e -> true, handler::accept, maxPerWindow, windowNanos, clock);
+  }
+
+  public RateLimitedExceptionHandler(
+    Consumer<Exception> handler,
+    Predicate<Exception> limited,
+    Consumer<ExceptionsSuppressedException> summaries,
+    int maxPerWindow,
+    long windowNanos,
+    LongSupplier clock
+  ) {
+    this.handler = handler;
+    this.limited = limited;
+    this.summaries = summaries;
+    this.maxPerWindow = maxPerWindow;
+    this.windowNanos = windowNanos;
+    this.clock = clock;
+    this.windows = new ConcurrentHashMap<>();
+  }
+
+  public static RateLimitedExceptionHandler start(
+    MappedExceptionHandler handler,
+    int maxPerWindow,
+    long windowNanos,
+    LongSupplier clock
+  ) {
+    RateLimitedExceptionHandler limiter = new RateLimitedExceptionHandler(
+      handler,
+      handler::handles,
+      handler::handleSummary,
+      maxPerWindow,
+      windowNanos,
+      clock
+    );
+    new PeriodicSummary(limiter).schedule(windowNanos);
+    return limiter;
+  }
+
+  @Override
+  public void handle(Exception exception) {
+    // exceptions nothing handles keep propagating instead of being counted
+    if (!limited.test(exception)) {
+      handler.accept(exception);
+      return;
+    }
+
+    Fingerprint fingerprint = Fingerprint.of(exception);
+    AtomicReference<Window> current = windows.get(fingerprint);
+    if (current == null) {
+      // past the bound, new kinds of exceptions are not limited until idle ones are swept
+      if (windows.size() >= MAX_FINGERPRINTS) {
+        handler.accept(exception);
+        return;
+      }
+
+      current = windows.computeIfAbsent(fingerprint, f -> new AtomicReference<>(new Window(clock.getAsLong())));
+    }
+
+    long now = clock.getAsLong();
+    Window window = current.get();
+    if (now - window.start >= windowNanos) {
+      Window next = new Window(now);
+      if (current.compareAndSet(window, next))
+        summarize(window);
+
+      window = current.get();
+    }
+
+    if (window.admit(maxPerWindow))
+      handler.accept(exception);
+    else
+      window.suppress(exception);
+  }
+
+  public void summarize() {
+    long now = clock.getAsLong();
+    for (Map.Entry<Fingerprint, AtomicReference<Window>> entry : windows.entrySet()) {
+      AtomicReference<Window> current = entry.getValue();
+      Window window = current.get();
+      if (now - window.start < windowNanos)
+        continue;
+
+      if (window.suppressed.sum() == 0)
+        windows.remove(entry.getKey(), current);
+      else if (current.compareAndSet(window, new Window(now)))
+        summarize(window);
+    }
+  }
+
+  int fingerprintCount() {
+    return windows.size();
+  }
+
+  private void summarize(Window window) {
+    long suppressed = window.suppressed.sum();
+    if (suppressed == 0)
+      return;
+
+    ExceptionsSuppressedException summary = new ExceptionsSuppressedException(
+      "Suppressed " + suppressed + " similar exceptions",
+      window.sample.get()
+    );
+
+    try {
+      summaries.accept(summary);
+    } catch (RuntimeException e) {
+      // summaries are best effort, like the exceptions they stand for
+    }
+  }
+
+  private static final class Window {
+    private final long start;
+    private final AtomicInteger admitted;
+    private final LongAdder suppressed;
+    private final AtomicReference<Exception> sample;
+    private volatile boolean saturated;
+
+    private Window(long start) {
+      this.start = start;
+      this.admitted = new AtomicInteger();
+      this.suppressed = new LongAdder();
+      this.sample = new AtomicReference<>();
+    }
+
+    private boolean admit(int maxPerWindow) {
+      // once saturated, threads only touch the striped counter
+      if (saturated)
+        return false;
+      if (admitted.incrementAndGet() <= maxPerWindow)
+        return true;
+
+      saturated = true;
+      return false;
+    }
+
+    private void suppress(Exception exception) {
+      suppressed.increment();
+      if (sample.get() == null)
+        sample.compareAndSet(null, exception);
+    }
+  }
+
+  private static final class Fingerprint {
+    private final Class<?> type;
+    private final String sqlState;
+    private final StackTraceElement[] frames;
+    private final int hash;
+
+    private Fingerprint(Class<?> type, String sqlState, StackTraceElement[] frames) {
+      this.type = type;
+      this.sqlState = sqlState;
+      this.frames = frames;
+      this.hash = 31 * (31 * type.hashCode() + Objects.hashCode(sqlState)) + Arrays.hashCode(frames);
+    }
+
+    private static Fingerprint of(Exception exception) {
+      StackTraceElement[] trace = exception.getStackTrace();
+      StackTraceElement[] frames = trace.length > TOP_FRAMES ? Arrays.copyOf(trace, TOP_FRAMES) : trace;
+      return new Fingerprint(exception.getClass(), sqlStateOf(exception), frames);
+    }
+
+    private static String sqlStateOf(Exception exception) {
+      Throwable link = exception;
+      for (int depth = 0; link != null && depth < MAX_CAUSE_DEPTH; link = link.getCause(), depth++)
+        if (link instanceof SQLException)
+          return ((SQLException) link).getSQLState();
+
+      return null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other)
+        return true;
+      if (!(other instanceof Fingerprint))
+        return false;
+
+      Fingerprint that = (Fingerprint) other;
+      return hash == that.hash
+        && type == that.type
+        && Objects.equals(sqlState, that.sqlState)
+        && Arrays.equals(frames, that.frames);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class PeriodicSummary implements Runnable {
+    private final WeakReference<RateLimitedExceptionHandler> limiter;
+    private volatile ScheduledFuture<?> schedule;
+
+    private PeriodicSummary(RateLimitedExceptionHandler limiter) {
+      this.limiter = new WeakReference<>(limiter);
+    }
+
+    private void schedule(long periodNanos) {
+      schedule = SCHEDULER.scheduleAtFixedRate(this, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void run() {
+      RateLimitedExceptionHandler current = limiter.get();
+      if (current != null)
+        current.summarize();
+      else if (schedule != null)
+        schedule.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package me.time1015.sql.function.exception;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class RingBuffer<E> {
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong head;
+  private final AtomicLong tail;
+
+  public RingBuffer(int capacity) {
+    // sequences cannot tell a full slot from a free one with a single slot
+    int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+
+    this.mask = size - 1;
+    this.elements = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    this.head = new AtomicLong();
+    this.tail = new AtomicLong();
+
+    for (int i = 0; i < size; i++)
+      sequences.set(i, i);
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity()));
+  }
+
+  public boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long lag = sequences.get(index) - position;
+
+      // the slot is free for this position, claim it
+      if (lag == 0 && tail.compareAndSet(position, position + 1)) {
+        elements.set(index, element);
+        sequences.set(index, position + 1);
+        return true;
+      }
+
+      // the slot still holds an element from the previous lap
+      if (lag < 0)
+        return false;
+
+      position = tail.get();
+    }
+  }
+
+  public E poll() {
+    long position = head.get();
+    while (true) {
+      int index = (int) position & mask;
+      long lag = sequences.get(index) - (position + 1);
+
+      // the slot holds the element of this position, take it
+      if (lag == 0 && head.compareAndSet(position, position + 1)) {
+        E element = elements.getAndSet(index, null);
+        sequences.set(index, position + mask + 1);
+        return element;
+      }
+
+      // the slot has not been filled yet
+      if (lag < 0)
+        return null;
+
+      position = head.get();
+    }
+  }
+}
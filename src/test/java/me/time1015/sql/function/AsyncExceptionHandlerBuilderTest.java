@@ -0,0 +1,67 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncExceptionHandlerBuilderTest {
+  @Test
+  public void constructor_nullHandler_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> AsyncExceptionHandler.builder(null));
+  }
+
+  @Test
+  public void capacity_invalidCapacity_throwIllegalArgument() {
+    AsyncExceptionHandlerBuilder testBuilder = testBuilder();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.capacity(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.capacity(Integer.MAX_VALUE))
+    );
+  }
+
+  @Test
+  public void overflowPolicy_nullPolicy_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().overflowPolicy(null));
+  }
+
+  @Test
+  public void setters_returnBuilder() {
+    AsyncExceptionHandlerBuilder testBuilder = testBuilder();
+
+    assertAll(
+      () -> assertSame(testBuilder, testBuilder.capacity(16)),
+      () -> assertSame(testBuilder, testBuilder.overflowPolicy(AsyncExceptionHandler.OverflowPolicy.DROP_OLDEST)),
+      () -> assertSame(testBuilder, testBuilder.flushOnShutdown(true))
+    );
+  }
+
+  private AsyncExceptionHandlerBuilder testBuilder() {
+    return AsyncExceptionHandler.builder(ExceptionHandler.ignore());
+  }
+}
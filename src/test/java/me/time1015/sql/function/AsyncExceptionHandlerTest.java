@@ -0,0 +1,189 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncExceptionHandlerTest {
+  private final List<Exception> handled = new CopyOnWriteArrayList<>();
+  private final List<Thread> threads = new CopyOnWriteArrayList<>();
+  private final CountDownLatch blocking = new CountDownLatch(1);
+  private final CountDownLatch unblocked = new CountDownLatch(1);
+
+  @Test
+  public void handle_handOverOnBackgroundThread() throws Exception {
+    TestException exception = new TestException();
+    CountDownLatch delivered = new CountDownLatch(1);
+    AsyncExceptionHandler testHandler = AsyncExceptionHandler.builder(e -> {
+      threads.add(Thread.currentThread());
+      handled.add(e);
+      delivered.countDown();
+    }).build();
+
+    testHandler.handle(exception);
+    delivered.await();
+    testHandler.close();
+
+    assertAll(
+      () -> assertEquals(List.of(exception), handled),
+      () -> assertTrue(threads.get(0) != Thread.currentThread()),
+      () -> assertEquals(1, testHandler.handledCount())
+    );
+  }
+
+  @Test
+  public void close_handOverQueuedExceptions() throws Exception {
+    AsyncExceptionHandler testHandler = blockingHandler(4, AsyncExceptionHandler.OverflowPolicy.DROP_NEWEST);
+    TestException first = new TestException();
+    TestException second = new TestException();
+    TestException third = new TestException();
+
+    testHandler.handle(first);
+    blocking.await();
+    testHandler.handle(second);
+    testHandler.handle(third);
+    unblocked.countDown();
+    testHandler.close();
+
+    assertAll(
+      () -> assertEquals(List.of(first, second, third), handled),
+      () -> assertEquals(0, testHandler.pendingCount())
+    );
+  }
+
+  @Test
+  public void handle_closed_handOverOnCallingThread() {
+    AsyncExceptionHandler testHandler = AsyncExceptionHandler.builder(e -> {
+      threads.add(Thread.currentThread());
+    }).build();
+
+    testHandler.close();
+    testHandler.handle(new TestException());
+
+    assertSame(Thread.currentThread(), threads.get(0));
+  }
+
+  @Test
+  public void handle_fullWithDropNewest_dropHandledExceptionAndReportIt() throws Exception {
+    AsyncExceptionHandler testHandler = blockingHandler(2, AsyncExceptionHandler.OverflowPolicy.DROP_NEWEST);
+    TestException first = new TestException();
+    TestException queued = new TestException();
+    TestException alsoQueued = new TestException();
+    TestException overflowing = new TestException();
+
+    testHandler.handle(first);
+    blocking.await();
+    testHandler.handle(queued);
+    testHandler.handle(alsoQueued);
+    testHandler.handle(overflowing);
+    unblocked.countDown();
+    testHandler.close();
+
+    assertAll(
+      () -> assertEquals(4, handled.size()),
+      () -> assertEquals(List.of(first, queued, alsoQueued), handled.subList(0, 3)),
+      () -> assertTrue(handled.get(3) instanceof ExceptionsDroppedException),
+      () -> assertSame(overflowing, handled.get(3).getCause()),
+      () -> assertEquals(1, testHandler.droppedCount())
+    );
+  }
+
+  @Test
+  public void handle_fullWithDropOldest_dropQueuedException() throws Exception {
+    AsyncExceptionHandler testHandler = blockingHandler(2, AsyncExceptionHandler.OverflowPolicy.DROP_OLDEST);
+    TestException first = new TestException();
+    TestException queued = new TestException();
+    TestException alsoQueued = new TestException();
+    TestException overflowing = new TestException();
+
+    testHandler.handle(first);
+    blocking.await();
+    testHandler.handle(queued);
+    testHandler.handle(alsoQueued);
+    testHandler.handle(overflowing);
+    unblocked.countDown();
+    testHandler.close();
+
+    assertAll(
+      () -> assertEquals(List.of(first, alsoQueued, overflowing), handled.subList(0, 3)),
+      () -> assertSame(queued, handled.get(3).getCause()),
+      () -> assertEquals(1, testHandler.droppedCount())
+    );
+  }
+
+  @Test
+  public void handle_fullWithCallerRuns_handOverOnCallingThread() throws Exception {
+    AsyncExceptionHandler testHandler = blockingHandler(2, AsyncExceptionHandler.OverflowPolicy.CALLER_RUNS);
+    TestException overflowing = new TestException();
+
+    testHandler.handle(new TestException());
+    blocking.await();
+    testHandler.handle(new TestException());
+    testHandler.handle(new TestException());
+    testHandler.handle(overflowing);
+    unblocked.countDown();
+    testHandler.close();
+
+    assertAll(
+      () -> assertSame(overflowing, handled.get(0)),
+      () -> assertSame(Thread.currentThread(), threads.get(0)),
+      () -> assertEquals(0, testHandler.droppedCount())
+    );
+  }
+
+  @Test
+  public void handle_handlerThrowsException_countFailure() {
+    AsyncExceptionHandler testHandler = AsyncExceptionHandler.builder(ExceptionHandler.rethrow()).build();
+
+    testHandler.handle(new TestException());
+    testHandler.close();
+
+    assertEquals(1, testHandler.failedCount());
+  }
+
+  private AsyncExceptionHandler blockingHandler(int capacity, AsyncExceptionHandler.OverflowPolicy policy) {
+    return AsyncExceptionHandler.builder(e -> {
+      if (blocking.getCount() > 0) {
+        blocking.countDown();
+        try {
+          unblocked.await();
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      threads.add(Thread.currentThread());
+      handled.add(e);
+    }).capacity(capacity).overflowPolicy(policy).build();
+  }
+}
@@ -0,0 +1,72 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class CachingSqlEndpointBuilderTest {
+  @Test
+  public void new_nullEndpoint_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> CachingSqlEndpoint.builder(null));
+  }
+
+  @Test
+  public void setters_invalidArguments_throwIllegalArgument() {
+    CachingSqlEndpointBuilder testBuilder = testBuilder();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.ttl(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.ttl(Duration.ofSeconds(-1))),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.maxWeight(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.weigher(null))
+    );
+  }
+
+  @Test
+  public void setters_returnBuilder() {
+    CachingSqlEndpointBuilder testBuilder = testBuilder();
+
+    assertAll(
+      () -> assertSame(testBuilder, testBuilder.ttl(Duration.ZERO)),
+      () -> assertSame(testBuilder, testBuilder.maxWeight(1)),
+      () -> assertSame(testBuilder, testBuilder.weigher((key, value) -> 1))
+    );
+  }
+
+  @Test
+  public void build_returnCachingEndpoint() {
+    assertTrue(testBuilder().build() instanceof CachingSqlEndpoint);
+  }
+
+  private CachingSqlEndpointBuilder testBuilder() {
+    return CachingSqlEndpoint.builder(new SqlEndpoint(() -> null));
+  }
+}
@@ -0,0 +1,267 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class CachingSqlEndpointTest {
+  private final AtomicInteger acquired = new AtomicInteger();
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void connect_nullArguments_throwIllegalArgument() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(null, c -> c)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect("key", null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(null, c -> c, e -> {})),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect("key", null, e -> {})),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect("key", c -> c, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.invalidate(null))
+    );
+  }
+
+  @Test
+  public void connect_sameKey_serveFromCache() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+
+    Object first = testEndpoint.connect("key", c -> acquired.get());
+    Object second = testEndpoint.connect("key", c -> acquired.get());
+
+    assertAll(
+      () -> assertEquals(1, acquired.get()),
+      () -> assertEquals(first, second),
+      () -> assertEquals(1, testEndpoint.hitCount()),
+      () -> assertEquals(1, testEndpoint.missCount())
+    );
+  }
+
+  @Test
+  public void connect_sameKeyInFlightOnAnotherCache_runOwnHandler() {
+    SqlEndpoint endpoint = new SqlEndpoint(() -> mock(Connection.class, withSettings().stubOnly()));
+    CachingSqlEndpoint users = CachingSqlEndpoint.builder(endpoint).build();
+    CachingSqlEndpoint orders = CachingSqlEndpoint.builder(endpoint).build();
+    Object[] ordered = new Object[1];
+
+    Object user = users.connect(42, c -> {
+      ordered[0] = CompletableFuture.supplyAsync(() -> orders.connect(42, inner -> "order"))
+        .get(10, TimeUnit.SECONDS);
+      return "user";
+    });
+
+    assertAll(
+      () -> assertEquals("user", user),
+      () -> assertEquals("order", ordered[0]),
+      () -> assertEquals("user", users.connect(42, c -> "other")),
+      () -> assertEquals("order", orders.connect(42, c -> "other"))
+    );
+  }
+
+  @Test
+  public void connect_nullResult_serveFromCache() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+
+    testEndpoint.connect("key", c -> null);
+    testEndpoint.connect("key", c -> null);
+
+    assertEquals(1, acquired.get());
+  }
+
+  @Test
+  public void connect_handlerThrowsException_doNotCacheDefaultValue() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+    ConnectionHandler<Object> failing = new ConnectionHandler<Object>() {
+      @Override
+      public Object handleAndReturn(Connection connection) throws Exception {
+        throw new TestException();
+      }
+
+      @Override
+      public Object defaultValue() {
+        return "default";
+      }
+    };
+
+    assertEquals("default", testEndpoint.connect("key", failing, e -> {}));
+    assertEquals("computed", testEndpoint.connect("key", c -> "computed", e -> {}));
+  }
+
+  @Test
+  public void connect_closeThrowsException_doNotCacheDefaultValue() throws Exception {
+    Connection connection = mock(Connection.class);
+    doThrow(new SQLException()).when(connection).close();
+    CachingSqlEndpoint testEndpoint = CachingSqlEndpoint.builder(new SqlEndpoint(() -> {
+      acquired.incrementAndGet();
+      return connection;
+    }, ExceptionHandler.ignore())).build();
+
+    testEndpoint.connect("key", c -> "computed");
+    testEndpoint.connect("key", c -> "computed");
+
+    assertAll(
+      () -> assertEquals(2, acquired.get()),
+      () -> assertEquals(0, testEndpoint.size())
+    );
+  }
+
+  @Test
+  public void connect_expired_runHandlerAgain() {
+    CachingSqlEndpoint testEndpoint = testBuilder().ttl(Duration.ofNanos(10)).build();
+
+    testEndpoint.connect("key", c -> c);
+    now.set(10);
+    testEndpoint.connect("key", c -> c);
+
+    assertAll(
+      () -> assertEquals(2, acquired.get()),
+      () -> assertEquals(1, testEndpoint.evictionCount())
+    );
+  }
+
+  @Test
+  public void connect_zeroTtl_neverExpire() {
+    CachingSqlEndpoint testEndpoint = testBuilder().ttl(Duration.ZERO).build();
+
+    testEndpoint.connect("key", c -> c);
+    now.set(Long.MAX_VALUE);
+    testEndpoint.connect("key", c -> c);
+
+    assertEquals(1, acquired.get());
+  }
+
+  @Test
+  public void connect_overMaxWeight_evictLeastRecentlyUsed() {
+    CachingSqlEndpoint testEndpoint = testBuilder().maxWeight(2).build();
+
+    testEndpoint.connect(1, c -> c);
+    testEndpoint.connect(2, c -> c);
+    testEndpoint.connect(1, c -> c);
+    testEndpoint.connect(3, c -> c);
+    testEndpoint.connect(1, c -> c);
+    testEndpoint.connect(2, c -> c);
+
+    assertAll(
+      () -> assertEquals(4, acquired.get()),
+      () -> assertEquals(2, testEndpoint.hitCount()),
+      () -> assertEquals(2, testEndpoint.size()),
+      () -> assertEquals(2, testEndpoint.evictionCount())
+    );
+  }
+
+  @Test
+  public void connect_heavierThanMaxWeight_doNotCache() {
+    CachingSqlEndpoint testEndpoint = testBuilder().maxWeight(1).weigher((key, value) -> 2).build();
+
+    testEndpoint.connect("key", c -> c);
+    testEndpoint.connect("key", c -> c);
+
+    assertAll(
+      () -> assertEquals(2, acquired.get()),
+      () -> assertEquals(0, testEndpoint.size())
+    );
+  }
+
+  @Test
+  public void connect_latencyMetrics_recordNamedHandler() {
+    LatencyMetrics metrics = new LatencyMetrics();
+    CachingSqlEndpoint testEndpoint = CachingSqlEndpoint.builder(
+      SqlEndpoint.builder(() -> mock(Connection.class, withSettings().stubOnly())).latencyMetrics(metrics).build()
+    ).build();
+
+    testEndpoint.connect("key", ConnectionHandler.named("query", c -> null));
+
+    assertAll(
+      () -> assertEquals(Set.of("query"), metrics.names()),
+      () -> assertEquals(1, metrics.handleLatency("query").snapshot().count())
+    );
+  }
+
+  @Test
+  public void invalidate_whileLoading_doNotCacheStaleResult() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+
+    Object stale = testEndpoint.connect("key", c -> {
+      testEndpoint.invalidate("key");
+      return acquired.get();
+    });
+    Object fresh = testEndpoint.connect("key", c -> acquired.get());
+
+    assertAll(
+      () -> assertEquals(1, stale),
+      () -> assertEquals(2, fresh),
+      () -> assertEquals(0, testEndpoint.hitCount())
+    );
+  }
+
+  @Test
+  public void invalidateAll_whileLoading_doNotCacheStaleResult() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+
+    testEndpoint.connect("key", c -> {
+      testEndpoint.invalidateAll();
+      return acquired.get();
+    });
+
+    assertEquals(0, testEndpoint.size());
+  }
+
+  @Test
+  public void invalidate_runHandlerAgain() {
+    CachingSqlEndpoint testEndpoint = testBuilder().build();
+
+    testEndpoint.connect("key", c -> c);
+    testEndpoint.invalidate("key");
+    testEndpoint.connect("key", c -> c);
+    testEndpoint.invalidateAll();
+    testEndpoint.connect("key", c -> c);
+
+    assertEquals(3, acquired.get());
+  }
+
+  private CachingSqlEndpointBuilder testBuilder() {
+    CachingSqlEndpointBuilder builder = CachingSqlEndpoint.builder(new SqlEndpoint(() -> {
+      acquired.incrementAndGet();
+      return mock(Connection.class, withSettings().stubOnly());
+    }));
+    builder.clock = now::get;
+    return builder;
+  }
+}
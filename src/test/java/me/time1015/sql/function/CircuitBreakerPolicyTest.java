@@ -0,0 +1,89 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerPolicyTest {
+  @Test
+  public void builder_invalidArguments_throwIllegalArgument() {
+    CircuitBreakerPolicyBuilder testBuilder = CircuitBreakerPolicy.builder();
+    Duration second = Duration.ofSeconds(1);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.window(0, 1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.window(10, 0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.window(10, 11)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.failureRateThreshold(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.failureRateThreshold(1.5)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.slowCalls(null, 1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.slowCalls(Duration.ofSeconds(-1), 1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.slowCalls(second, 0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.openDuration(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.openDuration(Duration.ofSeconds(-1))),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.halfOpenCalls(0))
+    );
+  }
+
+  @Test
+  public void builder_returnBuilder() {
+    CircuitBreakerPolicyBuilder testBuilder = CircuitBreakerPolicy.builder();
+
+    assertAll(
+      () -> assertSame(testBuilder, testBuilder.window(10, 5)),
+      () -> assertSame(testBuilder, testBuilder.failureRateThreshold(1)),
+      () -> assertSame(testBuilder, testBuilder.slowCalls(Duration.ZERO, 1)),
+      () -> assertSame(testBuilder, testBuilder.openDuration(Duration.ZERO)),
+      () -> assertSame(testBuilder, testBuilder.halfOpenCalls(1))
+    );
+  }
+
+  @Test
+  public void build_keepSettings() {
+    CircuitBreakerPolicy testPolicy = CircuitBreakerPolicy.builder()
+      .window(10, 5)
+      .failureRateThreshold(0.25)
+      .slowCalls(Duration.ofNanos(7), 0.75)
+      .openDuration(Duration.ofNanos(9))
+      .halfOpenCalls(3)
+      .build();
+
+    assertAll(
+      () -> assertEquals(10, testPolicy.windowSize),
+      () -> assertEquals(5, testPolicy.minimumCalls),
+      () -> assertEquals(0.25, testPolicy.failureRateThreshold),
+      () -> assertEquals(7, testPolicy.slowCallNanos),
+      () -> assertEquals(0.75, testPolicy.slowCallRateThreshold),
+      () -> assertEquals(9, testPolicy.openNanos),
+      () -> assertEquals(3, testPolicy.halfOpenCalls)
+    );
+  }
+}
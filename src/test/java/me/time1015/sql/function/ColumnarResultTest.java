@@ -0,0 +1,188 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnarResultTest {
+  @Test
+  public void read_nullResultSet_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> ColumnarResult.read(null));
+  }
+
+  @Test
+  public void read_mapColumnTypes() throws Exception {
+    ColumnarResult result = ColumnarResult.read(testResultSet(
+      new String[] { "a", "b", "c", "d" },
+      new int[] { Types.SMALLINT, Types.BIGINT, Types.DOUBLE, Types.VARCHAR },
+      new Object[][] { { 1, 2L, 3.0, "x" } }
+    ));
+
+    assertAll(
+      () -> assertEquals(1, result.rowCount()),
+      () -> assertEquals(4, result.columnCount()),
+      () -> assertEquals(1, result.intColumn("a").get(0)),
+      () -> assertEquals(2L, result.longColumn("B").get(0)),
+      () -> assertEquals(3.0, result.doubleColumn("c").get(0)),
+      () -> assertEquals("x", result.objectColumn("d").get(0, String.class)),
+      () -> assertTrue(result.column(4) instanceof ResultColumn.OfObject)
+    );
+  }
+
+  @Test
+  public void read_nullValues_trackNulls() throws Exception {
+    ColumnarResult result = ColumnarResult.read(testResultSet(
+      new String[] { "a", "b" },
+      new int[] { Types.INTEGER, Types.VARCHAR },
+      new Object[][] { { 1, "x" }, { null, null } }
+    ));
+
+    assertAll(
+      () -> assertFalse(result.intColumn("a").isNull(0)),
+      () -> assertTrue(result.intColumn("a").isNull(1)),
+      () -> assertEquals(0, result.intColumn("a").get(1)),
+      () -> assertFalse(result.objectColumn("b").isNull(0)),
+      () -> assertTrue(result.objectColumn("b").isNull(1))
+    );
+  }
+
+  @Test
+  public void read_manyRows_growAcrossChunks() throws Exception {
+    int rows = ResultColumn.CHUNK_SIZE * 2 + 5;
+    Object[][] values = new Object[rows][];
+    for (int i = 0; i < rows; i++)
+      values[i] = new Object[] { i % 7 == 0 ? null : i };
+
+    ResultColumn.OfInt column = ColumnarResult.read(testResultSet(
+      new String[] { "a" },
+      new int[] { Types.INTEGER },
+      values
+    )).intColumn("a");
+
+    assertEquals(rows, column.size());
+    assertEquals(3, column.chunkCount());
+    assertEquals(5, column.chunk(2).remaining());
+    for (int i = 0; i < rows; i++) {
+      assertEquals(i % 7 == 0, column.isNull(i));
+      assertEquals(i % 7 == 0 ? 0 : i, column.get(i));
+    }
+  }
+
+  @Test
+  public void chunk_returnReadOnlyView() throws Exception {
+    ResultColumn.OfInt column = ColumnarResult.read(testResultSet(
+      new String[] { "a" },
+      new int[] { Types.INTEGER },
+      new Object[][] { { 1 }, { 2 } }
+    )).intColumn("a");
+
+    IntBuffer chunk = column.chunk(0);
+
+    assertAll(
+      () -> assertEquals(2, chunk.remaining()),
+      () -> assertEquals(2, chunk.get(1)),
+      () -> assertThrows(ReadOnlyBufferException.class, () -> chunk.put(0, 5)),
+      () -> assertThrows(IndexOutOfBoundsException.class, () -> column.chunk(1)),
+      () -> assertArrayEquals(new int[] { 1, 2 }, column.toArray())
+    );
+  }
+
+  @Test
+  public void column_invalidLookups_throw() throws Exception {
+    ColumnarResult result = ColumnarResult.read(testResultSet(
+      new String[] { "a" },
+      new int[] { Types.INTEGER },
+      new Object[][] {}
+    ));
+
+    assertAll(
+      () -> assertThrows(IndexOutOfBoundsException.class, () -> result.column(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> result.column("b")),
+      () -> assertThrows(IllegalArgumentException.class, () -> result.column(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> result.longColumn("a")),
+      () -> assertThrows(IndexOutOfBoundsException.class, () -> result.intColumn("a").get(0))
+    );
+  }
+
+  @Test
+  public void get_objectColumnWrongType_throwClassCast() throws Exception {
+    ResultColumn.OfObject column = ColumnarResult.read(testResultSet(
+      new String[] { "a" },
+      new int[] { Types.VARCHAR },
+      new Object[][] { { "x" } }
+    )).objectColumn("a");
+
+    assertAll(
+      () -> assertEquals("x", column.get(0, String.class)),
+      () -> assertThrows(ClassCastException.class, () -> column.get(0, Integer.class))
+    );
+  }
+
+  private static ResultSet testResultSet(String[] labels, int[] types, Object[][] rows) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(labels.length);
+    when(metaData.getColumnLabel(anyInt())).thenAnswer(invocation -> labels[(int) invocation.getArgument(0) - 1]);
+    when(metaData.getColumnType(anyInt())).thenAnswer(invocation -> types[(int) invocation.getArgument(0) - 1]);
+
+    int[] row = { -1 };
+    Object[] last = new Object[1];
+    when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+    when(resultSet.wasNull()).thenAnswer(invocation -> last[0] == null);
+    when(resultSet.getObject(anyInt())).thenAnswer(invocation -> {
+      return last[0] = rows[row[0]][(int) invocation.getArgument(0) - 1];
+    });
+    when(resultSet.getInt(anyInt())).thenAnswer(invocation -> {
+      last[0] = rows[row[0]][(int) invocation.getArgument(0) - 1];
+      return last[0] == null ? 0 : ((Number) last[0]).intValue();
+    });
+    when(resultSet.getLong(anyInt())).thenAnswer(invocation -> {
+      last[0] = rows[row[0]][(int) invocation.getArgument(0) - 1];
+      return last[0] == null ? 0L : ((Number) last[0]).longValue();
+    });
+    when(resultSet.getDouble(anyInt())).thenAnswer(invocation -> {
+      last[0] = rows[row[0]][(int) invocation.getArgument(0) - 1];
+      return last[0] == null ? 0.0 : ((Number) last[0]).doubleValue();
+    });
+    return resultSet;
+  }
+}
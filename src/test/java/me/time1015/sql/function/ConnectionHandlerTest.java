@@ -23,8 +23,11 @@ package me.time1015.sql.function;
  * THE SOFTWARE.
  */
 
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.withSettings;
 
@@ -41,6 +44,44 @@ public class ConnectionHandlerTest {
     assertNull(testHandler.defaultValue());
   }
 
+  @Test
+  public void name_returnNull() {
+    ConnectionHandler<?> testHandler = c -> c;
+
+    assertNull(testHandler.name());
+  }
+
+  @Test
+  public void named_nullArguments_throwIllegalArgument() {
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> ConnectionHandler.named(null, c -> c)),
+      () -> assertThrows(IllegalArgumentException.class, () -> ConnectionHandler.named("", null))
+    );
+  }
+
+  @Test
+  public void named_delegateToHandler() throws Exception {
+    Connection connection = stubConnection();
+    Object valueOnException = new Object();
+    ConnectionHandler<Object> testHandler = ConnectionHandler.named("name", new ConnectionHandler<>() {
+      @Override
+      public Object handleAndReturn(Connection connection) {
+        return connection;
+      }
+
+      @Override
+      public Object defaultValue() {
+        return valueOnException;
+      }
+    });
+
+    assertAll(
+      () -> assertEquals("name", testHandler.name()),
+      () -> assertSame(connection, testHandler.handleAndReturn(connection)),
+      () -> assertSame(valueOnException, testHandler.defaultValue())
+    );
+  }
+
   @Nested
   public class OfVoidTest {
     @Test
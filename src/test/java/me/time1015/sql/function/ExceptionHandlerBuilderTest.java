@@ -23,13 +23,24 @@ package me.time1015.sql.function;
  * THE SOFTWARE.
  */
 
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
 import org.junit.jupiter.api.Test;
 
 import me.time1015.sql.function.exception.MappedExceptionHandler;
+import me.time1015.sql.function.exception.RateLimitedExceptionHandler;
 
 public class ExceptionHandlerBuilderTest {
   @Test
@@ -80,11 +91,98 @@ public class ExceptionHandlerBuilderTest {
     assertSame(testBuilder, testBuilder.ignoreByDefault());
   }
 
+  @Test
+  public void handleInterface_nullTypeOrHandler_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().handleInterface(null, e -> {}));
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().handleInterface(TestException.Marker.class, null));
+  }
+
+  @Test
+  public void handleInterface_classType_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().handleInterface(TestException.class, e -> {}));
+  }
+
+  @Test
+  public void handleInterface_returnBuilder() {
+    ExceptionHandlerBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.handleInterface(TestException.Marker.class, e -> {}));
+  }
+
+  @Test
+  public void matchCauses_returnBuilder() {
+    ExceptionHandlerBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.matchCauses());
+  }
+
+  @Test
+  public void rateLimit_invalidArguments_throwIllegalArgument() {
+    ExceptionHandlerBuilder testBuilder = testBuilder();
+    Duration window = Duration.ofSeconds(1);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.rateLimit(0, window)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.rateLimit(1, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.rateLimit(1, Duration.ZERO))
+    );
+  }
+
+  @Test
+  public void rateLimit_returnBuilder() {
+    ExceptionHandlerBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.rateLimit(10, Duration.ofSeconds(1)));
+  }
+
   @Test
   public void build_returnConsumer() {
     assertTrue(testBuilder().build() instanceof MappedExceptionHandler);
   }
 
+  @Test
+  public void build_rateLimited_returnRateLimitedConsumer() {
+    assertTrue(testBuilder().rateLimit(10, Duration.ofSeconds(1)).build() instanceof RateLimitedExceptionHandler);
+  }
+
+  @Test
+  public void build_rateLimitedWithoutDefault_passSummaryToSampleHandler() {
+    AtomicLong now = new AtomicLong();
+    List<SQLException> handled = new ArrayList<>();
+    ExceptionHandlerBuilder testBuilder = testBuilder()
+      .handle(SQLException.class, handled::add)
+      .rateLimit(1, Duration.ofMinutes(1));
+    testBuilder.clock = now::get;
+    RateLimitedExceptionHandler testHandler = (RateLimitedExceptionHandler) testBuilder.build();
+
+    // a shared sample, as handed out in stackless mode
+    SQLException shared = new SQLException("Failed", "08001");
+    for (int i = 0; i < 3; i++)
+      testHandler.accept(shared);
+    now.addAndGet(Duration.ofMinutes(1).toNanos());
+    testHandler.summarize();
+
+    assertAll(
+      () -> assertEquals(2, handled.size()),
+      () -> assertNotSame(shared, handled.get(1)),
+      () -> assertTrue(handled.get(1).getCause() instanceof ExceptionsSuppressedException),
+      () -> assertEquals("Suppressed 2 similar exceptions", handled.get(1).getCause().getMessage()),
+      () -> assertSame(shared, handled.get(1).getCause().getCause()),
+      () -> assertEquals(0, shared.getSuppressed().length)
+    );
+  }
+
+  @Test
+  public void build_rateLimitedWithoutDefault_throwUnmatchedEveryTime() {
+    Consumer<Exception> testHandler = testBuilder()
+      .handle(SQLException.class, e -> {})
+      .rateLimit(1, Duration.ofSeconds(1))
+      .build();
+
+    for (int i = 0; i < 3; i++)
+      assertThrows(IllegalArgumentException.class, () -> testHandler.accept(new TestException()));
+  }
+
   private ExceptionHandlerBuilder testBuilder() {
     return new ExceptionHandlerBuilder();
   }
@@ -0,0 +1,128 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+  @Test
+  public void indexOf_bucketsContainTheirValues() {
+    for (long nanos : new long[] { 0, 1, 63, 64, 65, 127, 128, 1_000, 123_456_789, (1L << 36) - 1 }) {
+      int index = LatencyHistogram.indexOf(nanos);
+
+      assertTrue(LatencyHistogram.lowestNanosAt(index) <= nanos, "lowest of " + nanos);
+      assertTrue(LatencyHistogram.highestNanosAt(index) >= nanos, "highest of " + nanos);
+    }
+  }
+
+  @Test
+  public void indexOf_bucketWidthWithinPrecision() {
+    for (long nanos = 64; nanos < 1L << 36; nanos = nanos * 3 + 7) {
+      int index = LatencyHistogram.indexOf(nanos);
+      long width = LatencyHistogram.highestNanosAt(index) - LatencyHistogram.lowestNanosAt(index) + 1;
+
+      assertTrue(width <= nanos / 64 + 1, "width at " + nanos);
+    }
+  }
+
+  @Test
+  public void snapshot_returnPercentilesWithinPrecision() {
+    LatencyHistogram testHistogram = new LatencyHistogram();
+
+    for (long micros = 1; micros <= 1000; micros++)
+      testHistogram.record(micros * 1000);
+    LatencyHistogram.Snapshot snapshot = testHistogram.snapshot();
+
+    assertAll(
+      () -> assertEquals(1000, snapshot.count()),
+      () -> assertEquals(500_000, snapshot.valueAtPercentile(50), 500_000 / 64.0),
+      () -> assertEquals(990_000, snapshot.valueAtPercentile(99), 990_000 / 64.0),
+      () -> assertEquals(999_000, snapshot.valueAtPercentile(99.9), 999_000 / 64.0),
+      () -> assertEquals(1_000_000, snapshot.max(), 1_000_000 / 64.0),
+      () -> assertEquals(500_500, snapshot.mean(), 500_500 / 64.0)
+    );
+  }
+
+  @Test
+  public void record_outOfRange_clampValue() {
+    LatencyHistogram testHistogram = new LatencyHistogram();
+
+    testHistogram.record(-1);
+    testHistogram.record(Long.MAX_VALUE);
+    LatencyHistogram.Snapshot snapshot = testHistogram.snapshot();
+
+    assertAll(
+      () -> assertEquals(0, snapshot.valueAtPercentile(0)),
+      () -> assertEquals((1L << 36) - 1, snapshot.max())
+    );
+  }
+
+  @Test
+  public void intervalSnapshot_returnLatenciesSincePreviousInterval() {
+    LatencyHistogram testHistogram = new LatencyHistogram();
+
+    testHistogram.record(10);
+    long first = testHistogram.intervalSnapshot().count();
+    testHistogram.record(10);
+    testHistogram.record(10);
+    long second = testHistogram.intervalSnapshot().count();
+
+    assertAll(
+      () -> assertEquals(1, first),
+      () -> assertEquals(2, second),
+      () -> assertEquals(3, testHistogram.snapshot().count())
+    );
+  }
+
+  @Test
+  public void reset_discardRecordedLatencies() {
+    LatencyHistogram testHistogram = new LatencyHistogram();
+
+    testHistogram.record(10);
+    testHistogram.reset();
+    testHistogram.record(20);
+
+    assertAll(
+      () -> assertEquals(1, testHistogram.snapshot().count()),
+      () -> assertEquals(1, testHistogram.intervalSnapshot().count())
+    );
+  }
+
+  @Test
+  public void valueAtPercentile_emptyOrInvalid() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertAll(
+      () -> assertEquals(0, snapshot.valueAtPercentile(99)),
+      () -> assertEquals(0, snapshot.max()),
+      () -> assertEquals(0, snapshot.mean()),
+      () -> assertThrows(IllegalArgumentException.class, () -> snapshot.valueAtPercentile(101))
+    );
+  }
+}
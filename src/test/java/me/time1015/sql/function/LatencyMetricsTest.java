@@ -0,0 +1,73 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyMetricsTest {
+  @Test
+  public void record_recordReachedPhasesPerName() {
+    LatencyMetrics testMetrics = new LatencyMetrics();
+
+    testMetrics.record("first", 10, 20);
+    testMetrics.record("first", 10, -1);
+    testMetrics.record("second", -1, -1);
+
+    assertAll(
+      () -> assertEquals(Set.of("first", "second"), testMetrics.names()),
+      () -> assertEquals(2, testMetrics.acquireLatency("first").snapshot().count()),
+      () -> assertEquals(1, testMetrics.handleLatency("first").snapshot().count()),
+      () -> assertEquals(0, testMetrics.acquireLatency("second").snapshot().count())
+    );
+  }
+
+  @Test
+  public void latency_unrecordedName_returnNull() {
+    LatencyMetrics testMetrics = new LatencyMetrics();
+
+    assertAll(
+      () -> assertNull(testMetrics.acquireLatency("name")),
+      () -> assertNull(testMetrics.handleLatency("name"))
+    );
+  }
+
+  @Test
+  public void reset_resetEveryHistogram() {
+    LatencyMetrics testMetrics = new LatencyMetrics();
+
+    testMetrics.record("name", 10, 20);
+    testMetrics.reset();
+
+    assertAll(
+      () -> assertEquals(0, testMetrics.acquireLatency("name").snapshot().count()),
+      () -> assertEquals(0, testMetrics.handleLatency("name").snapshot().count())
+    );
+  }
+}
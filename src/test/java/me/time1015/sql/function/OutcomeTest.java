@@ -0,0 +1,76 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class OutcomeTest {
+  @Test
+  public void failure_nullException_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> Outcome.failure(null));
+  }
+
+  @Test
+  public void success_holdValue() {
+    Object value = new Object();
+    Outcome<Object> testOutcome = Outcome.success(value);
+
+    assertAll(
+      () -> assertTrue(testOutcome.isSuccess()),
+      () -> assertFalse(testOutcome.isFailure()),
+      () -> assertSame(value, testOutcome.value()),
+      () -> assertSame(value, testOutcome.orElse(new Object())),
+      () -> assertNull(testOutcome.exception())
+    );
+  }
+
+  @Test
+  public void failure_holdException() {
+    TestException exception = new TestException();
+    Object other = new Object();
+    Outcome<Object> testOutcome = Outcome.failure(exception);
+
+    assertAll(
+      () -> assertFalse(testOutcome.isSuccess()),
+      () -> assertTrue(testOutcome.isFailure()),
+      () -> assertSame(other, testOutcome.orElse(other)),
+      () -> assertSame(exception, testOutcome.exception())
+    );
+  }
+
+  @Test
+  public void value_failure_throwIllegalStateWithException() {
+    TestException exception = new TestException();
+
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> Outcome.failure(exception).value());
+    assertSame(exception, thrown.getCause());
+  }
+}
@@ -0,0 +1,85 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class PooledConnectionFactoryBuilderTest {
+  @Test
+  public void new_nullFactory_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> PooledConnectionFactory.builder(null));
+  }
+
+  @Test
+  public void minSize_negative_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().minSize(-1));
+  }
+
+  @Test
+  public void maxSize_nonPositive_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().maxSize(0));
+  }
+
+  @Test
+  public void acquireTimeout_nullOrNegative_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().acquireTimeout(null));
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().acquireTimeout(Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  public void idleTimeout_nullOrNegative_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().idleTimeout(null));
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().idleTimeout(Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  public void statementCacheSize_negative_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().statementCacheSize(-1));
+  }
+
+  @Test
+  public void setters_returnBuilder() {
+    PooledConnectionFactoryBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.minSize(1));
+    assertSame(testBuilder, testBuilder.maxSize(1));
+    assertSame(testBuilder, testBuilder.acquireTimeout(Duration.ZERO));
+    assertSame(testBuilder, testBuilder.idleTimeout(Duration.ZERO));
+    assertSame(testBuilder, testBuilder.statementCacheSize(1));
+  }
+
+  @Test
+  public void build_minSizeExceedsMaxSize_throwIllegalState() {
+    assertThrows(IllegalStateException.class, () -> testBuilder().minSize(2).maxSize(1).build());
+  }
+
+  private PooledConnectionFactoryBuilder testBuilder() {
+    return PooledConnectionFactory.builder(() -> null);
+  }
+}
@@ -0,0 +1,307 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+public class PooledConnectionFactoryTest {
+  @Test
+  public void newConnection_releasedConnection_reusePhysicalConnection() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    Connection physical = mock(Connection.class);
+
+    try (PooledConnectionFactory testPool = testPool(() -> {
+      created.incrementAndGet();
+      return physical;
+    }, 1)) {
+      testPool.newConnection().close();
+      testPool.newConnection().close();
+
+      assertEquals(1, created.get());
+      verify(physical, never()).close();
+    }
+  }
+
+  @Test
+  public void newConnection_poolExhausted_throwTransientConnectionException() throws Exception {
+    try (PooledConnectionFactory testPool = testPool(() -> mock(Connection.class), 1)) {
+      testPool.newConnection();
+
+      assertThrows(SQLTransientConnectionException.class, testPool::newConnection);
+    }
+  }
+
+  @Test
+  public void newConnection_factoryThrowsException_releaseCapacity() throws Exception {
+    TestException toThrow = new TestException();
+
+    try (PooledConnectionFactory testPool = testPool(() -> {
+      throw toThrow;
+    }, 1)) {
+      assertThrows(TestException.class, testPool::newConnection);
+      assertThrows(TestException.class, testPool::newConnection);
+      assertEquals(0, testPool.size());
+      assertEquals(0, testPool.activeCount());
+    }
+  }
+
+  @Test
+  public void newConnection_factoryReturnsNull_throwNoConnectionProvided() {
+    try (PooledConnectionFactory testPool = testPool(() -> null, 1)) {
+      assertThrows(NoConnectionProvidedException.class, testPool::newConnection);
+    }
+  }
+
+  @Test
+  public void newConnection_closedPool_throwNonTransientConnectionException() {
+    PooledConnectionFactory testPool = testPool(() -> mock(Connection.class), 1);
+    testPool.close();
+
+    assertThrows(SQLNonTransientConnectionException.class, testPool::newConnection);
+  }
+
+  @Test
+  public void newConnection_idleConnectionFailsClosedCheck_discardAndOpenNewConnection() throws Exception {
+    Connection broken = mock(Connection.class);
+    Connection replacement = mock(Connection.class);
+    Queue<Connection> physicals = new ArrayDeque<>(List.of(broken, replacement));
+
+    try (PooledConnectionFactory testPool = testPool(physicals::poll, 1)) {
+      testPool.newConnection().close();
+      when(broken.isClosed()).thenThrow(new SQLException());
+
+      Connection logical = testPool.newConnection();
+
+      assertEquals(1, testPool.size());
+      verify(broken).close();
+      logical.close();
+      verify(replacement, never()).close();
+    }
+  }
+
+  @Test
+  public void close_logicalConnection_rejectFurtherUse() throws Exception {
+    try (PooledConnectionFactory testPool = testPool(() -> mock(Connection.class), 1)) {
+      Connection logical = testPool.newConnection();
+      logical.close();
+
+      assertTrue(logical.isClosed());
+      assertThrows(SQLException.class, logical::createStatement);
+    }
+  }
+
+  @Test
+  public void close_brokenPhysicalConnection_discardFromPool() throws Exception {
+    Connection physical = mock(Connection.class);
+
+    try (PooledConnectionFactory testPool = testPool(() -> physical, 1)) {
+      Connection logical = testPool.newConnection();
+      when(physical.isClosed()).thenReturn(true);
+      logical.close();
+
+      assertEquals(0, testPool.size());
+    }
+  }
+
+  @Test
+  public void close_openTransaction_rollBackAndRestoreSettings() throws Exception {
+    Connection physical = mock(Connection.class);
+    when(physical.getAutoCommit()).thenReturn(true, false);
+    when(physical.getTransactionIsolation())
+      .thenReturn(Connection.TRANSACTION_READ_COMMITTED, Connection.TRANSACTION_SERIALIZABLE);
+    when(physical.isReadOnly()).thenReturn(false, true);
+
+    try (PooledConnectionFactory testPool = testPool(() -> physical, 1)) {
+      testPool.newConnection().close();
+
+      InOrder inOrder = inOrder(physical);
+      inOrder.verify(physical).rollback();
+      inOrder.verify(physical).setAutoCommit(true);
+      verify(physical).setReadOnly(false);
+      verify(physical).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      assertEquals(1, testPool.size());
+    }
+  }
+
+  @Test
+  public void close_resetFails_discardFromPool() throws Exception {
+    Connection physical = mock(Connection.class);
+    when(physical.getAutoCommit()).thenReturn(true, false);
+    doThrow(new SQLException()).when(physical).rollback();
+
+    try (PooledConnectionFactory testPool = testPool(() -> physical, 1)) {
+      testPool.newConnection().close();
+
+      verify(physical).close();
+      assertEquals(0, testPool.size());
+      assertEquals(0, testPool.activeCount());
+    }
+  }
+
+  @Test
+  public void close_openStatements_closeStatements() throws Exception {
+    Connection physical = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(physical.createStatement()).thenReturn(statement);
+
+    try (PooledConnectionFactory testPool = testPool(() -> physical, 1)) {
+      Connection logical = testPool.newConnection();
+      logical.createStatement();
+      logical.close();
+
+      verify(statement).close();
+    }
+  }
+
+  @Test
+  public void close_closeIdleConnections() throws Exception {
+    Connection physical = mock(Connection.class);
+    PooledConnectionFactory testPool = testPool(() -> physical, 1);
+    testPool.newConnection().close();
+
+    testPool.close();
+
+    verify(physical).close();
+    assertEquals(0, testPool.size());
+  }
+
+  @Test
+  public void evictIdle_keepMinimumSize() throws Exception {
+    try (PooledConnectionFactory testPool = PooledConnectionFactory.builder(() -> mock(Connection.class))
+      .minSize(1)
+      .maxSize(2)
+      .idleTimeout(Duration.ofNanos(1))
+      .build()) {
+      Connection first = testPool.newConnection();
+      Connection second = testPool.newConnection();
+      first.close();
+      second.close();
+      Thread.sleep(1);
+
+      testPool.evictIdle();
+
+      assertEquals(1, testPool.size());
+      assertFalse(testPool.newConnection().isClosed());
+    }
+  }
+
+  @Test
+  public void prepareStatement_withStatementCache_reuseAcrossLogicalConnections() throws Exception {
+    Connection physical = mock(Connection.class);
+    when(physical.prepareStatement("SELECT 1")).thenAnswer(i -> mock(PreparedStatement.class));
+
+    try (PooledConnectionFactory testPool = PooledConnectionFactory.builder(() -> physical)
+      .maxSize(1)
+      .idleTimeout(Duration.ZERO)
+      .statementCacheSize(8)
+      .build()) {
+      for (int i = 0; i < 3; i++) {
+        try (Connection logical = testPool.newConnection()) {
+          logical.prepareStatement("SELECT 1").close();
+        }
+      }
+
+      verify(physical, times(1)).prepareStatement("SELECT 1");
+    }
+  }
+
+  @Test
+  public void close_openCachedStatement_returnToCacheAndRejectFurtherUse() throws Exception {
+    Connection physical = mock(Connection.class);
+    PreparedStatement underlying = mock(PreparedStatement.class);
+    when(physical.prepareStatement("SELECT 1")).thenReturn(underlying);
+
+    try (PooledConnectionFactory testPool = PooledConnectionFactory.builder(() -> physical)
+      .maxSize(1)
+      .idleTimeout(Duration.ZERO)
+      .statementCacheSize(8)
+      .build()) {
+      Connection logical = testPool.newConnection();
+      PreparedStatement statement = logical.prepareStatement("SELECT 1");
+      logical.close();
+
+      assertTrue(statement.isClosed());
+      assertThrows(SQLException.class, statement::executeQuery);
+
+      try (Connection next = testPool.newConnection()) {
+        next.prepareStatement("SELECT 1");
+      }
+
+      verify(physical, times(1)).prepareStatement("SELECT 1");
+      verify(underlying, never()).close();
+    }
+  }
+
+  @Test
+  public void prepareStatement_withoutStatementCache_prepareEveryTime() throws Exception {
+    Connection physical = mock(Connection.class);
+
+    try (PooledConnectionFactory testPool = testPool(() -> physical, 1)) {
+      for (int i = 0; i < 2; i++) {
+        try (Connection logical = testPool.newConnection()) {
+          logical.prepareStatement("SELECT 1");
+        }
+      }
+
+      verify(physical, times(2)).prepareStatement("SELECT 1");
+    }
+  }
+
+  private PooledConnectionFactory testPool(ConnectionFactory factory, int maxSize) {
+    return PooledConnectionFactory.builder(factory)
+      .maxSize(maxSize)
+      .acquireTimeout(Duration.ZERO)
+      .idleTimeout(Duration.ZERO)
+      .build();
+  }
+
+  static {
+    mock(Connection.class);
+  }
+}
@@ -0,0 +1,116 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+public class ResultSetSpliteratorTest {
+  private final Connection connection = mock(Connection.class);
+  private final Statement statement = mock(Statement.class);
+  private final ResultSet resultSet = mock(ResultSet.class);
+
+  @Test
+  public void tryAdvance_exhausted_closeResourcesInOrder() throws Exception {
+    TestValue released = new TestValue(false);
+    ResultSetSpliterator<Object> testRows = testRows(row -> row, e -> {}, (start, end, e) -> released.value(true));
+
+    assertFalse(testRows.tryAdvance(row -> {}));
+
+    InOrder order = inOrder(resultSet, statement, connection);
+    order.verify(resultSet).close();
+    order.verify(statement).close();
+    order.verify(connection).close();
+    assertAll(
+      () -> assertTrue(testRows.isClosed()),
+      () -> assertEquals(true, released.value())
+    );
+  }
+
+  @Test
+  public void tryAdvance_mapperThrowsException_closeThenCallExceptionHandler() throws Exception {
+    TestException toThrow = new TestException();
+    TestValue thrown = new TestValue();
+    TestValue reported = new TestValue();
+    when(resultSet.next()).thenReturn(true);
+    ResultSetSpliterator<Object> testRows = testRows(row -> {
+      throw toThrow;
+    }, e -> {
+      assertTrue(reported.value() != null);
+      thrown.value(e);
+    }, (start, end, e) -> reported.value(e));
+
+    assertFalse(testRows.tryAdvance(row -> {}));
+    assertAll(
+      () -> assertSame(toThrow, thrown.value()),
+      () -> assertSame(toThrow, reported.value()),
+      () -> assertFalse(testRows.tryAdvance(row -> {}))
+    );
+  }
+
+  @Test
+  public void close_closeThrowsException_callExceptionHandler() throws Exception {
+    SQLException toThrow = new SQLException();
+    TestValue thrown = new TestValue();
+    doThrow(toThrow).when(statement).close();
+
+    testRows(row -> row, thrown::value, (start, end, e) -> {}).close();
+
+    assertSame(toThrow, thrown.value());
+  }
+
+  @Test
+  public void close_calledTwice_releaseOnce() {
+    int[] released = new int[1];
+    ResultSetSpliterator<Object> testRows = testRows(row -> row, e -> {}, (start, end, e) -> released[0]++);
+
+    testRows.close();
+    testRows.close();
+
+    assertEquals(1, released[0]);
+  }
+
+  private ResultSetSpliterator<Object> testRows(
+    RowMapper<Object> mapper,
+    ExceptionHandler onException,
+    ResultSetSpliterator.Release onRelease
+  ) {
+    return new ResultSetSpliterator<>(connection, statement, resultSet, mapper, onException, onRelease);
+  }
+}
@@ -0,0 +1,156 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class RetryPolicyTest {
+  @Test
+  public void isRetryable_transientOrRecoverable_returnTrue() {
+    RetryPolicy testPolicy = RetryPolicy.builder().build();
+
+    assertAll(
+      () -> assertTrue(testPolicy.isRetryable(new SQLTransientConnectionException())),
+      () -> assertTrue(testPolicy.isRetryable(new SQLRecoverableException()))
+    );
+  }
+
+  @Test
+  public void isRetryable_defaultSqlStates_returnTrue() {
+    RetryPolicy testPolicy = RetryPolicy.builder().build();
+
+    assertAll(
+      () -> assertTrue(testPolicy.isRetryable(new SQLException("", "40001"))),
+      () -> assertTrue(testPolicy.isRetryable(new SQLException("", "40P01"))),
+      () -> assertFalse(testPolicy.isRetryable(new SQLException("", "23505"))),
+      () -> assertFalse(testPolicy.isRetryable(new SQLException()))
+    );
+  }
+
+  @Test
+  public void isRetryable_registeredPrefix_returnTrue() {
+    RetryPolicy testPolicy = RetryPolicy.builder().retrySqlStates("08").build();
+
+    assertTrue(testPolicy.isRetryable(new SQLNonTransientException("", "08006")));
+  }
+
+  @Test
+  public void isRetryable_clearedSqlStates_returnFalse() {
+    RetryPolicy testPolicy = RetryPolicy.builder().clearSqlStates().build();
+
+    assertFalse(testPolicy.isRetryable(new SQLException("", "40001")));
+  }
+
+  @Test
+  public void isRetryable_retryableCause_returnTrue() {
+    RetryPolicy testPolicy = RetryPolicy.builder().build();
+
+    assertTrue(testPolicy.isRetryable(new Exception(new SQLRecoverableException())));
+  }
+
+  @Test
+  public void isRetryable_otherException_returnFalse() {
+    assertFalse(RetryPolicy.builder().build().isRetryable(new TestException()));
+  }
+
+  @Test
+  public void backoffNanos_growExponentiallyUpToMaximum() {
+    RetryPolicy testPolicy = RetryPolicy.builder()
+      .maxAttempts(10)
+      .backoff(Duration.ofNanos(100), Duration.ofNanos(500), 2)
+      .jitter(0)
+      .build();
+    Exception transientFailure = new SQLRecoverableException();
+
+    assertAll(
+      () -> assertEquals(100, testPolicy.backoffNanos(transientFailure, 1, 0)),
+      () -> assertEquals(200, testPolicy.backoffNanos(transientFailure, 2, 0)),
+      () -> assertEquals(400, testPolicy.backoffNanos(transientFailure, 3, 0)),
+      () -> assertEquals(500, testPolicy.backoffNanos(transientFailure, 4, 0))
+    );
+  }
+
+  @Test
+  public void backoffNanos_withJitter_stayWithinRange() {
+    RetryPolicy testPolicy = RetryPolicy.builder()
+      .backoff(Duration.ofNanos(1000), Duration.ofNanos(1000), 1)
+      .jitter(0.5)
+      .build();
+
+    for (int i = 0; i < 100; i++) {
+      long backoff = testPolicy.backoffNanos(new SQLRecoverableException(), 1, 0);
+      assertTrue(backoff >= 500 && backoff <= 1000);
+    }
+  }
+
+  @Test
+  public void backoffNanos_attemptsExhausted_returnNegative() {
+    RetryPolicy testPolicy = RetryPolicy.builder().maxAttempts(2).build();
+
+    assertEquals(-1, testPolicy.backoffNanos(new SQLRecoverableException(), 2, 0));
+  }
+
+  @Test
+  public void backoffNanos_pastDeadline_returnNegative() {
+    RetryPolicy testPolicy = RetryPolicy.builder().deadline(Duration.ofNanos(1000)).jitter(0).build();
+
+    assertEquals(-1, testPolicy.backoffNanos(new SQLRecoverableException(), 1, 1000));
+  }
+
+  @Test
+  public void backoffNanos_notRetryable_returnNegative() {
+    assertEquals(-1, RetryPolicy.builder().build().backoffNanos(new TestException(), 1, 0));
+  }
+
+  @Test
+  public void builder_invalidArguments_throwIllegalArgument() {
+    RetryPolicyBuilder testBuilder = RetryPolicy.builder();
+    Duration second = Duration.ofSeconds(1);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.maxAttempts(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.backoff(null, second, 2)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.backoff(second, null, 2)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.backoff(second, Duration.ZERO, 2)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.backoff(second, second, 0.5)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.jitter(1.5)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.deadline(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.deadline(Duration.ofSeconds(-1))),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.retrySqlStates((String[]) null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.retrySqlStates(""))
+    );
+  }
+}
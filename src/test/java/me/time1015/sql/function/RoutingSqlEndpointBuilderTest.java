@@ -0,0 +1,75 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class RoutingSqlEndpointBuilderTest {
+  @Test
+  public void new_nullPrimary_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> RoutingSqlEndpoint.builder(null));
+  }
+
+  @Test
+  public void setters_invalidArguments_throwIllegalArgument() {
+    RoutingSqlEndpointBuilder testBuilder = testBuilder();
+    Duration second = Duration.ofSeconds(1);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.replica(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.exceptionHandler(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.ejection(0, second)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.ejection(1, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.ejection(1, Duration.ofSeconds(-1)))
+    );
+  }
+
+  @Test
+  public void setters_returnBuilder() {
+    RoutingSqlEndpointBuilder testBuilder = testBuilder();
+
+    assertAll(
+      () -> assertSame(testBuilder, testBuilder.replica(() -> null)),
+      () -> assertSame(testBuilder, testBuilder.exceptionHandler(e -> {})),
+      () -> assertSame(testBuilder, testBuilder.ejection(1, Duration.ZERO)),
+      () -> assertSame(testBuilder, testBuilder.fallbackToPrimary(false))
+    );
+  }
+
+  @Test
+  public void build_returnRoutingEndpoint() {
+    assertTrue(testBuilder().build() instanceof RoutingSqlEndpoint);
+  }
+
+  private RoutingSqlEndpointBuilder testBuilder() {
+    return RoutingSqlEndpoint.builder(() -> null);
+  }
+}
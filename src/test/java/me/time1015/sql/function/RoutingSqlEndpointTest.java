@@ -0,0 +1,205 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class RoutingSqlEndpointTest {
+  private final Connection primary = stubConnection();
+  private final Connection replica = stubConnection();
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void connectReadOnly_nullArguments_throwIllegalArgument() {
+    RoutingSqlEndpoint testEndpoint = testBuilder().build();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectReadOnly(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectReadOnly(null, e -> {})),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectReadOnly(c -> c, null))
+    );
+  }
+
+  @Test
+  public void connect_runOnPrimary() {
+    RoutingSqlEndpoint testEndpoint = testBuilder().replica(() -> replica).build();
+
+    assertAll(
+      () -> assertSame(primary, testEndpoint.connect(c -> c)),
+      () -> assertSame(primary, testEndpoint.connect(c -> c, e -> {})),
+      () -> assertSame(primary, testEndpoint.primary().connect(c -> c))
+    );
+  }
+
+  @Test
+  public void connectReadOnly_runOnReplica() {
+    RoutingSqlEndpoint testEndpoint = testBuilder().replica(() -> replica).build();
+
+    assertSame(replica, testEndpoint.connectReadOnly(c -> c));
+  }
+
+  @Test
+  public void connectReadOnly_noReplicas_runOnPrimary() {
+    assertSame(primary, testBuilder().build().connectReadOnly(c -> c));
+  }
+
+  @Test
+  public void connectReadOnly_preferLeastOutstandingReplica() throws Exception {
+    Connection other = stubConnection();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RoutingSqlEndpoint testEndpoint = testBuilder().replica(() -> replica).replica(() -> other).build();
+
+    Object[] busy = new Object[1];
+    Thread caller = new Thread(() -> testEndpoint.connectReadOnly(c -> {
+      busy[0] = c;
+      started.countDown();
+      release.await();
+      return c;
+    }));
+    caller.start();
+    started.await();
+
+    try {
+      for (int i = 0; i < 10; i++)
+        assertTrue(busy[0] != testEndpoint.connectReadOnly(c -> c));
+    } finally {
+      release.countDown();
+      caller.join();
+    }
+  }
+
+  @Test
+  public void connectReadOnly_replicaConnectionFails_fallBackToPrimary() {
+    RoutingSqlEndpoint testEndpoint = testBuilder().replica(() -> {
+      throw new SQLNonTransientConnectionException();
+    }).build();
+
+    assertSame(primary, testEndpoint.connectReadOnly(c -> c));
+  }
+
+  @Test
+  public void connectReadOnly_replicaHandlerFails_handleWithoutFallback() {
+    TestException toThrow = new TestException();
+    TestValue thrown = new TestValue();
+    TestValue ranOn = new TestValue();
+    RoutingSqlEndpoint testEndpoint = testBuilder().replica(() -> replica).build();
+
+    testEndpoint.connectReadOnly(c -> {
+      ranOn.value(c);
+      throw toThrow;
+    }, thrown::value);
+
+    assertAll(
+      () -> assertSame(toThrow, thrown.value()),
+      () -> assertSame(replica, ranOn.value())
+    );
+  }
+
+  @Test
+  public void connectReadOnly_replicaHandlerThrowsConnectionSqlState_handleWithoutFallbackOrEjection() {
+    SQLException toThrow = new SQLException("Connection lost", "08006");
+    List<Object> thrown = new ArrayList<>();
+    List<Object> ranOn = new ArrayList<>();
+    RoutingSqlEndpoint testEndpoint = testBuilder().ejection(1, Duration.ofNanos(100)).replica(() -> replica).build();
+
+    for (int i = 0; i < 2; i++)
+      testEndpoint.connectReadOnly(c -> {
+        ranOn.add(c);
+        throw toThrow;
+      }, thrown::add);
+
+    assertAll(
+      () -> assertEquals(List.of(toThrow, toThrow), thrown),
+      () -> assertEquals(List.of(replica, replica), ranOn),
+      () -> assertEquals(1, testEndpoint.healthyReplicaCount())
+    );
+  }
+
+  @Test
+  public void connectReadOnly_consecutiveFailures_ejectReplicaUntilDurationElapses() {
+    boolean[] failing = { true };
+    RoutingSqlEndpoint testEndpoint = testBuilder().ejection(2, Duration.ofNanos(100)).replica(() -> {
+      if (failing[0])
+        throw new SQLNonTransientConnectionException();
+
+      return replica;
+    }).build();
+
+    testEndpoint.connectReadOnly(c -> c);
+    assertEquals(1, testEndpoint.healthyReplicaCount());
+    testEndpoint.connectReadOnly(c -> c);
+    assertEquals(0, testEndpoint.healthyReplicaCount());
+
+    failing[0] = false;
+    assertSame(primary, testEndpoint.connectReadOnly(c -> c));
+
+    now.set(100);
+    assertSame(replica, testEndpoint.connectReadOnly(c -> c));
+    assertEquals(1, testEndpoint.healthyReplicaCount());
+  }
+
+  @Test
+  public void connectReadOnly_withoutFallback_handleConnectionFailure() {
+    SQLNonTransientConnectionException toThrow = new SQLNonTransientConnectionException();
+    TestValue thrown = new TestValue();
+    RoutingSqlEndpoint testEndpoint = testBuilder().fallbackToPrimary(false).ejection(1, Duration.ofNanos(100)).replica(() -> {
+      throw toThrow;
+    }).build();
+
+    testEndpoint.connectReadOnly(c -> c, thrown::value);
+    assertSame(toThrow, thrown.value());
+
+    thrown.value(null);
+    testEndpoint.connectReadOnly(c -> c, thrown::value);
+    assertSame(toThrow, thrown.value());
+  }
+
+  private RoutingSqlEndpointBuilder testBuilder() {
+    RoutingSqlEndpointBuilder builder = RoutingSqlEndpoint.builder(() -> primary).exceptionHandler(e -> {});
+    builder.clock = now::get;
+    return builder;
+  }
+
+  private static Connection stubConnection() {
+    return mock(Connection.class, withSettings().stubOnly());
+  }
+}
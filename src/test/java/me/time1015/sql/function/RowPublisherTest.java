@@ -0,0 +1,235 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class RowPublisherTest {
+  private final Connection connection = mock(Connection.class);
+  private final ResultSet resultSet = mock(ResultSet.class);
+  private final AtomicInteger remaining = new AtomicInteger();
+  private final AtomicInteger opened = new AtomicInteger();
+
+  @Test
+  public void subscribe_nullSubscriber_throwNullPointer() {
+    assertThrows(NullPointerException.class, () -> testPublisher(row -> row, e -> {}).subscribe(null));
+  }
+
+  @Test
+  public void subscribe_noRequest_doNotOpen() {
+    testPublisher(row -> row, e -> {}).subscribe(new TestSubscriber());
+
+    assertEquals(0, opened.get());
+  }
+
+  @Test
+  public void request_emitOnlyRequestedRows() throws Exception {
+    remaining.set(5);
+    TestSubscriber subscriber = new TestSubscriber();
+    testPublisher(row -> row, e -> {}).subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+
+    assertAll(
+      () -> assertEquals(2, subscriber.items.size()),
+      () -> assertEquals(false, subscriber.completed),
+      () -> verify(resultSet, times(2)).next(),
+      () -> verify(connection, never()).close()
+    );
+  }
+
+  @Test
+  public void request_rowsExhausted_completeAndClose() throws Exception {
+    remaining.set(2);
+    TestSubscriber subscriber = new TestSubscriber();
+    testPublisher(row -> row, e -> {}).subscribe(subscriber);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertAll(
+      () -> assertEquals(2, subscriber.items.size()),
+      () -> assertEquals(true, subscriber.completed),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void request_requestedFromOnNext_emitAllRows() {
+    remaining.set(3);
+    TestSubscriber subscriber = new TestSubscriber() {
+      @Override
+      public void onNext(Object item) {
+        super.onNext(item);
+        subscription.request(1);
+      }
+    };
+    testPublisher(row -> row, e -> {}).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertAll(
+      () -> assertEquals(3, subscriber.items.size()),
+      () -> assertEquals(true, subscriber.completed)
+    );
+  }
+
+  @Test
+  public void request_nonPositive_signalErrorAndClose() throws Exception {
+    remaining.set(2);
+    TestSubscriber subscriber = new TestSubscriber();
+    testPublisher(row -> row, e -> {}).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+    subscriber.subscription.request(0);
+
+    assertAll(
+      () -> assertTrue(subscriber.error instanceof IllegalArgumentException),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void cancel_closeConnection() throws Exception {
+    remaining.set(2);
+    TestSubscriber subscriber = new TestSubscriber();
+    testPublisher(row -> row, e -> {}).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+
+    assertAll(
+      () -> assertEquals(false, subscriber.completed),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void request_mapperThrowsException_callExceptionHandlerAndComplete() {
+    remaining.set(2);
+    TestException toThrow = new TestException();
+    TestValue thrown = new TestValue();
+    TestSubscriber subscriber = new TestSubscriber();
+    testPublisher(row -> {
+      throw toThrow;
+    }, thrown::value).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertAll(
+      () -> assertSame(toThrow, thrown.value()),
+      () -> assertEquals(true, subscriber.completed)
+    );
+  }
+
+  @Test
+  public void request_exceptionHandlerThrowsException_signalError() {
+    remaining.set(2);
+    TestSubscriber subscriber = new TestSubscriber();
+    testPublisher(row -> {
+      throw new TestException();
+    }, ExceptionHandler.rethrow()).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertTrue(subscriber.error instanceof SqlEndpointException);
+  }
+
+  @Test
+  public void request_openThrowsException_callExceptionHandlerAndComplete() {
+    TestException toThrow = new TestException();
+    TestValue thrown = new TestValue();
+    TestSubscriber subscriber = new TestSubscriber();
+    new RowPublisher<Object>(() -> {
+      throw toThrow;
+    }, thrown::value, Runnable::run).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertAll(
+      () -> assertSame(toThrow, thrown.value()),
+      () -> assertEquals(true, subscriber.completed)
+    );
+  }
+
+  private RowPublisher<Object> testPublisher(RowMapper<Object> mapper, ExceptionHandler onException) {
+    return new RowPublisher<>(() -> {
+      opened.incrementAndGet();
+      when(resultSet.next()).thenAnswer(invocation -> remaining.getAndDecrement() > 0);
+      return new ResultSetSpliterator<>(
+        connection,
+        mock(Statement.class),
+        resultSet,
+        mapper,
+        onException,
+        (start, end, e) -> {}
+      );
+    }, onException, Runnable::run);
+  }
+
+  private static class TestSubscriber implements Flow.Subscriber<Object> {
+    protected Flow.Subscription subscription;
+    private final List<Object> items = new ArrayList<>();
+    private boolean completed;
+    private Throwable error;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Object item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardedSqlEndpointBuilderTest {
+  @Test
+  public void setters_invalidArguments_throwIllegalArgument() {
+    ShardedSqlEndpointBuilder testBuilder = ShardedSqlEndpoint.builder();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.shard(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.shard(null, () -> null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.shard(1, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.exceptionHandler(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.virtualNodes(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.executor(null))
+    );
+  }
+
+  @Test
+  public void setters_returnBuilder() {
+    ShardedSqlEndpointBuilder testBuilder = ShardedSqlEndpoint.builder();
+
+    assertAll(
+      () -> assertSame(testBuilder, testBuilder.shard(() -> null)),
+      () -> assertSame(testBuilder, testBuilder.exceptionHandler(e -> {})),
+      () -> assertSame(testBuilder, testBuilder.virtualNodes(1)),
+      () -> assertSame(testBuilder, testBuilder.executor(Runnable::run)),
+      () -> assertSame(testBuilder, testBuilder.partialResults(true))
+    );
+  }
+
+  @Test
+  public void build_invalidShards_throwIllegalState() {
+    assertAll(
+      () -> assertThrows(IllegalStateException.class, () -> ShardedSqlEndpoint.builder().build()),
+      () -> assertThrows(IllegalStateException.class, () -> ShardedSqlEndpoint.builder()
+        .shard(() -> null)
+        .shard(1, () -> null)
+        .build()),
+      () -> assertThrows(IllegalStateException.class, () -> ShardedSqlEndpoint.builder()
+        .shard(1, () -> null)
+        .shard(1, () -> null)
+        .build()),
+      () -> assertThrows(IllegalStateException.class, () -> ShardedSqlEndpoint.builder()
+        .shard(1, () -> null)
+        .shard("a", () -> null)
+        .build())
+    );
+  }
+
+  @Test
+  public void build_returnShardedEndpoint() {
+    assertTrue(ShardedSqlEndpoint.builder().shard(() -> null).build() instanceof ShardedSqlEndpoint);
+  }
+}
@@ -0,0 +1,189 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardedSqlEndpointTest {
+  private final Connection[] connections = {
+    stubConnection(),
+    stubConnection(),
+    stubConnection()
+  };
+
+  @Test
+  public void connect_nullArguments_throwIllegalArgument() {
+    ShardedSqlEndpoint testEndpoint = hashedBuilder().build();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(null, c -> c)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect("key", null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect("key", c -> c, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectAll(null, (a, b) -> a)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectAll(c -> c, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectAll(c -> c, (a, b) -> a, null))
+    );
+  }
+
+  @Test
+  public void connect_hashed_routeKeyConsistently() {
+    ShardedSqlEndpoint testEndpoint = hashedBuilder().build();
+
+    for (int key = 0; key < 100; key++)
+      assertSame(connections[testEndpoint.shardOf(key)], testEndpoint.connect(key, c -> c));
+  }
+
+  @Test
+  public void shardOf_hashed_spreadKeysOverEveryShard() {
+    ShardedSqlEndpoint testEndpoint = hashedBuilder().build();
+    int[] counts = new int[connections.length];
+
+    for (int key = 0; key < 3000; key++)
+      counts[testEndpoint.shardOf("key-" + key)]++;
+
+    for (int count : counts)
+      assertTrue(count > 500, () -> "Uneven shard: " + count);
+  }
+
+  @Test
+  public void shardOf_hashedShardAdded_moveFewKeys() {
+    ShardedSqlEndpoint before = hashedBuilder().build();
+    ShardedSqlEndpoint after = hashedBuilder().shard(() -> stubConnection()).build();
+    int moved = 0;
+
+    for (int key = 0; key < 3000; key++) {
+      int shard = after.shardOf("key-" + key);
+      if (shard != 3 && shard != before.shardOf("key-" + key))
+        moved++;
+    }
+
+    assertEquals(0, moved);
+  }
+
+  @Test
+  public void connect_ranged_routeToRangeOfKey() {
+    ShardedSqlEndpoint testEndpoint = rangedBuilder().build();
+
+    assertAll(
+      () -> assertSame(connections[0], testEndpoint.connect(0, c -> c)),
+      () -> assertSame(connections[0], testEndpoint.connect(99, c -> c)),
+      () -> assertSame(connections[1], testEndpoint.connect(100, c -> c)),
+      () -> assertSame(connections[2], testEndpoint.connect(1000, c -> c))
+    );
+  }
+
+  @Test
+  public void connect_rangedKeyOutOfRanges_callExceptionHandler() {
+    ShardedSqlEndpoint testEndpoint = rangedBuilder().build();
+    TestValue thrown = new TestValue();
+
+    Object returned = testEndpoint.connect(-1, c -> c, thrown::value);
+
+    assertAll(
+      () -> assertTrue(thrown.value() instanceof IllegalArgumentException),
+      () -> assertEquals(null, returned),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.shardOf("a"))
+    );
+  }
+
+  @Test
+  public void connectAll_combineResultsInShardOrder() {
+    ShardedSqlEndpoint testEndpoint = hashedBuilder().build();
+
+    List<Object> combined = testEndpoint.connectAll(c -> List.of(c), (a, b) -> {
+      List<Object> merged = new ArrayList<>(a);
+      merged.addAll(b);
+      return merged;
+    });
+
+    assertEquals(List.of(connections), combined);
+  }
+
+  @Test
+  public void connectAll_shardFails_handleAndReturnDefaultValue() {
+    List<Object> thrown = new ArrayList<>();
+    ShardedSqlEndpoint testEndpoint = failingBuilder().build();
+
+    Object returned = testEndpoint.connectAll(c -> 1, Integer::sum, thrown::add);
+
+    assertAll(
+      () -> assertEquals(null, returned),
+      () -> assertEquals(1, thrown.size())
+    );
+  }
+
+  @Test
+  public void connectAll_shardFailsWithPartialResults_combineOtherShards() {
+    List<Object> thrown = new ArrayList<>();
+    ShardedSqlEndpoint testEndpoint = failingBuilder().partialResults(true).build();
+
+    Object returned = testEndpoint.connectAll(c -> 1, Integer::sum, thrown::add);
+
+    assertAll(
+      () -> assertEquals(2, returned),
+      () -> assertEquals(1, thrown.size())
+    );
+  }
+
+  private ShardedSqlEndpointBuilder hashedBuilder() {
+    ShardedSqlEndpointBuilder builder = ShardedSqlEndpoint.builder().executor(Runnable::run);
+    for (Connection connection : connections)
+      builder.shard(() -> connection);
+
+    return builder;
+  }
+
+  private ShardedSqlEndpointBuilder rangedBuilder() {
+    return ShardedSqlEndpoint.builder()
+      .shard(100, () -> connections[1])
+      .shard(0, () -> connections[0])
+      .shard(1000, () -> connections[2]);
+  }
+
+  private ShardedSqlEndpointBuilder failingBuilder() {
+    return ShardedSqlEndpoint.builder()
+      .executor(Runnable::run)
+      .shard(() -> connections[0])
+      .shard(() -> {
+        throw new TestException();
+      })
+      .shard(() -> connections[2]);
+  }
+
+  private static Connection stubConnection() {
+    return mock(Connection.class, withSettings().stubOnly());
+  }
+}
@@ -0,0 +1,67 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class SqlBatcherBuilderTest {
+  @Test
+  public void new_nullEndpoint_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> SqlBatcher.builder(null));
+  }
+
+  @Test
+  public void exceptionHandler_nullHandler_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().exceptionHandler(null));
+  }
+
+  @Test
+  public void maxBatchSize_nonPositive_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().maxBatchSize(0));
+  }
+
+  @Test
+  public void maxDelay_nullOrNegative_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().maxDelay(null));
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().maxDelay(Duration.ofMillis(-1)));
+  }
+
+  @Test
+  public void setters_returnBuilder() {
+    SqlBatcherBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.exceptionHandler(e -> {}));
+    assertSame(testBuilder, testBuilder.maxBatchSize(1));
+    assertSame(testBuilder, testBuilder.maxDelay(Duration.ZERO));
+  }
+
+  private SqlBatcherBuilder testBuilder() {
+    return SqlBatcher.builder(new SqlEndpoint(() -> null));
+  }
+}
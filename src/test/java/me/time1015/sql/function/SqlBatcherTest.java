@@ -0,0 +1,170 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SqlBatcherTest {
+  @Test
+  public void submit_nullHandlers_throwIllegalArgument() {
+    try (SqlBatcher testBatcher = SqlBatcher.builder(new SqlEndpoint(() -> null)).build()) {
+      assertThrows(IllegalArgumentException.class, () -> testBatcher.submit(null));
+      assertThrows(IllegalArgumentException.class, () -> testBatcher.submit(null, e -> {}));
+      assertThrows(IllegalArgumentException.class, () -> testBatcher.submit(c -> {}, null));
+    }
+  }
+
+  @Test
+  public void submit_closedBatcher_throwIllegalState() {
+    SqlBatcher testBatcher = SqlBatcher.builder(new SqlEndpoint(() -> null)).build();
+    testBatcher.close();
+
+    assertThrows(IllegalStateException.class, () -> testBatcher.submit(c -> {}));
+  }
+
+  @Test
+  public void submit_fullBatch_runOnSingleConnectionInSingleTransaction() throws Exception {
+    AtomicInteger connections = new AtomicInteger();
+    Connection connection = mock(Connection.class);
+    when(connection.getAutoCommit()).thenReturn(true);
+    SqlEndpoint endpoint = new SqlEndpoint(() -> {
+      connections.incrementAndGet();
+      return connection;
+    });
+
+    try (SqlBatcher testBatcher = SqlBatcher.builder(endpoint).maxBatchSize(3).maxDelay(Duration.ofHours(1)).build()) {
+      CompletableFuture<?>[] futures = new CompletableFuture<?>[3];
+      for (int i = 0; i < futures.length; i++)
+        futures[i] = testBatcher.submit(c -> {});
+
+      CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+    }
+
+    assertEquals(1, connections.get());
+    verify(connection).setAutoCommit(false);
+    verify(connection, times(1)).commit();
+    verify(connection).setAutoCommit(true);
+  }
+
+  @Test
+  public void submit_maxDelayElapsed_runPartialBatch() throws Exception {
+    try (SqlBatcher testBatcher = SqlBatcher.builder(new SqlEndpoint(() -> mock(Connection.class)))
+      .maxBatchSize(100)
+      .maxDelay(Duration.ofMillis(1))
+      .build()) {
+      testBatcher.submit(c -> {}).get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void submit_handlerThrowsException_rollbackToSavepointAndCallExceptionHandler() throws Exception {
+    TestValue thrown = new TestValue();
+    TestException toThrow = new TestException();
+    Savepoint failingSavepoint = mock(Savepoint.class);
+    Connection connection = mock(Connection.class);
+    when(connection.setSavepoint()).thenReturn(mock(Savepoint.class), failingSavepoint);
+
+    CompletableFuture<Void> succeeding;
+    CompletableFuture<Void> failing;
+    try (SqlBatcher testBatcher = SqlBatcher.builder(new SqlEndpoint(() -> connection))
+      .maxBatchSize(2)
+      .maxDelay(Duration.ofHours(1))
+      .build()) {
+      succeeding = testBatcher.submit(c -> {});
+      failing = testBatcher.submit(c -> {
+        throw toThrow;
+      }, thrown::value);
+    }
+
+    failing.get(10, TimeUnit.SECONDS);
+    succeeding.get(10, TimeUnit.SECONDS);
+    assertSame(toThrow, thrown.value());
+    verify(connection).rollback(failingSavepoint);
+    verify(connection, never()).rollback();
+    verify(connection).commit();
+  }
+
+  @Test
+  public void submit_batchRetriedAfterHandlerFailed_reportOnlyLastAttemptFailures() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    AtomicInteger handled = new AtomicInteger();
+    Connection connection = mock(Connection.class);
+    doThrow(new SQLException("", "40001")).doNothing().when(connection).commit();
+    SqlEndpoint endpoint = SqlEndpoint.builder(() -> connection)
+      .retry(RetryPolicy.builder().backoff(Duration.ZERO, Duration.ZERO, 1).build())
+      .build();
+
+    CompletableFuture<Void> future;
+    try (SqlBatcher testBatcher = SqlBatcher.builder(endpoint).maxDelay(Duration.ofHours(1)).build()) {
+      future = testBatcher.submit(c -> {
+        if (attempts.incrementAndGet() == 1)
+          throw new TestException();
+      }, e -> handled.incrementAndGet());
+    }
+
+    future.get(10, TimeUnit.SECONDS);
+    assertEquals(2, attempts.get());
+    assertEquals(0, handled.get());
+    verify(connection, times(2)).commit();
+  }
+
+  @Test
+  public void submit_batchFails_completeExceptionallyThroughRethrowingHandler() {
+    TestException toThrow = new TestException();
+    CompletableFuture<Void> future;
+    try (SqlBatcher testBatcher = SqlBatcher.builder(new SqlEndpoint(() -> {
+      throw toThrow;
+    }, ExceptionHandler.ignore())).maxDelay(Duration.ofHours(1)).build()) {
+      future = testBatcher.submit(c -> {});
+    }
+
+    CompletionException thrown = assertThrows(CompletionException.class, future::join);
+    assertTrue(thrown.getCause() instanceof SqlEndpointException);
+    assertSame(toThrow, thrown.getCause().getCause());
+  }
+
+  static {
+    mock(Connection.class);
+  }
+}
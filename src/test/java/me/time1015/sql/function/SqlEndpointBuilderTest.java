@@ -0,0 +1,159 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class SqlEndpointBuilderTest {
+  @Test
+  public void new_nullFactory_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> SqlEndpoint.builder(null));
+  }
+
+  @Test
+  public void exceptionHandler_nullHandler_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().exceptionHandler(null));
+  }
+
+  @Test
+  public void exceptionHandler_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.exceptionHandler(e -> {}));
+  }
+
+  @Test
+  public void executor_nullExecutor_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().executor(null));
+  }
+
+  @Test
+  public void executor_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.executor(Runnable::run));
+  }
+
+  @Test
+  public void listener_nullListener_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().listener(null));
+  }
+
+  @Test
+  public void listener_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.listener((acquire, handle, close, e) -> {}));
+  }
+
+  @Test
+  public void retry_nullPolicy_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().retry(null));
+  }
+
+  @Test
+  public void retry_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.retry(RetryPolicy.builder().build()));
+  }
+
+  @Test
+  public void circuitBreaker_nullPolicy_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().circuitBreaker(null));
+  }
+
+  @Test
+  public void circuitBreaker_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.circuitBreaker(CircuitBreakerPolicy.builder().build()));
+  }
+
+  @Test
+  public void leakDetection_invalidArguments_throwIllegalArgument() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+    ExceptionHandler onLeak = ExceptionHandler.ignore();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.leakDetection(null, 0, onLeak)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.leakDetection(Duration.ZERO, 0, onLeak)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.leakDetection(Duration.ofSeconds(1), -0.1, onLeak)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.leakDetection(Duration.ofSeconds(1), 1.1, onLeak)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.leakDetection(Duration.ofSeconds(1), 0, null))
+    );
+  }
+
+  @Test
+  public void leakDetection_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.leakDetection(Duration.ofSeconds(1), 0.01, ExceptionHandler.ignore()));
+  }
+
+  @Test
+  public void stacklessExceptions_invalidSamplingRate_throwIllegalArgument() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.stacklessExceptions(-0.1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testBuilder.stacklessExceptions(Double.NaN))
+    );
+  }
+
+  @Test
+  public void stacklessExceptions_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.stacklessExceptions(0.01));
+  }
+
+  @Test
+  public void latencyMetrics_nullMetrics_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> testBuilder().latencyMetrics(null));
+  }
+
+  @Test
+  public void latencyMetrics_returnBuilder() {
+    SqlEndpointBuilder testBuilder = testBuilder();
+
+    assertSame(testBuilder, testBuilder.latencyMetrics(new LatencyMetrics()));
+  }
+
+  @Test
+  public void build_returnEndpoint() {
+    assertTrue(testBuilder().build() instanceof SqlEndpoint);
+  }
+
+  private SqlEndpointBuilder testBuilder() {
+    return SqlEndpoint.builder(() -> null);
+  }
+}
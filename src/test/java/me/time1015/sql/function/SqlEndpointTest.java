@@ -24,15 +24,40 @@ package me.time1015.sql.function;
  */
 
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -68,6 +93,887 @@ public class SqlEndpointTest {
     assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(c -> null, null));
   }
 
+  @Test
+  public void connectAsync_nullConnectionHandler_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectAsync(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectAsync(null, e -> {}))
+    );
+  }
+
+  @Test
+  public void connectAsync_nullExceptionHandler_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+
+    assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectAsync(c -> null, null));
+  }
+
+  @Test
+  public void connectAsync_runOnExecutor() {
+    TestValue executed = new TestValue(0);
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection()).executor(task -> {
+      executed.value((int) executed.value() + 1);
+      task.run();
+    }).build();
+
+    testEndpoint.connectAsync(c -> c).join();
+    testEndpoint.connectAsync(c -> c, e -> {}).join();
+
+    assertEquals(2, executed.value());
+  }
+
+  @Test
+  public void connectAsync_connectionHandlerThrowsException_completeExceptionallyAsSqlEndpointException() {
+    TestException toThrow = new TestException();
+
+    CompletionException thrown = assertThrows(CompletionException.class, () -> {
+      new SqlEndpoint(() -> stubConnection()).connectAsync(c -> {
+        throw toThrow;
+      }).join();
+    });
+
+    assertTrue(thrown.getCause() instanceof SqlEndpointException);
+    assertSame(toThrow, thrown.getCause().getCause());
+  }
+
+  @Test
+  public void connect_bulkheadFull_callExceptionHandler() {
+    TestValue thrown = new TestValue();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection())
+      .exceptionHandler(thrown::value)
+      .bulkhead(1, 0, Duration.ZERO)
+      .build();
+
+    Object returned = testEndpoint.connect(c -> testEndpoint.connect(inner -> inner));
+
+    assertTrue(thrown.value() instanceof BulkheadFullException);
+    assertEquals(null, returned);
+  }
+
+  @Test
+  public void connect_bulkheadReleasedAfterCall() {
+    Connection connection = stubConnection();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> connection).bulkhead(1, 0, Duration.ZERO).build();
+
+    testEndpoint.connect(c -> c);
+
+    assertSame(connection, testEndpoint.connect(c -> c));
+  }
+
+  @Test
+  public void connect_withListener_reportTimings() {
+    long[] reported = new long[3];
+    TestValue failure = new TestValue(new Object());
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection()).listener((acquire, handle, close, e) -> {
+      reported[0] = acquire;
+      reported[1] = handle;
+      reported[2] = close;
+      failure.value(e);
+    }).build();
+
+    testEndpoint.connect(c -> c);
+
+    assertAll(
+      () -> assertTrue(reported[0] >= 0),
+      () -> assertTrue(reported[1] >= 0),
+      () -> assertTrue(reported[2] >= 0),
+      () -> assertEquals(null, failure.value())
+    );
+  }
+
+  @Test
+  public void connect_withListenerAndFactoryThrowsException_reportAcquireTimeAndUnreachedPhases() {
+    long[] reported = new long[3];
+    TestValue failure = new TestValue();
+    TestException toThrow = new TestException();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> {
+      throw toThrow;
+    }).exceptionHandler(e -> {}).listener((acquire, handle, close, e) -> {
+      reported[0] = acquire;
+      reported[1] = handle;
+      reported[2] = close;
+      failure.value(e);
+    }).build();
+
+    testEndpoint.connect(c -> c);
+
+    assertAll(
+      () -> assertTrue(reported[0] >= 0),
+      () -> assertEquals(-1, reported[1]),
+      () -> assertEquals(-1, reported[2]),
+      () -> assertSame(toThrow, failure.value())
+    );
+  }
+
+  @Test
+  public void connect_withListenerAndBulkheadFull_reportRejection() {
+    long[] reported = new long[3];
+    TestValue failure = new TestValue();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection())
+      .exceptionHandler(e -> {})
+      .bulkhead(1, 0, Duration.ZERO)
+      .listener((acquire, handle, close, e) -> {
+        if (e == null)
+          return;
+
+        reported[0] = acquire;
+        reported[1] = handle;
+        reported[2] = close;
+        failure.value(e);
+      })
+      .build();
+
+    testEndpoint.connect(c -> testEndpoint.connect(inner -> inner));
+
+    assertAll(
+      () -> assertEquals(-1, reported[0]),
+      () -> assertEquals(-1, reported[1]),
+      () -> assertEquals(-1, reported[2]),
+      () -> assertTrue(failure.value() instanceof BulkheadFullException)
+    );
+  }
+
+  @Test
+  public void connect_withListenerAndConnectionHandlerThrowsException_closeConnectionAndReport() throws Exception {
+    long[] reported = new long[3];
+    TestValue failure = new TestValue();
+    TestException toThrow = new TestException();
+    Connection connection = mock(Connection.class);
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> connection)
+      .exceptionHandler(e -> {})
+      .listener((acquire, handle, close, e) -> {
+        reported[1] = handle;
+        reported[2] = close;
+        failure.value(e);
+      })
+      .build();
+
+    testEndpoint.connect(c -> {
+      throw toThrow;
+    });
+
+    verify(connection).close();
+    assertAll(
+      () -> assertTrue(reported[1] >= 0),
+      () -> assertTrue(reported[2] >= 0),
+      () -> assertSame(toThrow, failure.value())
+    );
+  }
+
+  @Test
+  public void connect_withRetryAndTransientFailures_retryWithFreshConnections() {
+    AtomicInteger acquired = new AtomicInteger();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> {
+      acquired.incrementAndGet();
+      return stubConnection();
+    }).retry(testRetryPolicy(3)).build();
+
+    Object returned = testEndpoint.connect(c -> {
+      if (acquired.get() < 3)
+        throw new SQLTransientException();
+
+      return c;
+    });
+
+    assertAll(
+      () -> assertEquals(3, acquired.get()),
+      () -> assertTrue(returned instanceof Connection)
+    );
+  }
+
+  @Test
+  public void connect_withRetryAndAttemptsExhausted_handleLastFailureOnce() {
+    AtomicInteger attempts = new AtomicInteger();
+    AtomicInteger handled = new AtomicInteger();
+    TestValue last = new TestValue();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection())
+      .exceptionHandler(e -> {
+        handled.incrementAndGet();
+        assertSame(last.value(), e);
+      })
+      .retry(testRetryPolicy(2))
+      .build();
+
+    testEndpoint.connect(c -> {
+      attempts.incrementAndGet();
+      SQLException toThrow = new SQLException("Serialization failure", "40001");
+      last.value(toThrow);
+      throw toThrow;
+    });
+
+    assertAll(
+      () -> assertEquals(2, attempts.get()),
+      () -> assertEquals(1, handled.get())
+    );
+  }
+
+  @Test
+  public void connect_withRetryAndNonTransientFailure_doNotRetry() {
+    AtomicInteger attempts = new AtomicInteger();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection())
+      .exceptionHandler(e -> {})
+      .retry(testRetryPolicy(3))
+      .build();
+
+    testEndpoint.connect(c -> {
+      attempts.incrementAndGet();
+      throw new TestException();
+    });
+
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void connect_circuitBreakerOpen_rejectWithoutAcquiring() {
+    AtomicInteger acquired = new AtomicInteger();
+    TestValue thrown = new TestValue();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> {
+      acquired.incrementAndGet();
+      throw new SQLTransientException();
+    }).exceptionHandler(thrown::value).circuitBreaker(CircuitBreakerPolicy.builder()
+      .window(2, 2)
+      .openDuration(Duration.ofMinutes(1))
+      .build()).build();
+
+    testEndpoint.connect(c -> c);
+    testEndpoint.connect(c -> c);
+    Object returned = testEndpoint.connect(c -> c);
+
+    assertAll(
+      () -> assertEquals(2, acquired.get()),
+      () -> assertTrue(thrown.value() instanceof CircuitBreakerOpenException),
+      () -> assertEquals(null, returned)
+    );
+  }
+
+  @Test
+  public void connect_circuitBreakerAndHandlerThrowsException_stayClosed() {
+    AtomicInteger acquired = new AtomicInteger();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> {
+      acquired.incrementAndGet();
+      return stubConnection();
+    }).exceptionHandler(e -> {}).circuitBreaker(CircuitBreakerPolicy.builder().window(2, 2).build()).build();
+
+    for (int i = 0; i < 3; i++)
+      testEndpoint.connect(c -> {
+        throw new TestException();
+      });
+
+    assertEquals(3, acquired.get());
+  }
+
+  @Test
+  public void warmUp_invalidArguments_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.warmUp(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.warmUp(1, null))
+    );
+  }
+
+  @Test
+  public void warmUp_holdConnectionsAtOnceThenRelease() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger warmedUp = new AtomicInteger();
+    PooledConnectionFactory pool = PooledConnectionFactory.builder(() -> {
+      created.incrementAndGet();
+      return stubConnection();
+    }).build();
+
+    try {
+      new SqlEndpoint(pool).warmUp(3, c -> warmedUp.incrementAndGet()).join();
+
+      assertAll(
+        () -> assertEquals(3, created.get()),
+        () -> assertEquals(3, warmedUp.get()),
+        () -> assertEquals(3, pool.size()),
+        () -> assertEquals(0, pool.activeCount())
+      );
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void warmUp_warmUpHandlerThrowsException_completeExceptionallyAndCloseConnections() throws Exception {
+    TestException toThrow = new TestException();
+    Connection connection = mock(Connection.class);
+    AtomicInteger warmedUp = new AtomicInteger();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> connection).executor(Runnable::run).build();
+
+    CompletableFuture<Void> ready = testEndpoint.warmUp(2, c -> {
+      if (warmedUp.incrementAndGet() == 1)
+        throw toThrow;
+    });
+
+    CompletionException thrown = assertThrows(CompletionException.class, ready::join);
+    assertSame(toThrow, thrown.getCause());
+    verify(connection, times(2)).close();
+  }
+
+  @Test
+  public void connect_leakDetection_reportConnectionHeldTooLong() {
+    List<Exception> leaks = new ArrayList<>();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection())
+      .leakDetection(Duration.ofNanos(1), 1, leaks::add)
+      .build();
+
+    testEndpoint.connect(c -> {
+      testEndpoint.leakWatchdog().check();
+      return null;
+    });
+
+    assertAll(
+      () -> assertEquals(1, leaks.size()),
+      () -> assertTrue(leaks.get(0) instanceof ConnectionLeakException),
+      () -> assertEquals(0, testEndpoint.leakWatchdog().heldCount())
+    );
+  }
+
+  @Test
+  public void connect_leakDetection_closeProvidedConnection() throws Exception {
+    Connection connection = mock(Connection.class);
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> connection)
+      .leakDetection(Duration.ofMinutes(1), 0, ExceptionHandler.rethrow())
+      .build();
+
+    testEndpoint.connect(c -> c.isClosed());
+
+    assertAll(
+      () -> verify(connection).isClosed(),
+      () -> verify(connection).close(),
+      () -> assertEquals(0, testEndpoint.leakWatchdog().heldCount())
+    );
+  }
+
+  @Test
+  public void connect_invalidTimeout_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+    ConnectionHandler<Object> handler = c -> null;
+    Duration timeout = Duration.ofSeconds(1);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(timeout, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(null, handler)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(Duration.ZERO, handler)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connect(timeout, handler, null))
+    );
+  }
+
+  @Test
+  public void connect_withinTimeout_boundStatementsAndReturnValue() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    Object value = new Object();
+
+    Object returned = new SqlEndpoint(() -> connection).connect(Duration.ofSeconds(10), c -> {
+      c.prepareStatement("");
+      return value;
+    });
+
+    assertAll(
+      () -> assertSame(value, returned),
+      () -> verify(connection, times(2)).setNetworkTimeout(any(), anyInt()),
+      () -> verify(statement).setQueryTimeout(anyInt()),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void connect_timeoutWhileRunning_cancelStatementAndReturnDefaultValue() throws Exception {
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    doAnswer(invocation -> {
+      cancelled.countDown();
+      return null;
+    }).when(statement).cancel();
+    when(statement.execute()).then(invocation -> {
+      cancelled.await();
+      throw new SQLException("Cancelled");
+    });
+    List<Exception> handled = new ArrayList<>();
+    Object defaultValue = new Object();
+
+    Object returned = new SqlEndpoint(() -> connection).connect(Duration.ofMillis(50), new ConnectionHandler<Object>() {
+      @Override
+      public Object handleAndReturn(Connection c) throws Exception {
+        c.prepareStatement("").execute();
+        return null;
+      }
+
+      @Override
+      public Object defaultValue() {
+        return defaultValue;
+      }
+    }, handled::add);
+
+    assertAll(
+      () -> assertSame(defaultValue, returned),
+      () -> assertTrue(handled.get(0) instanceof DeadlineExceededException),
+      () -> assertTrue(handled.get(0).getCause() instanceof SQLException),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void connect_completedAfterTimeoutWithoutInterruption_returnValue() {
+    List<Exception> handled = new ArrayList<>();
+    Object value = new Object();
+
+    Object returned = new SqlEndpoint(() -> stubConnection()).connect(Duration.ofMillis(50), c -> {
+      Thread.sleep(100);
+      return value;
+    }, handled::add);
+
+    assertAll(
+      () -> assertSame(value, returned),
+      () -> assertTrue(handled.isEmpty())
+    );
+  }
+
+  @Test
+  public void connect_statementClosedThenCompletedAfterTimeout_returnValue() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    AtomicBoolean closed = new AtomicBoolean();
+    when(connection.prepareStatement("UPDATE")).thenReturn(statement);
+    doAnswer(i -> {
+      closed.set(true);
+      return null;
+    }).when(statement).close();
+    when(statement.isClosed()).thenAnswer(i -> closed.get());
+    List<Exception> handled = new ArrayList<>();
+    Object value = new Object();
+
+    Object returned = new SqlEndpoint(() -> connection).connect(Duration.ofMillis(50), c -> {
+      try (PreparedStatement update = c.prepareStatement("UPDATE")) {
+        update.executeUpdate();
+      }
+      Thread.sleep(100);
+      return value;
+    }, handled::add);
+
+    assertAll(
+      () -> assertSame(value, returned),
+      () -> assertTrue(handled.isEmpty()),
+      () -> verify(statement, never()).cancel()
+    );
+  }
+
+  @Test
+  public void connect_timeoutWhileAcquiring_interruptAcquisition() {
+    CountDownLatch never = new CountDownLatch(1);
+    List<Exception> handled = new ArrayList<>();
+
+    new SqlEndpoint(() -> {
+      never.await();
+      return stubConnection();
+    }).connect(Duration.ofMillis(50), c -> null, handled::add);
+
+    assertAll(
+      () -> assertTrue(handled.get(0) instanceof DeadlineExceededException),
+      () -> assertTrue(handled.get(0).getCause() instanceof InterruptedException),
+      () -> assertFalse(Thread.currentThread().isInterrupted())
+    );
+  }
+
+  @Test
+  public void tryConnect_nullHandler_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> new SqlEndpoint(() -> null).tryConnect(null));
+  }
+
+  @Test
+  public void tryConnect_handlerReturns_returnSuccess() {
+    Object value = new Object();
+
+    Outcome<Object> outcome = new SqlEndpoint(() -> stubConnection()).tryConnect(c -> value);
+
+    assertSame(value, outcome.value());
+  }
+
+  @Test
+  public void tryConnect_handlerThrowsException_returnFailureWithoutHandlingException() {
+    TestException toThrow = new TestException();
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> stubConnection(), e -> fail("Exception was not to be handled"));
+
+    Outcome<Object> outcome = testEndpoint.tryConnect(c -> {
+      throw toThrow;
+    });
+
+    assertSame(toThrow, outcome.exception());
+  }
+
+  @Test
+  public void connect_stacklessExceptions_handleSharedStacklessNoConnectionProvided() {
+    List<Exception> handled = new ArrayList<>();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> null).exceptionHandler(handled::add).stacklessExceptions(0).build();
+
+    testEndpoint.connect(c -> null);
+    testEndpoint.connect(c -> null);
+
+    assertAll(
+      () -> assertTrue(handled.get(0) instanceof NoConnectionProvidedException),
+      () -> assertSame(handled.get(0), handled.get(1)),
+      () -> assertEquals(0, handled.get(0).getStackTrace().length)
+    );
+  }
+
+  @Test
+  public void connect_stacklessExceptionsAndDefaultRethrow_throwStacklessWrapperWithCause() {
+    TestException toThrow = new TestException();
+    SqlEndpoint stackless = SqlEndpoint.builder(() -> stubConnection()).stacklessExceptions(0).build();
+    SqlEndpoint standard = SqlEndpoint.builder(() -> stubConnection()).build();
+
+    SqlEndpointException thrown = assertThrows(SqlEndpointException.class, () -> stackless.connect(c -> {
+      throw toThrow;
+    }));
+    SqlEndpointException traced = assertThrows(SqlEndpointException.class, () -> standard.connect(c -> {
+      throw toThrow;
+    }));
+
+    assertAll(
+      () -> assertSame(toThrow, thrown.getCause()),
+      () -> assertEquals(0, thrown.getStackTrace().length),
+      () -> assertTrue(traced.getStackTrace().length > 0)
+    );
+  }
+
+  @Test
+  public void connect_latencyMetrics_recordNamedHandlersOnly() {
+    LatencyMetrics metrics = new LatencyMetrics();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection()).latencyMetrics(metrics).build();
+
+    testEndpoint.connect(ConnectionHandler.named("query", c -> null));
+    testEndpoint.connect(ConnectionHandler.named("query", c -> null));
+    testEndpoint.connect(c -> null);
+
+    assertAll(
+      () -> assertEquals(Set.of("query"), metrics.names()),
+      () -> assertEquals(2, metrics.acquireLatency("query").snapshot().count()),
+      () -> assertEquals(2, metrics.handleLatency("query").snapshot().count())
+    );
+  }
+
+  @Test
+  public void connect_latencyMetricsAndNoConnection_recordAcquisitionOnly() {
+    LatencyMetrics metrics = new LatencyMetrics();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> null)
+      .exceptionHandler(ExceptionHandler.ignore())
+      .latencyMetrics(metrics)
+      .build();
+
+    testEndpoint.connect(ConnectionHandler.named("query", c -> null));
+
+    assertAll(
+      () -> assertEquals(1, metrics.acquireLatency("query").snapshot().count()),
+      () -> assertEquals(0, metrics.handleLatency("query").snapshot().count())
+    );
+  }
+
+  @Test
+  public void stream_nullArguments_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+    ParameterBinder binder = ParameterBinder.none();
+    RowMapper<Object> mapper = row -> row;
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.stream(null, binder, mapper)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.stream("", null, mapper)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.stream("", binder, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.stream("", binder, mapper, -1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.stream("", binder, mapper, 0, null))
+    );
+  }
+
+  @Test
+  public void stream_prepareForwardOnlyStatementWithFetchSize() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(connection.prepareStatement("query", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+      .thenReturn(statement);
+    when(statement.executeQuery()).thenReturn(resultSet);
+    TestValue bound = new TestValue();
+
+    new SqlEndpoint(() -> connection).stream("query", bound::value, row -> row, 50).close();
+
+    verify(statement).setFetchSize(50);
+    assertSame(statement, bound.value());
+  }
+
+  @Test
+  public void stream_mapRowsThenCloseConnectionWhenExhausted() throws Exception {
+    Connection connection = streamingConnection(mock(ResultSet.class), 3);
+    AtomicInteger mapped = new AtomicInteger();
+
+    Stream<Integer> rows = new SqlEndpoint(() -> connection).stream("", ParameterBinder.none(), row -> {
+      return mapped.incrementAndGet();
+    });
+
+    assertEquals(0, mapped.get());
+    assertEquals(List.of(1, 2, 3), rows.collect(Collectors.toList()));
+    verify(connection).close();
+  }
+
+  @Test
+  public void stream_closedEarly_closeConnection() throws Exception {
+    Connection connection = streamingConnection(mock(ResultSet.class), 3);
+
+    try (Stream<Object> rows = new SqlEndpoint(() -> connection).stream("", ParameterBinder.none(), row -> row)) {
+      rows.findFirst();
+    }
+
+    verify(connection).close();
+  }
+
+  @Test
+  public void stream_factoryThrowsException_callExceptionHandlerAndReturnEmpty() {
+    TestException toThrow = new TestException();
+    TestValue thrown = new TestValue();
+
+    Stream<Object> rows = new SqlEndpoint(() -> {
+      throw toThrow;
+    }).stream("", ParameterBinder.none(), row -> row, 0, thrown::value);
+
+    assertSame(toThrow, thrown.value());
+    assertEquals(0, rows.count());
+  }
+
+  @Test
+  public void stream_withBulkhead_holdPermitUntilClosed() throws Exception {
+    TestValue thrown = new TestValue();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> streamingConnection(mock(ResultSet.class), 1))
+      .exceptionHandler(thrown::value)
+      .bulkhead(1, 0, Duration.ZERO)
+      .build();
+
+    Stream<Object> rows = testEndpoint.stream("", ParameterBinder.none(), row -> row);
+    testEndpoint.stream("", ParameterBinder.none(), row -> row);
+    assertTrue(thrown.value() instanceof BulkheadFullException);
+
+    rows.close();
+    thrown.value(null);
+    testEndpoint.stream("", ParameterBinder.none(), row -> row).close();
+    assertEquals(null, thrown.value());
+  }
+
+  @Test
+  public void publish_nullArguments_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+    ParameterBinder binder = ParameterBinder.none();
+    RowMapper<Object> mapper = row -> row;
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.publish(null, binder, mapper)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.publish("", null, mapper)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.publish("", binder, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.publish("", binder, mapper, -1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.publish("", binder, mapper, 0, null))
+    );
+  }
+
+  @Test
+  public void publish_subscribeAndRequestAll_emitRowsThenCloseConnection() throws Exception {
+    Connection connection = streamingConnection(mock(ResultSet.class), 3);
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> connection).executor(Runnable::run).build();
+    List<Object> received = new ArrayList<>();
+    TestValue completed = new TestValue(false);
+
+    testEndpoint.publish("", ParameterBinder.none(), row -> row).subscribe(new Flow.Subscriber<Object>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(Object item) {
+        received.add(item);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        fail(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        completed.value(true);
+      }
+    });
+
+    verify(connection).close();
+    assertAll(
+      () -> assertEquals(3, received.size()),
+      () -> assertEquals(true, completed.value())
+    );
+  }
+
+  @Test
+  public void connectCoalesced_nullArguments_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectCoalesced(null, c -> c)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectCoalesced("key", null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectCoalesced(null, c -> c, e -> {})),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectCoalesced("key", null, e -> {})),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectCoalesced("key", c -> c, null))
+    );
+  }
+
+  @Test
+  public void connectCoalesced_sequentialCalls_runEachHandler() {
+    AtomicInteger runs = new AtomicInteger();
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> stubConnection());
+
+    testEndpoint.connectCoalesced("key", c -> runs.incrementAndGet());
+    testEndpoint.connectCoalesced("key", c -> runs.incrementAndGet());
+
+    assertEquals(2, runs.get());
+  }
+
+  @Test
+  public void connectCoalesced_concurrentCalls_shareSingleExecution() throws Exception {
+    AtomicInteger runs = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> stubConnection());
+    Object[] returned = new Object[4];
+
+    Thread[] callers = new Thread[returned.length];
+    for (int i = 0; i < callers.length; i++) {
+      int caller = i;
+      callers[i] = new Thread(() -> returned[caller] = testEndpoint.connectCoalesced("key", c -> {
+        runs.incrementAndGet();
+        started.countDown();
+        release.await();
+        return c;
+      }));
+    }
+
+    callers[0].start();
+    started.await();
+    for (int i = 1; i < callers.length; i++)
+      callers[i].start();
+    awaitWaiting(callers);
+    release.countDown();
+    for (Thread caller : callers)
+      caller.join();
+
+    assertEquals(1, runs.get());
+    for (Object value : returned)
+      assertSame(returned[0], value);
+  }
+
+  @Test
+  public void connectCoalesced_sharedCallThrowsException_callEachExceptionHandler() throws Exception {
+    TestException toThrow = new TestException();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> stubConnection());
+    Object[] thrown = new Object[3];
+
+    Thread[] callers = new Thread[thrown.length];
+    for (int i = 0; i < callers.length; i++) {
+      int caller = i;
+      callers[i] = new Thread(() -> testEndpoint.connectCoalesced("key", c -> {
+        started.countDown();
+        release.await();
+        throw toThrow;
+      }, e -> thrown[caller] = e));
+    }
+
+    callers[0].start();
+    started.await();
+    for (int i = 1; i < callers.length; i++)
+      callers[i].start();
+    awaitWaiting(callers);
+    release.countDown();
+    for (Thread caller : callers)
+      caller.join();
+
+    for (Object failure : thrown)
+      assertSame(toThrow, failure);
+  }
+
+  @Test
+  public void connectInTransaction_nullArguments_throwIllegalArgument() {
+    SqlEndpoint testEndpoint = new SqlEndpoint(() -> null);
+    TransactionOptions options = TransactionOptions.defaults();
+
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectInTransaction(null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectInTransaction(c -> c, null)),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectInTransaction(null, options, e -> {})),
+      () -> assertThrows(IllegalArgumentException.class, () -> testEndpoint.connectInTransaction(c -> c, options, null))
+    );
+  }
+
+  @Test
+  public void connectInTransaction_connectionHandlerThrowsException_rollbackBeforeExceptionHandler() throws Exception {
+    Connection connection = mock(Connection.class);
+    TestValue rolledBack = new TestValue(false);
+
+    new SqlEndpoint(() -> connection).connectInTransaction(c -> {
+      throw new TestException();
+    }, TransactionOptions.defaults(), e -> {
+      try {
+        verify(connection).rollback();
+        rolledBack.value(true);
+      } catch (Exception uncaught) {
+        fail(uncaught);
+      }
+    });
+
+    assertEquals(true, rolledBack.value());
+  }
+
+  @Test
+  public void connectInTransaction_latencyMetrics_recordNamedHandler() {
+    LatencyMetrics metrics = new LatencyMetrics();
+    SqlEndpoint testEndpoint = SqlEndpoint.builder(() -> stubConnection()).latencyMetrics(metrics).build();
+
+    testEndpoint.connectInTransaction(ConnectionHandler.named("transaction", c -> null));
+
+    assertAll(
+      () -> assertEquals(Set.of("transaction"), metrics.names()),
+      () -> assertEquals(1, metrics.handleLatency("transaction").snapshot().count())
+    );
+  }
+
+  @Nested
+  public class AsyncTest {
+    @Nested
+    public class ExecuteTest implements OnConnectionAndOnExceptionTestContract {
+      @Override
+      public <T> T connectUsing(
+        ConnectionFactory factory,
+        ConnectionHandler<T> onConnect,
+        ExceptionHandler onException
+      ) {
+        return new SqlEndpoint(factory, onException).connectAsync(onConnect).join();
+      }
+    }
+
+    @Nested
+    public class ExecuteWithExceptionHandlerTest implements OnConnectionAndOnExceptionTestContract {
+      @Override
+      public <T> T connectUsing(
+        ConnectionFactory factory,
+        ConnectionHandler<T> onConnect,
+        ExceptionHandler onException
+      ) {
+        return new SqlEndpoint(factory, e -> {}).connectAsync(onConnect, onException).join();
+      }
+    }
+  }
+
   @Nested
   public class WithFactoryTest {
     @Nested
@@ -251,6 +1157,27 @@ public class SqlEndpointTest {
     }
   }
 
+  private static RetryPolicy testRetryPolicy(int maxAttempts) {
+    return RetryPolicy.builder().maxAttempts(maxAttempts).backoff(Duration.ZERO, Duration.ZERO, 1).build();
+  }
+
+  private static void awaitWaiting(Thread[] callers) throws InterruptedException {
+    for (Thread caller : callers)
+      while (caller.getState() != Thread.State.WAITING)
+        Thread.sleep(1);
+  }
+
+  private static Connection streamingConnection(ResultSet resultSet, int rows) throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+    when(statement.executeQuery()).thenReturn(resultSet);
+
+    AtomicInteger remaining = new AtomicInteger(rows);
+    when(resultSet.next()).thenAnswer(invocation -> remaining.getAndDecrement() > 0);
+    return connection;
+  }
+
   private static Connection stubConnection() {
     return mock(Connection.class, withSettings().stubOnly());
   }
@@ -0,0 +1,74 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class StacklessExceptionFactoryTest {
+  @Test
+  public void noConnectionProvided_unsampled_returnSharedStacklessInstance() {
+    StacklessExceptionFactory testFactory = new StacklessExceptionFactory(0);
+
+    NoConnectionProvidedException first = testFactory.noConnectionProvided();
+    first.addSuppressed(new TestException());
+
+    assertAll(
+      () -> assertSame(first, testFactory.noConnectionProvided()),
+      () -> assertEquals(0, first.getStackTrace().length),
+      () -> assertEquals(0, first.getSuppressed().length)
+    );
+  }
+
+  @Test
+  public void bulkheadFull_unsampled_returnSharedStacklessInstancePerMessage() {
+    StacklessExceptionFactory testFactory = new StacklessExceptionFactory(0);
+
+    BulkheadFullException first = testFactory.bulkheadFull("first");
+
+    assertAll(
+      () -> assertSame(first, testFactory.bulkheadFull("first")),
+      () -> assertNotSame(first, testFactory.bulkheadFull("second")),
+      () -> assertEquals("first", first.getMessage()),
+      () -> assertEquals(0, first.getStackTrace().length)
+    );
+  }
+
+  @Test
+  public void circuitBreakerOpen_sampled_returnNewInstanceWithStackTrace() {
+    StacklessExceptionFactory testFactory = new StacklessExceptionFactory(1);
+
+    CircuitBreakerOpenException first = testFactory.circuitBreakerOpen("open");
+
+    assertAll(
+      () -> assertNotSame(first, testFactory.circuitBreakerOpen("open")),
+      () -> assertTrue(first.getStackTrace().length > 0)
+    );
+  }
+}
@@ -28,4 +28,8 @@ public class TestException extends Exception {
   public static class Subclass extends TestException {}
 
   public static class Other extends Exception {}
+
+  public static interface Marker {}
+
+  public static class Marked extends Exception implements Marker {}
 }
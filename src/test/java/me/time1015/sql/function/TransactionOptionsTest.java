@@ -0,0 +1,57 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.Test;
+
+public class TransactionOptionsTest {
+  @Test
+  public void defaults_leaveSettingsUnchanged() {
+    TransactionOptions testOptions = TransactionOptions.defaults();
+
+    assertEquals(TransactionOptions.UNCHANGED_ISOLATION, testOptions.isolation);
+    assertNull(testOptions.readOnly);
+  }
+
+  @Test
+  public void isolation_invalidLevel_throwIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> TransactionOptions.defaults().isolation(Connection.TRANSACTION_NONE));
+  }
+
+  @Test
+  public void isolationAndReadOnly_keepOtherSettings() {
+    TransactionOptions testOptions = TransactionOptions.defaults()
+      .readOnly(true)
+      .isolation(Connection.TRANSACTION_SERIALIZABLE);
+
+    assertEquals(Connection.TRANSACTION_SERIALIZABLE, testOptions.isolation);
+    assertEquals(true, testOptions.readOnly);
+  }
+}
@@ -0,0 +1,130 @@
+package me.time1015.sql.function;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+public class TransactionalHandlerTest {
+  @Test
+  public void handleAndReturn_handlerReturns_commitAndRestoreAutoCommit() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.getAutoCommit()).thenReturn(true);
+    Object value = new Object();
+
+    Object returned = new TransactionalHandler<>(c -> value, TransactionOptions.defaults()).handleAndReturn(connection);
+
+    assertSame(value, returned);
+    InOrder order = inOrder(connection);
+    order.verify(connection).setAutoCommit(false);
+    order.verify(connection).commit();
+    order.verify(connection).setAutoCommit(true);
+    verify(connection, never()).rollback();
+  }
+
+  @Test
+  public void handleAndReturn_handlerThrowsException_rollbackAndRethrow() throws Exception {
+    Connection connection = mock(Connection.class);
+    TestException toThrow = new TestException();
+
+    TestException thrown = assertThrows(TestException.class, () -> {
+      new TransactionalHandler<>(c -> {
+        throw toThrow;
+      }, TransactionOptions.defaults()).handleAndReturn(connection);
+    });
+
+    assertSame(toThrow, thrown);
+    verify(connection).rollback();
+    verify(connection, never()).commit();
+  }
+
+  @Test
+  public void handleAndReturn_settingsAlreadyMatch_leaveConnectionUntouched() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_SERIALIZABLE);
+    when(connection.isReadOnly()).thenReturn(true);
+    TransactionOptions options = TransactionOptions.defaults()
+      .isolation(Connection.TRANSACTION_SERIALIZABLE)
+      .readOnly(true);
+
+    new TransactionalHandler<>(c -> null, options).handleAndReturn(connection);
+
+    verify(connection, never()).setTransactionIsolation(anyInt());
+    verify(connection, never()).setReadOnly(anyBoolean());
+    verify(connection, never()).setAutoCommit(anyBoolean());
+    verify(connection).commit();
+  }
+
+  @Test
+  public void handleAndReturn_settingsDiffer_applyAndRestore() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+    TransactionOptions options = TransactionOptions.defaults()
+      .isolation(Connection.TRANSACTION_SERIALIZABLE)
+      .readOnly(true);
+
+    new TransactionalHandler<>(c -> null, options).handleAndReturn(connection);
+
+    InOrder order = inOrder(connection);
+    order.verify(connection).setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+    order.verify(connection).setReadOnly(true);
+    order.verify(connection).commit();
+    order.verify(connection).setReadOnly(false);
+    order.verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+  }
+
+  @Test
+  public void defaultValue_returnHandlerDefaultValue() {
+    Object value = new Object();
+    ConnectionHandler<Object> onConnect = new ConnectionHandler<>() {
+      @Override
+      public Object handleAndReturn(Connection connection) {
+        return null;
+      }
+
+      @Override
+      public Object defaultValue() {
+        return value;
+      }
+    };
+
+    assertSame(value, new TransactionalHandler<>(onConnect, TransactionOptions.defaults()).defaultValue());
+  }
+
+  static {
+    mock(Connection.class);
+  }
+}
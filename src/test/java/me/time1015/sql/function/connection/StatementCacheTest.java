@@ -0,0 +1,142 @@
+package me.time1015.sql.function.connection;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+public class StatementCacheTest {
+  @Test
+  public void prepare_closedStatementWithSameSql_reuseStatement() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement("SELECT 1")).thenAnswer(i -> mock(PreparedStatement.class));
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    PreparedStatement first = testCache.prepare("SELECT 1", connection);
+    PreparedStatement underlying = ((DelegatingPreparedStatement) first).delegate();
+    first.close();
+    PreparedStatement second = testCache.prepare("SELECT 1", connection);
+
+    verify(connection, times(1)).prepareStatement("SELECT 1");
+    verify(underlying).clearParameters();
+    assertSame(underlying, ((DelegatingPreparedStatement) second).delegate());
+  }
+
+  @Test
+  public void prepare_openStatementWithSameSql_prepareNewStatement() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement("SELECT 1")).thenAnswer(i -> mock(PreparedStatement.class));
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    testCache.prepare("SELECT 1", connection);
+    testCache.prepare("SELECT 1", connection);
+
+    verify(connection, times(2)).prepareStatement("SELECT 1");
+  }
+
+  @Test
+  public void release_cacheFull_closeLeastRecentlyUsed() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement eldest = mock(PreparedStatement.class);
+    when(connection.prepareStatement("SELECT 1")).thenReturn(eldest);
+    when(connection.prepareStatement("SELECT 2")).thenReturn(mock(PreparedStatement.class));
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    testCache.prepare("SELECT 1", connection).close();
+    testCache.prepare("SELECT 2", connection).close();
+
+    verify(eldest).close();
+    assertEquals(1, testCache.size());
+  }
+
+  @Test
+  public void release_changedSettings_restoreSettings() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement underlying = mock(PreparedStatement.class);
+    when(underlying.getQueryTimeout()).thenReturn(0, 1);
+    when(underlying.getFetchSize()).thenReturn(10, 500);
+    when(underlying.getMaxRows()).thenReturn(0, 5);
+    when(underlying.getFetchDirection()).thenReturn(ResultSet.FETCH_FORWARD, ResultSet.FETCH_REVERSE);
+    when(connection.prepareStatement("SELECT 1")).thenReturn(underlying);
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    testCache.prepare("SELECT 1", connection).close();
+
+    verify(underlying).setQueryTimeout(0);
+    verify(underlying).setFetchSize(10);
+    verify(underlying).setMaxRows(0);
+    verify(underlying).setFetchDirection(ResultSet.FETCH_FORWARD);
+    assertEquals(1, testCache.size());
+  }
+
+  @Test
+  public void close_releasedStatementReusedByAnotherCaller_doNotReleaseAgain() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement("SELECT 1")).thenReturn(mock(PreparedStatement.class));
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    PreparedStatement first = testCache.prepare("SELECT 1", connection);
+    first.close();
+    testCache.prepare("SELECT 1", connection);
+    first.close();
+
+    assertEquals(0, testCache.size());
+  }
+
+  @Test
+  public void close_rejectFurtherUse() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement("SELECT 1")).thenReturn(mock(PreparedStatement.class));
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    PreparedStatement statement = testCache.prepare("SELECT 1", connection);
+    statement.close();
+
+    assertTrue(statement.isClosed());
+    assertThrows(SQLException.class, statement::executeQuery);
+  }
+
+  @Test
+  public void getConnection_returnOwner() throws Exception {
+    Connection connection = mock(Connection.class);
+    Connection owner = mock(Connection.class);
+    when(connection.prepareStatement("SELECT 1")).thenReturn(mock(PreparedStatement.class));
+    StatementCache testCache = new StatementCache(connection, 1);
+
+    assertSame(owner, testCache.prepare("SELECT 1", owner).getConnection());
+  }
+}
@@ -0,0 +1,77 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import me.time1015.sql.function.BulkheadFullException;
+
+public class BulkheadTest {
+  @Test
+  public void acquire_slotAvailable_takeSlot() {
+    Bulkhead testBulkhead = new Bulkhead(2, 0, 0);
+
+    testBulkhead.acquire();
+
+    assertEquals(1, testBulkhead.availableCalls());
+  }
+
+  @Test
+  public void acquire_noSlotAndNoWaitingAllowed_throwBulkheadFull() {
+    Bulkhead testBulkhead = new Bulkhead(1, 0, Long.MAX_VALUE);
+    testBulkhead.acquire();
+
+    assertThrows(BulkheadFullException.class, testBulkhead::acquire);
+  }
+
+  @Test
+  public void acquire_waitTimesOut_throwBulkheadFull() {
+    Bulkhead testBulkhead = new Bulkhead(1, 1, 1_000_000);
+    testBulkhead.acquire();
+
+    assertThrows(BulkheadFullException.class, testBulkhead::acquire);
+  }
+
+  @Test
+  public void acquireWithin_shorterThanWaitTimeout_throwBulkheadFullAfterShorterWait() {
+    Bulkhead testBulkhead = new Bulkhead(1, 1, Long.MAX_VALUE);
+    testBulkhead.acquire();
+
+    assertThrows(BulkheadFullException.class, () -> testBulkhead.acquireWithin(1_000_000));
+  }
+
+  @Test
+  public void release_freeSlot() {
+    Bulkhead testBulkhead = new Bulkhead(1, 0, 0);
+    testBulkhead.acquire();
+
+    testBulkhead.release();
+
+    assertDoesNotThrow(testBulkhead::acquire);
+  }
+}
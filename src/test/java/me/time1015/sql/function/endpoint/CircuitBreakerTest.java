@@ -0,0 +1,235 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import me.time1015.sql.function.CircuitBreakerOpenException;
+
+public class CircuitBreakerTest {
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void onResult_belowMinimumCalls_stayClosed() {
+    CircuitBreaker testBreaker = testBreaker();
+
+    for (int i = 0; i < 3; i++)
+      failCall(testBreaker);
+
+    assertFalse(testBreaker.isOpen());
+  }
+
+  @Test
+  public void onResult_failureRateReached_open() {
+    CircuitBreaker testBreaker = testBreaker();
+
+    succeedCall(testBreaker);
+    succeedCall(testBreaker);
+    failCall(testBreaker);
+    failCall(testBreaker);
+
+    assertAll(
+      () -> assertTrue(testBreaker.isOpen()),
+      () -> assertThrows(CircuitBreakerOpenException.class, testBreaker::acquirePermission)
+    );
+  }
+
+  @Test
+  public void onResult_slowCallRateReached_open() {
+    CircuitBreaker testBreaker = testBreaker();
+
+    for (int i = 0; i < 4; i++)
+      testBreaker.onResult(testBreaker.acquirePermission(), true, 200);
+
+    assertTrue(testBreaker.isOpen());
+  }
+
+  @Test
+  public void onResult_oldOutcomesSlideOut_stayClosed() {
+    CircuitBreaker testBreaker = testBreaker();
+
+    failCall(testBreaker);
+    for (int i = 0; i < 10; i++)
+      succeedCall(testBreaker);
+    failCall(testBreaker);
+
+    assertFalse(testBreaker.isOpen());
+  }
+
+  @Test
+  public void acquirePermission_openDurationElapsed_allowTrialCalls() {
+    CircuitBreaker testBreaker = openBreaker();
+
+    now.set(1000);
+
+    assertDoesNotThrow(testBreaker::acquirePermission);
+    assertDoesNotThrow(testBreaker::acquirePermission);
+    assertTrue(testBreaker.isHalfOpen());
+    assertThrows(CircuitBreakerOpenException.class, testBreaker::acquirePermission);
+  }
+
+  @Test
+  public void onResult_trialCallsSucceed_close() {
+    CircuitBreaker testBreaker = openBreaker();
+    now.set(1000);
+
+    succeedCall(testBreaker);
+    succeedCall(testBreaker);
+
+    assertAll(
+      () -> assertFalse(testBreaker.isOpen()),
+      () -> assertFalse(testBreaker.isHalfOpen())
+    );
+  }
+
+  @Test
+  public void onResult_trialCallsFail_openAgain() {
+    CircuitBreaker testBreaker = openBreaker();
+    now.set(1000);
+
+    succeedCall(testBreaker);
+    failCall(testBreaker);
+
+    assertTrue(testBreaker.isOpen());
+    now.set(1999);
+    assertThrows(CircuitBreakerOpenException.class, testBreaker::acquirePermission);
+  }
+
+  @Test
+  public void onResult_resultAdmittedWhileClosedArrivesHalfOpen_dropIt() {
+    CircuitBreaker testBreaker = testBreaker();
+    CircuitBreaker.Window stale = testBreaker.acquirePermission();
+    for (int i = 0; i < 4; i++)
+      failCall(testBreaker);
+    now.set(1000);
+
+    CircuitBreaker.Window trial = testBreaker.acquirePermission();
+    testBreaker.onResult(stale, false, 0);
+    testBreaker.onResult(trial, true, 0);
+    boolean halfOpen = testBreaker.isHalfOpen();
+    succeedCall(testBreaker);
+
+    assertAll(
+      () -> assertTrue(halfOpen),
+      () -> assertFalse(testBreaker.isOpen()),
+      () -> assertFalse(testBreaker.isHalfOpen())
+    );
+  }
+
+  @Test
+  public void onResult_concurrentSuccesses_stayClosed() throws InterruptedException {
+    CircuitBreaker testBreaker = new CircuitBreaker(100, 10, 0.5, 1, 100, 1000, 2, now::get);
+    AtomicInteger rejected = new AtomicInteger();
+
+    runConcurrently(8, () -> {
+      for (int i = 0; i < 10_000; i++)
+        try {
+          succeedCall(testBreaker);
+        } catch (CircuitBreakerOpenException e) {
+          rejected.incrementAndGet();
+        }
+    });
+
+    assertAll(
+      () -> assertFalse(testBreaker.isOpen()),
+      () -> assertEquals(0, rejected.get())
+    );
+  }
+
+  @Test
+  public void onResult_concurrentFailures_openOnceAndReject() throws InterruptedException {
+    CircuitBreaker testBreaker = new CircuitBreaker(100, 10, 0.5, 1, 100, 1000, 2, now::get);
+    AtomicInteger admitted = new AtomicInteger();
+
+    runConcurrently(8, () -> {
+      for (int i = 0; i < 10_000; i++)
+        try {
+          failCall(testBreaker);
+          admitted.incrementAndGet();
+        } catch (CircuitBreakerOpenException e) {
+          // expected once tripped
+        }
+    });
+
+    assertAll(
+      () -> assertTrue(testBreaker.isOpen()),
+      () -> assertTrue(admitted.get() < 80_000),
+      () -> assertThrows(CircuitBreakerOpenException.class, testBreaker::acquirePermission)
+    );
+  }
+
+  private CircuitBreaker openBreaker() {
+    CircuitBreaker testBreaker = testBreaker();
+    for (int i = 0; i < 4; i++)
+      failCall(testBreaker);
+
+    return testBreaker;
+  }
+
+  private CircuitBreaker testBreaker() {
+    return new CircuitBreaker(4, 4, 0.5, 1, 100, 1000, 2, now::get);
+  }
+
+  private static void succeedCall(CircuitBreaker testBreaker) {
+    testBreaker.onResult(testBreaker.acquirePermission(), true, 0);
+  }
+
+  private static void failCall(CircuitBreaker testBreaker) {
+    testBreaker.onResult(testBreaker.acquirePermission(), false, 0);
+  }
+
+  private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> running = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        task.run();
+      });
+      thread.start();
+      running.add(thread);
+    }
+
+    start.countDown();
+    for (Thread thread : running)
+      thread.join();
+  }
+}
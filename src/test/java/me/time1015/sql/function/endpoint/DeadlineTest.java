@@ -0,0 +1,193 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class DeadlineTest {
+  private static final long SECOND = 1_000_000_000L;
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void bind_setNetworkTimeoutToRemainingThenRestoreOnClose() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.getNetworkTimeout()).thenReturn(42);
+    Deadline testDeadline = new Deadline(5 * SECOND, now::get);
+
+    Executor executor = Runnable::run;
+
+    now.addAndGet(2 * SECOND);
+    testDeadline.bind(connection, executor).close();
+
+    assertAll(
+      () -> verify(connection).setNetworkTimeout(executor, 3000),
+      () -> verify(connection).setNetworkTimeout(executor, 42),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void prepareStatement_setQueryTimeoutToRemainingSecondsRoundedUp() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    Deadline testDeadline = new Deadline(5 * SECOND, now::get);
+
+    now.addAndGet(SECOND / 2);
+    testDeadline.bind(connection, Runnable::run).prepareStatement("");
+
+    verify(statement).setQueryTimeout(5);
+  }
+
+  @Test
+  public void prepareStatement_expired_closeStatementAndThrowTimeout() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+    Connection bound = testDeadline.bind(connection, Runnable::run);
+
+    now.addAndGet(SECOND);
+
+    assertThrows(SQLTimeoutException.class, () -> bound.prepareStatement(""));
+    verify(statement).close();
+  }
+
+  @Test
+  public void expire_running_cancelStatements() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    testDeadline.beginAcquisition();
+    testDeadline.endAcquisition();
+    testDeadline.bind(connection, Runnable::run).prepareStatement("");
+    testDeadline.expire();
+
+    assertAll(
+      () -> verify(statement).cancel(),
+      () -> assertTrue(testDeadline.finish())
+    );
+  }
+
+  @Test
+  public void expire_statementsClosed_notCancelOrReportExpired() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    when(statement.isClosed()).thenReturn(true);
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    testDeadline.beginAcquisition();
+    testDeadline.endAcquisition();
+    testDeadline.bind(connection, Runnable::run).prepareStatement("");
+    testDeadline.expire();
+
+    assertAll(
+      () -> verify(statement, never()).cancel(),
+      () -> assertFalse(testDeadline.finish())
+    );
+  }
+
+  @Test
+  public void expire_closedConnection_notCancelStatements() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("")).thenReturn(statement);
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    testDeadline.beginAcquisition();
+    testDeadline.endAcquisition();
+    Connection bound = testDeadline.bind(connection, Runnable::run);
+    bound.prepareStatement("");
+    bound.close();
+    testDeadline.expire();
+
+    verify(statement, never()).cancel();
+  }
+
+  @Test
+  public void expire_acquiring_interruptAcquirerUntilEndAcquisition() throws Exception {
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    testDeadline.beginAcquisition();
+    testDeadline.expire();
+    boolean interrupted = Thread.currentThread().isInterrupted();
+    boolean expired = testDeadline.endAcquisition();
+
+    assertAll(
+      () -> assertTrue(interrupted),
+      () -> assertTrue(expired),
+      () -> assertFalse(Thread.currentThread().isInterrupted())
+    );
+  }
+
+  @Test
+  public void beginAcquisition_expired_throwTimeout() {
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    now.addAndGet(SECOND);
+
+    assertThrows(SQLTimeoutException.class, testDeadline::beginAcquisition);
+  }
+
+  @Test
+  public void finish_withinBudget_notExpired() {
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    assertFalse(testDeadline.finish());
+  }
+
+  @Test
+  public void finish_budgetElapsedWithoutInterruption_notReportExpired() throws Exception {
+    Deadline testDeadline = new Deadline(SECOND, now::get);
+
+    testDeadline.beginAcquisition();
+    testDeadline.endAcquisition();
+    now.addAndGet(SECOND);
+    testDeadline.expire();
+
+    assertAll(
+      () -> assertTrue(testDeadline.isExpired()),
+      () -> assertFalse(testDeadline.finish())
+    );
+  }
+}
@@ -0,0 +1,124 @@
+package me.time1015.sql.function.endpoint;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import me.time1015.sql.function.ConnectionLeakException;
+
+public class LeakWatchdogTest {
+  private final AtomicLong now = new AtomicLong();
+  private final List<Exception> leaks = new ArrayList<>();
+
+  @Test
+  public void check_heldBelowThreshold_reportNothing() {
+    LeakWatchdog testWatchdog = testWatchdog(0);
+
+    testWatchdog.track(mock(Connection.class));
+    now.addAndGet(99);
+    testWatchdog.check();
+
+    assertTrue(leaks.isEmpty());
+  }
+
+  @Test
+  public void check_heldOverThreshold_reportOnceWithHolderStackTrace() {
+    LeakWatchdog testWatchdog = testWatchdog(0);
+
+    testWatchdog.track(mock(Connection.class));
+    now.addAndGet(100);
+    testWatchdog.check();
+    testWatchdog.check();
+
+    assertEquals(1, leaks.size());
+    ConnectionLeakException leak = (ConnectionLeakException) leaks.get(0);
+    assertAll(
+      () -> assertTrue(leak.getMessage().contains(Thread.currentThread().getName())),
+      () -> assertTrue(leak.getStackTrace().length > 0),
+      () -> assertNull(leak.getCause())
+    );
+  }
+
+  @Test
+  public void check_sampledAcquisition_reportWithAcquisitionSiteCause() {
+    LeakWatchdog testWatchdog = testWatchdog(1);
+
+    testWatchdog.track(mock(Connection.class));
+    now.addAndGet(100);
+    testWatchdog.check();
+
+    StackTraceElement[] site = leaks.get(0).getCause().getStackTrace();
+    assertTrue(
+      List.of(site).stream().anyMatch(frame -> frame.getClassName().equals(LeakWatchdogTest.class.getName()))
+    );
+  }
+
+  @Test
+  public void check_closedConnection_reportNothing() throws Exception {
+    Connection connection = mock(Connection.class);
+    LeakWatchdog testWatchdog = testWatchdog(0);
+
+    testWatchdog.track(connection).close();
+    now.addAndGet(100);
+    testWatchdog.check();
+
+    assertAll(
+      () -> assertTrue(leaks.isEmpty()),
+      () -> assertEquals(0, testWatchdog.heldCount()),
+      () -> verify(connection).close()
+    );
+  }
+
+  @Test
+  public void check_leakHandlerThrowsException_keepReporting() {
+    LeakWatchdog testWatchdog = new LeakWatchdog(100, 0, e -> {
+      leaks.add(e);
+      throw new IllegalStateException();
+    }, now::get);
+
+    testWatchdog.track(mock(Connection.class));
+    testWatchdog.track(mock(Connection.class));
+    now.addAndGet(100);
+
+    assertDoesNotThrow(testWatchdog::check);
+    assertEquals(2, leaks.size());
+  }
+
+  private LeakWatchdog testWatchdog(double samplingRate) {
+    return new LeakWatchdog(100, samplingRate, leaks::add, now::get);
+  }
+}
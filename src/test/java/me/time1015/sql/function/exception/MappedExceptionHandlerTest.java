@@ -23,9 +23,11 @@ package me.time1015.sql.function.exception;
  * THE SOFTWARE.
  */
 
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -40,6 +42,23 @@ public class MappedExceptionHandlerTest {
     assertThrows(IllegalArgumentException.class, () -> new MappedExceptionHandler(null));
   }
 
+  @Test
+  public void handle_sourceMapModifiedAfterConstruction_keepSnapshot() {
+    TestValue consumed = new TestValue();
+    Map<Class<?>, Consumer<Exception>> map = new HashMap<>(Map.of(TestException.class, consumed::value));
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map);
+
+    map.put(TestException.class, e -> {});
+    map.put(TestException.Other.class, e -> {});
+    TestException toConsume = new TestException.Subclass();
+    testHandler.handle(toConsume);
+
+    assertAll(
+      () -> assertSame(toConsume, consumed.value()),
+      () -> assertThrows(IllegalArgumentException.class, () -> testHandler.handle(new TestException.Other()))
+    );
+  }
+
   @Test
   public void handle_exceptionNoMatch_throwIllegalArgument() {
     Map<Class<? extends Exception>, Consumer<Exception>> map = Map.of(TestException.class, e -> {});
@@ -71,4 +90,85 @@ public class MappedExceptionHandlerTest {
 
     assertSame(toConsume, consumed.value());
   }
+
+  @Test
+  public void handle_exceptionInterfaceMatch_callMatchingHandler() {
+    TestValue consumed = new TestValue();
+    Map<Class<?>, Consumer<Exception>> map = Map.of(TestException.Marker.class, consumed::value);
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map);
+
+    TestException.Marked toConsume = new TestException.Marked();
+    testHandler.handle(toConsume);
+
+    assertSame(toConsume, consumed.value());
+  }
+
+  @Test
+  public void handle_exceptionClassAndInterfaceMatch_preferClassHandler() {
+    TestValue consumed = new TestValue();
+    Map<Class<?>, Consumer<Exception>> map = Map.of(
+      TestException.Marked.class, consumed::value,
+      TestException.Marker.class, e -> {}
+    );
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map);
+
+    TestException.Marked toConsume = new TestException.Marked();
+    testHandler.handle(toConsume);
+
+    assertSame(toConsume, consumed.value());
+  }
+
+  @Test
+  public void handle_exceptionSpecificAndDefaultMatch_preferSpecificHandler() {
+    TestValue consumed = new TestValue();
+    Map<Class<?>, Consumer<Exception>> map = new HashMap<>();
+    map.put(Exception.class, e -> {});
+    map.put(TestException.class, consumed::value);
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map);
+
+    TestException toConsume = new TestException.Subclass();
+    testHandler.handle(toConsume);
+    testHandler.handle(toConsume);
+
+    assertSame(toConsume, consumed.value());
+  }
+
+  @Test
+  public void handle_matchCausesAndCauseMatch_callMatchingHandlerWithCause() {
+    TestValue consumed = new TestValue();
+    Map<Class<?>, Consumer<Exception>> map = new HashMap<>();
+    map.put(Exception.class, e -> {});
+    map.put(TestException.class, consumed::value);
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map, true);
+
+    TestException cause = new TestException();
+    testHandler.handle(new IllegalStateException(cause));
+
+    assertSame(cause, consumed.value());
+  }
+
+  @Test
+  public void handle_matchCausesAndNoCauseMatch_callDefaultHandler() {
+    TestValue consumed = new TestValue();
+    Map<Class<?>, Consumer<Exception>> map = new HashMap<>();
+    map.put(Exception.class, consumed::value);
+    map.put(TestException.class, e -> {});
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map, true);
+
+    IllegalStateException toConsume = new IllegalStateException(new TestException.Other());
+    testHandler.handle(toConsume);
+
+    assertSame(toConsume, consumed.value());
+  }
+
+  @Test
+  public void handle_noMatchCausesAndCauseMatch_throwIllegalArgument() {
+    Map<Class<?>, Consumer<Exception>> map = Map.of(TestException.class, e -> {});
+    MappedExceptionHandler testHandler = new MappedExceptionHandler(map);
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> testHandler.handle(new IllegalStateException(new TestException()))
+    );
+  }
 }
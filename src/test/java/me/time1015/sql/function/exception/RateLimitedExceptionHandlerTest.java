@@ -0,0 +1,217 @@
+package me.time1015.sql.function.exception;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import me.time1015.sql.function.ExceptionsSuppressedException;
+import me.time1015.sql.function.TestException;
+
+public class RateLimitedExceptionHandlerTest {
+  private final AtomicLong now = new AtomicLong();
+  private final List<Exception> handled = new ArrayList<>();
+
+  @Test
+  public void handle_similarExceptionsOverLimit_suppressThem() {
+    RateLimitedExceptionHandler testHandler = testHandler();
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 5; i++)
+      thrown.add(new TestException());
+    thrown.forEach(testHandler::handle);
+
+    assertEquals(thrown.subList(0, 2), handled);
+  }
+
+  @Test
+  public void handle_differentTypesOrSqlStates_limitSeparately() {
+    RateLimitedExceptionHandler testHandler = testHandler();
+    List<Exception> thrown = new ArrayList<>();
+
+    for (String sqlState : List.of("08001", "08001", "08001", "40001", "40001", "40001"))
+      thrown.add(new SQLException("Failed", sqlState));
+    for (int i = 0; i < 3; i++)
+      thrown.add(new TestException.Other());
+    thrown.forEach(testHandler::handle);
+
+    assertAll(
+      () -> assertEquals(6, handled.size()),
+      () -> assertEquals(3, testHandler.fingerprintCount())
+    );
+  }
+
+  @Test
+  public void handle_afterWindow_summarizeSuppressedThenAdmitAgain() {
+    RateLimitedExceptionHandler testHandler = testHandler();
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 6; i++)
+      thrown.add(new TestException());
+    thrown.subList(0, 5).forEach(testHandler::handle);
+    now.addAndGet(1000);
+    testHandler.handle(thrown.get(5));
+
+    assertAll(
+      () -> assertEquals(4, handled.size()),
+      () -> assertTrue(handled.get(2) instanceof ExceptionsSuppressedException),
+      () -> assertEquals("Suppressed 3 similar exceptions", handled.get(2).getMessage()),
+      () -> assertSame(thrown.get(2), handled.get(2).getCause()),
+      () -> assertSame(thrown.get(5), handled.get(3))
+    );
+  }
+
+  @Test
+  public void summarize_afterWindow_summarizeSuppressedAndForgetIdleFingerprints() {
+    RateLimitedExceptionHandler testHandler = testHandler();
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 3; i++)
+      thrown.add(new TestException());
+    thrown.forEach(testHandler::handle);
+    testHandler.handle(new TestException.Other());
+
+    now.addAndGet(1000);
+    testHandler.summarize();
+    int remaining = testHandler.fingerprintCount();
+    now.addAndGet(1000);
+    testHandler.summarize();
+
+    assertAll(
+      () -> assertTrue(handled.get(3) instanceof ExceptionsSuppressedException),
+      () -> assertEquals(1, remaining),
+      () -> assertEquals(0, testHandler.fingerprintCount())
+    );
+  }
+
+  @Test
+  public void summarize_withinWindow_summarizeNothing() {
+    RateLimitedExceptionHandler testHandler = testHandler();
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 3; i++)
+      thrown.add(new TestException());
+    thrown.forEach(testHandler::handle);
+    now.addAndGet(999);
+    testHandler.summarize();
+
+    assertEquals(2, handled.size());
+  }
+
+  @Test
+  public void handle_afterWindow_passSummaryToSampleHandlerWithoutChangingSample() {
+    List<Exception> summaries = new ArrayList<>();
+    RateLimitedExceptionHandler testHandler = testHandler(Map.of(
+      SQLException.class, handled::add,
+      RuntimeException.class, summaries::add
+    ));
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 4; i++)
+      thrown.add(new SQLException("Failed", "08001"));
+    thrown.subList(0, 3).forEach(testHandler::handle);
+    now.addAndGet(1000);
+    testHandler.handle(thrown.get(3));
+
+    assertAll(
+      () -> assertEquals(4, handled.size()),
+      () -> assertTrue(summaries.isEmpty()),
+      () -> assertTrue(handled.get(2) instanceof SQLException),
+      () -> assertTrue(handled.get(2).getCause() instanceof ExceptionsSuppressedException),
+      () -> assertSame(thrown.get(2), handled.get(2).getCause().getCause()),
+      () -> assertEquals(0, thrown.get(2).getSuppressed().length),
+      () -> assertSame(thrown.get(3), handled.get(3))
+    );
+  }
+
+  @Test
+  public void handle_afterWindowWithSampleTypeNotCarryingSummary_passSummaryToDefaultHandler() {
+    List<Exception> summaries = new ArrayList<>();
+    RateLimitedExceptionHandler testHandler = testHandler(Map.of(
+      TestException.class, handled::add,
+      Exception.class, summaries::add
+    ));
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 4; i++)
+      thrown.add(new TestException());
+    thrown.subList(0, 3).forEach(testHandler::handle);
+    now.addAndGet(1000);
+    testHandler.handle(thrown.get(3));
+
+    assertAll(
+      () -> assertEquals(List.of(thrown.get(0), thrown.get(1), thrown.get(3)), handled),
+      () -> assertEquals(1, summaries.size()),
+      () -> assertSame(thrown.get(2), summaries.get(0).getCause())
+    );
+  }
+
+  @Test
+  public void handle_afterWindowWithSummaryAdmittingHandler_passSummaryItself() {
+    RateLimitedExceptionHandler testHandler = testHandler(Map.of(RuntimeException.class, handled::add));
+    List<Exception> thrown = new ArrayList<>();
+
+    for (int i = 0; i < 4; i++)
+      thrown.add(new IllegalStateException());
+    thrown.subList(0, 3).forEach(testHandler::handle);
+    now.addAndGet(1000);
+    testHandler.handle(thrown.get(3));
+
+    assertAll(
+      () -> assertEquals(4, handled.size()),
+      () -> assertTrue(handled.get(2) instanceof ExceptionsSuppressedException),
+      () -> assertSame(thrown.get(2), handled.get(2).getCause())
+    );
+  }
+
+  @Test
+  public void handle_unmatchedExceptions_throwEveryTime() {
+    RateLimitedExceptionHandler testHandler = testHandler(Map.of(SQLException.class, handled::add));
+
+    for (int i = 0; i < 4; i++)
+      assertThrows(IllegalArgumentException.class, () -> testHandler.handle(new TestException()));
+    assertEquals(0, testHandler.fingerprintCount());
+  }
+
+  private RateLimitedExceptionHandler testHandler(Map<Class<?>, Consumer<Exception>> handlers) {
+    MappedExceptionHandler mapped = new MappedExceptionHandler(handlers);
+    return new RateLimitedExceptionHandler(mapped, mapped::handles, mapped::handleSummary, 2, 1000, now::get);
+  }
+
+  private RateLimitedExceptionHandler testHandler() {
+    return new RateLimitedExceptionHandler(handled::add, 2, 1000, now::get);
+  }
+}
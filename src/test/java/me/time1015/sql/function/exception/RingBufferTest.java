@@ -0,0 +1,109 @@
+package me.time1015.sql.function.exception;
+
+/*-
+ * The MIT License
+ * Copyright © 2020 John Daniel Regino
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+public class RingBufferTest {
+  @Test
+  public void constructor_roundCapacityUpToPowerOfTwo() {
+    assertAll(
+      () -> assertEquals(2, new RingBuffer<>(1).capacity()),
+      () -> assertEquals(8, new RingBuffer<>(5).capacity()),
+      () -> assertEquals(8, new RingBuffer<>(8).capacity())
+    );
+  }
+
+  @Test
+  public void offer_full_returnFalse() {
+    RingBuffer<Object> testBuffer = new RingBuffer<>(2);
+
+    assertAll(
+      () -> assertTrue(testBuffer.offer(1)),
+      () -> assertTrue(testBuffer.offer(2)),
+      () -> assertFalse(testBuffer.offer(3)),
+      () -> assertEquals(2, testBuffer.size())
+    );
+  }
+
+  @Test
+  public void poll_returnInOfferOrderThenNull() {
+    RingBuffer<Object> testBuffer = new RingBuffer<>(2);
+    List<Object> polled = new ArrayList<>();
+
+    for (int i = 0; i < 5; i++) {
+      testBuffer.offer(i);
+      polled.add(testBuffer.poll());
+    }
+
+    assertAll(
+      () -> assertEquals(List.of(0, 1, 2, 3, 4), polled),
+      () -> assertNull(testBuffer.poll()),
+      () -> assertEquals(0, testBuffer.size())
+    );
+  }
+
+  @Test
+  public void offer_concurrentProducers_pollEveryElementOnce() throws Exception {
+    RingBuffer<Integer> testBuffer = new RingBuffer<>(64);
+    Set<Integer> polled = ConcurrentHashMap.newKeySet();
+    Thread[] producers = new Thread[4];
+    for (int p = 0; p < producers.length; p++) {
+      int offset = p * 10_000;
+      producers[p] = new Thread(() -> {
+        for (int i = 0; i < 10_000; i++)
+          while (!testBuffer.offer(offset + i))
+            Thread.onSpinWait();
+      });
+      producers[p].start();
+    }
+
+    Set<Integer> expected = new HashSet<>();
+    for (int i = 0; i < 40_000; i++)
+      expected.add(i);
+
+    while (polled.size() < expected.size()) {
+      Integer element = testBuffer.poll();
+      if (element != null)
+        assertTrue(polled.add(element));
+    }
+
+    for (Thread producer : producers)
+      producer.join();
+
+    assertEquals(expected, polled);
+  }
+}